@@ -0,0 +1,103 @@
+package cool.compiler;
+
+import cool.lexer.CoolLexer;
+import cool.parser.AST.ASTConstructionVisitor;
+import cool.parser.AST.ASTNode;
+import cool.parser.AST.ASTSerializer;
+import cool.parser.CoolParser;
+import cool.structures.NameTable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+// On-disk cache of the ASTs built for individual source files, which lets
+// unchanged files skip lexing, parsing and AST construction.
+//
+// Entries are keyed by a hash of the file contents and of a fingerprint of
+// the compiler itself: the serialization format version and the compiled
+// lexer, parser and AST construction code (which include the grammar ATNs).
+// Changing the grammar or the compiler thus invalidates every entry.
+public class CompilationCache {
+    private final Path directory;
+    private final byte[] fingerprint;
+
+    public CompilationCache(String directory) throws IOException {
+        this.directory = Paths.get(directory);
+        Files.createDirectories(this.directory);
+
+        var digest = newDigest();
+        digest.update(Integer.toString(ASTSerializer.FORMAT_VERSION).getBytes(StandardCharsets.UTF_8));
+        digest.update(CoolLexer._serializedATN.getBytes(StandardCharsets.UTF_8));
+        digest.update(CoolParser._serializedATN.getBytes(StandardCharsets.UTF_8));
+        for (var class_ : new Class<?>[] { CoolLexer.class, CoolParser.class,
+                                           ASTConstructionVisitor.class, ASTSerializer.class }) {
+            digest.update(class_.getName().getBytes(StandardCharsets.UTF_8));
+            try (InputStream in = class_.getResourceAsStream(class_.getSimpleName() + ".class")) {
+                if (in != null)
+                    digest.update(in.readAllBytes());
+            }
+        }
+        fingerprint = digest.digest();
+    }
+
+    // Computes the cache key of a file with the given contents.
+    public String key(byte[] contents) {
+        var digest = newDigest();
+        digest.update(fingerprint);
+        digest.update(contents);
+
+        var key = new StringBuilder();
+        for (var b : digest.digest())
+            key.append(String.format("%02x", b));
+
+        return key.toString();
+    }
+
+    // Returns the cached AST of the file with the given id, or null if there
+    // is no usable entry for it. Names are interned into the given table.
+    public ASTNode load(String key, int fileId, NameTable names) {
+        var path = directory.resolve(key + ".ast");
+        if (!Files.isRegularFile(path))
+            return null;
+
+        try (var in = Files.newInputStream(path)) {
+            return ASTSerializer.read(in, fileId, names);
+        } catch (IOException e) {
+            // Unreadable or corrupt entries are simply rebuilt.
+            return null;
+        }
+    }
+
+    // Stores the AST of a file. The entry is written to a temporary file and
+    // then moved in place, so that concurrent compilations never observe a
+    // partially written entry. Failures only cost a cache miss later on.
+    public void store(String key, ASTNode program) {
+        Path tempPath = null;
+        try {
+            tempPath = Files.createTempFile(directory, key, ".tmp");
+            try (var out = Files.newOutputStream(tempPath)) {
+                ASTSerializer.write(program, out);
+            }
+            Files.move(tempPath, directory.resolve(key + ".ast"),
+                       StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            try {
+                if (tempPath != null)
+                    Files.deleteIfExists(tempPath);
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package cool.compiler;
+
+import cool.structures.NameTable;
+import cool.structures.SymbolTable;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+// The state of a single compilation: its options, input files, output
+// streams and symbol table. Compilations with separate contexts share no
+// mutable state, so they can run one after another or concurrently in the
+// same JVM.
+public class CompilationContext {
+    public final Options options;
+
+    // Names of the input files, indexed by the file ids of AST tokens.
+    public final List<String> fileNames;
+
+    // The generated assembly is printed to out, diagnostics to err.
+    public final PrintStream out;
+    public final PrintStream err;
+
+    // Identifier and type names, interned while the ASTs are built.
+    public final NameTable names;
+
+    public final SymbolTable symbolTable;
+
+    public CompilationContext(Options options, PrintStream out, PrintStream err) {
+        this.options = options;
+        this.fileNames = new ArrayList<>(options.fileNames);
+        this.out = out;
+        this.err = err;
+        this.names = new NameTable();
+        this.symbolTable = new SymbolTable(this);
+    }
+}
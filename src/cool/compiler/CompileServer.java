@@ -0,0 +1,60 @@
+package cool.compiler;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
+// Long-running compilation mode (-server), which keeps the JVM, the ANTLR
+// prediction caches, the lexer/parser pair and the code generation templates
+// warm across compilations.
+//
+// Each request is a single line on the input, holding the usual command line
+// arguments (options and file names) separated by whitespace. Each response
+// starts with a header line "<asm bytes> <diagnostic bytes>", followed by the
+// generated assembly and then by the diagnostics, exactly as the compiler
+// would print them to stdout and stderr. The server stops at end of input.
+public class CompileServer {
+    private final SourceParser sourceParser = new SourceParser();
+
+    public void run(InputStream in, PrintStream out) throws IOException {
+        var reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.strip();
+            if (line.isEmpty())
+                continue;
+
+            var asm = new ByteArrayOutputStream();
+            var diagnostics = new ByteArrayOutputStream();
+            compile(line.split("\\s+"), asm, diagnostics);
+
+            out.print(asm.size() + " " + diagnostics.size() + "\n");
+            asm.writeTo(out);
+            diagnostics.writeTo(out);
+            out.flush();
+        }
+    }
+
+    // Runs one compilation whose output goes into the given buffers. Failures
+    // of a single request are reported as diagnostics and do not bring the
+    // server down.
+    private void compile(String[] args, ByteArrayOutputStream asm, ByteArrayOutputStream diagnostics) {
+        var out = new PrintStream(asm, true);
+        var err = new PrintStream(diagnostics, true);
+
+        try {
+            var options = Options.parse(args);
+            if (options.server)
+                throw new IllegalArgumentException("Option -server is not allowed in a request");
+
+            Compiler.compile(new CompilationContext(options, out, err), sourceParser);
+        } catch (IllegalArgumentException e) {
+            err.println(e.getMessage());
+        } catch (IOException | RuntimeException e) {
+            err.println(e);
+        } finally {
+            out.flush();
+            err.flush();
+        }
+    }
+}
@@ -1,172 +1,239 @@
 package cool.compiler;
 
 import cool.parser.AST.*;
-import org.antlr.v4.runtime.*;
-import org.antlr.v4.runtime.tree.*;
-
-import cool.lexer.*;
-import cool.parser.*;
-import cool.structures.SymbolTable;
+import cool.structures.NameTable;
 
 import java.io.*;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 
 public class Compiler {
-    // Annotates class nodes with the names of files where they are defined.
-    public static ParseTreeProperty<String> fileNames = new ParseTreeProperty<>();
-
     public static void main(String[] args) throws IOException {
         if (args.length == 0) {
             System.err.println("No file(s) given");
             return;
         }
-        
-        CoolLexer lexer = null;
-        CommonTokenStream tokenStream = null;
-        CoolParser parser = null;
-        ParserRuleContext globalTree = null;
-        
+
+        Options options;
+        try {
+            options = Options.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            return;
+        }
+
+        if (options.server) {
+            new CompileServer().run(System.in, System.out);
+            return;
+        }
+
+        compile(new CompilationContext(options, System.out, System.err), new SourceParser());
+    }
+
+    // Runs one compilation: the assembly is printed to the context's out
+    // stream and the diagnostics to its err stream. The given parser is used
+    // for sequential parsing, which lets the compile server keep a warmed-up
+    // lexer/parser around.
+    static void compile(CompilationContext context, SourceParser sourceParser) throws IOException {
+        var options = context.options;
+
+        if (options.fileNames.isEmpty()) {
+            context.err.println("No file(s) given");
+            return;
+        }
+
+        var fileCount = options.fileNames.size();
+
+        // ASTs of the input files, in input order. Files found in the cache
+        // are filled in right away; the others are parsed below.
+        var programs = new ArrayList<ASTNode>(Collections.nCopies(fileCount, (ASTNode)null));
+        var cacheKeys = new String[fileCount];
+        var filesToParse = new ArrayList<Integer>();
+
+        CompilationCache cache = null;
+        if (options.cacheDirectory != null)
+            cache = new CompilationCache(options.cacheDirectory);
+
+        for (int i = 0; i < fileCount; i++) {
+            var fileName = options.fileNames.get(i);
+
+            if (cache != null) {
+                cacheKeys[i] = cache.key(Files.readAllBytes(Paths.get(fileName)));
+                programs.set(i, cache.load(cacheKeys[i], i, context.names));
+            }
+
+            if (programs.get(i) == null)
+                filesToParse.add(i);
+        }
+
         // True if any lexical or syntax errors occur.
         boolean lexicalSyntaxErrors = false;
-        
-        // Parse each input file and build one big parse tree out of
-        // individual parse trees.
-        for (var fileName : args) {
-            var input = CharStreams.fromFileName(fileName);
-            
-            // Lexer
-            if (lexer == null)
-                lexer = new CoolLexer(input);
-            else
-                lexer.setInputStream(input);
-
-            // Token stream
-            if (tokenStream == null)
-                tokenStream = new CommonTokenStream(lexer);
-            else
-                tokenStream.setTokenSource(lexer);
-                
-            /*
-            // Test lexer only.
-            tokenStream.fill();
-            List<Token> tokens = tokenStream.getTokens();
-            tokens.stream().forEach(token -> {
-                var text = token.getText();
-                var name = CoolLexer.VOCABULARY.getSymbolicName(token.getType());
-                
-                System.out.println(text + " : " + name);
-                //System.out.println(token);
-            });
-            */
-            
-            // Parser
-            if (parser == null)
-                parser = new CoolParser(tokenStream);
-            else
-                parser.setTokenStream(tokenStream);
-            
-            // Customized error listener, for including file names in error
-            // messages.
-            var errorListener = new BaseErrorListener() {
-                public boolean errors = false;
-                
-                @Override
-                public void syntaxError(Recognizer<?, ?> recognizer,
-                                        Object offendingSymbol,
-                                        int line, int charPositionInLine,
-                                        String msg,
-                                        RecognitionException e) {
-                    String newMsg = "\"" + new File(fileName).getName() + "\", line " +
-                                        line + ":" + (charPositionInLine + 1) + ", ";
-                    
-                    Token token = (Token)offendingSymbol;
-                    if (token.getType() == CoolLexer.ERROR)
-                        newMsg += "Lexical error: " + token.getText();
-                    else
-                        newMsg += "Syntax error: " + msg;
-                    
-                    System.err.println(newMsg);
-                    errors = true;
-                }
-            };
-            
-            parser.removeErrorListeners();
-            parser.addErrorListener(errorListener);
-            
-            // Actual parsing
-            var tree = parser.program();
-            if (globalTree == null)
-                globalTree = tree;
-            else
-                // Add the current parse tree's children to the global tree.
-                for (int i = 0; i < tree.getChildCount(); i++)
-                    globalTree.addAnyChild(tree.getChild(i));
-                    
-            // Annotate class nodes with file names, to be used later
-            // in semantic error messages.
-            for (int i = 0; i < tree.getChildCount(); i++) {
-                var child = tree.getChild(i);
-                // The only ParserRuleContext children of the program node
-                // are class nodes.
-                if (child instanceof ParserRuleContext)
-                    fileNames.put(child, fileName);
-            }
-            
+
+        // Number of files that could not be parsed in SLL mode alone.
+        int llFallbacks = 0;
+
+        // Parse the remaining files and build their ASTs. Files may be
+        // parsed concurrently, but their errors are reported in input order.
+        var parsedFiles = parseFiles(options.fileNames, filesToParse, options.getJobs(), sourceParser, context.names);
+        for (int i = 0; i < parsedFiles.size(); i++) {
+            var parsedFile = parsedFiles.get(i);
+            parsedFile.errors.forEach(context.err::println);
+
+            var fileId = filesToParse.get(i);
+            programs.set(fileId, parsedFile.ast);
+            if (cache != null && parsedFile.ast != null)
+                cache.store(cacheKeys[fileId], parsedFile.ast);
+
             // Record any lexical or syntax errors.
-            lexicalSyntaxErrors |= errorListener.errors;
+            lexicalSyntaxErrors |= parsedFile.hasErrors();
+
+            if (parsedFile.usedFallback)
+                llFallbacks++;
+        }
+
+        if (options.stats) {
+            // Files loaded from the cache are not parsed, so they are not counted.
+            context.err.println("Parsing: " + llFallbacks + " of " + filesToParse.size()
+                    + " parsed file(s) needed the LL fallback");
+            if (cache != null)
+                context.err.println("Cache: " + (fileCount - filesToParse.size()) + " of " + fileCount
+                        + " file(s) loaded from the cache");
         }
 
         // Stop before semantic analysis phase, in case errors occurred.
         if (lexicalSyntaxErrors) {
-            System.err.println("Compilation halted");
+            context.err.println("Compilation halted");
             return;
         }
 
-        // Visitor-ul de mai jos parcurge arborele de derivare și construiește
-        // un arbore de sintaxă abstractă (AST).
-        var astConstructionVisitor = new ASTConstructionVisitor();
-
-        // ast este AST-ul proaspăt construit pe baza arborelui de derivare.
-        var ast = astConstructionVisitor.visit(globalTree);
+        // ast este AST-ul proaspăt construit, obținut prin unirea AST-urilor
+        // fișierelor de intrare.
+        var ast = ASTConstructionVisitor.mergePrograms(programs);
 
         // Visitor-ul de mai jos parcurge AST-ul și afișează în consolă structura programului.
         // var astPrinterVisitor = new ASTPrinterVisitor();
 
         // ast.accept(astPrinterVisitor);
 
-        // Populate global scope.
-        SymbolTable.defineBasicClasses();
-
         // În vederea gestiunii referirilor anticipate, utilizăm mai multe treceri.
         Arrays.asList(
                 // În prima trecere sunt definite toate simbolurile (clase, variabile, metode,
                 // atribute, parametri etc.) și domeniile de vizibilitate.
-                new ASTDefinitionPassVisitor(),
+                new ASTDefinitionPassVisitor(context),
 
                 // În a doua trecere se stabilesc tipurile simbolurilor conform tipurilor
                 // specificate la declarare și se creează ierarhia de clase. Clasele derivate
                 // vor avea ca scope părinte clasa de bază. Clasele nederivate vor avea clasa
                 // Object ca (scope) părinte.
-                new ASTClassBindingPassVisitor(),
+                new ASTClassBindingPassVisitor(context),
 
                 // În a treia trecere se validează ierarhia claselor astfel încât să nu existe
                 // dependențe circulare și se validează suprascrierile.
-                new ASTClassHierarchyValidationPassVisitor(),
+                new ASTClassHierarchyValidationPassVisitor(context),
 
                 // În ultima trecere se verifică tipurile expresiilor.
-                new ASTResolutionPassVisitor()
+                new ASTResolutionPassVisitor(context)
         ).forEach(ast::accept);
 
-        if (SymbolTable.hasSemanticErrors()) {
-            System.err.println("Compilation halted");
+        if (context.symbolTable.hasSemanticErrors()) {
+            context.err.println("Compilation halted");
             return;
         }
 
-        var astCodeGenPassVisitor = new ASTCodeGenPassVisitor();
-        var codeGen = ast.accept(astCodeGenPassVisitor);
+        // Expresiile constante sunt evaluate înaintea generării de cod.
+        if (context.options.fold) {
+            var constantFoldingPassVisitor = new ASTConstantFoldingPassVisitor(context);
+            ast.accept(constantFoldingPassVisitor);
+
+            if (context.options.stats)
+                context.err.println("Constant folding: " + constantFoldingPassVisitor.getFoldCount()
+                        + " expression(s) evaluated at compile time");
+        }
+
+        // Codul generat este scris direct în ieșire, fără a fi construit întâi
+        // într-un singur șir de caractere.
+        var astCodeGenPassVisitor = new ASTCodeGenPassVisitor(context);
+        try (var out = openOutput(context)) {
+            astCodeGenPassVisitor.generate(ast, out);
+        }
+    }
+
+    // The assembly goes to the file given with -o, or to the context's out
+    // stream otherwise. Either way it is written with the platform charset,
+    // just like the stream would encode it.
+    private static Writer openOutput(CompilationContext context) throws IOException {
+        if (context.options.outputFile != null)
+            return Files.newBufferedWriter(Paths.get(context.options.outputFile), Charset.defaultCharset());
+
+        var out = context.out;
+        return new BufferedWriter(new Writer() {
+            @Override
+            public void write(char[] buffer, int offset, int length) {
+                out.append(CharBuffer.wrap(buffer, offset, length));
+            }
+
+            @Override
+            public void flush() {
+                out.flush();
+            }
+
+            // The stream belongs to the context and stays open.
+            @Override
+            public void close() {
+                out.flush();
+            }
+        });
+    }
+
+    // Lexes and parses the files with the given ids, returning the results in
+    // the same order. With more than one job, files are distributed over a
+    // bounded worker pool in which every worker owns its own lexer/parser pair.
+    private static List<SourceParser.ParsedFile> parseFiles(List<String> fileNames, List<Integer> fileIds, int jobs,
+                                                            SourceParser sourceParser, NameTable names) throws IOException {
+        var parsedFiles = new ArrayList<SourceParser.ParsedFile>(fileIds.size());
+
+        if (jobs <= 1 || fileIds.size() <= 1) {
+            for (var fileId : fileIds)
+                parsedFiles.add(sourceParser.parse(fileNames.get(fileId), fileId, names));
+
+            return parsedFiles;
+        }
+
+        var workerParsers = ThreadLocal.withInitial(SourceParser::new);
+        var pool = Executors.newFixedThreadPool(Math.min(jobs, fileIds.size()));
+
+        try {
+            var futures = new ArrayList<Future<SourceParser.ParsedFile>>(fileIds.size());
+            for (var fileId : fileIds)
+                futures.add(pool.submit(() -> workerParsers.get().parse(fileNames.get(fileId), fileId, names)));
+
+            for (var future : futures)
+                parsedFiles.add(future.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while parsing");
+        } catch (ExecutionException e) {
+            var cause = e.getCause();
+            if (cause instanceof IOException)
+                throw (IOException)cause;
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException)cause;
+
+            throw new RuntimeException(cause);
+        } finally {
+            pool.shutdownNow();
+        }
 
-        if (codeGen != null)
-            System.out.println(codeGen.render());
+        return parsedFiles;
     }
 }
@@ -0,0 +1,184 @@
+package cool.compiler;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Command line options. Anything that does not start with '-' is an input file.
+public class Options {
+    // Number of worker threads used for lexing and parsing the input files
+    // and for type checking the classes. 0 means one worker per available core.
+    public int jobs = 1;
+
+    // Print compilation statistics to stderr.
+    public boolean stats = false;
+
+    // Directory of the incremental compilation cache, or null if disabled.
+    public String cacheDirectory = null;
+
+    // File the assembly is written to, or null for stdout.
+    public String outputFile = null;
+
+    // Serve compilation requests from stdin instead of compiling once.
+    public boolean server = false;
+
+    // Keep Int and Bool values unboxed in the generated code, allocating
+    // objects only where a value escapes into an attribute, an argument, a
+    // return value or a dispatch. Raw values may sit in stack slots, so this
+    // assumes the non-collecting runtime (trap.handler.nogc).
+    public boolean unboxed = false;
+
+    // Generate method bodies through the three-address IR (cool.ir), with
+    // temporaries, locals and formals assigned to registers by a linear scan
+    // allocator, instead of expanding the cgen.stg templates.
+    public boolean ir = false;
+
+    // Call methods directly (jal) at dispatch sites where class hierarchy
+    // analysis finds a single possible implementation.
+    public boolean devirtualize = false;
+
+    // Expand small methods at monomorphic call sites. Requires -ir, since the
+    // expansion happens while method bodies are lowered to the IR.
+    public boolean inline = false;
+
+    // Omit the void check of dispatch receivers that a dataflow analysis
+    // proves non-void (self, new objects, checked locals, ...).
+    public boolean nonVoid = false;
+
+    // Evaluate constant expressions at compile time, between type checking
+    // and code generation.
+    public boolean fold = false;
+
+    // Branch directly on relational, not and isvoid conditions of if / while
+    // instead of building their Bool value first.
+    public boolean fuse = false;
+
+    // Generate only the classes and methods reachable from Main.main. Classes
+    // that are never instantiated keep just their tag.
+    public boolean dce = false;
+
+    // Run a peephole optimizer over every generated routine, whether it comes
+    // from the cgen.stg templates or from the IR emitter.
+    public boolean peephole = false;
+
+    // Select the branch of a case with many branches through a jump table or a
+    // binary search over class tags instead of testing the branches in turn.
+    public boolean caseDispatch = false;
+
+    // Compare the values of Int and Bool operands of = inline instead of
+    // calling the runtime equality_test routine.
+    public boolean inlineEquality = false;
+
+    // Return shared, preallocated Int objects for arithmetic and in_int results
+    // in [intCacheMin, intCacheMax] instead of allocating a new object. The
+    // range is optional (-intcache [min..max]) and holds at most
+    // MAX_INT_CACHE_SIZE values.
+    public boolean intCache = false;
+    public int intCacheMin = -128;
+    public int intCacheMax = 1023;
+    public static final int MAX_INT_CACHE_SIZE = 65536;
+
+    // Compile calls in tail position into jumps that reuse the frame of the
+    // current method: self-recursive calls become loops, other calls with the
+    // same number of arguments release the frame before jumping to the callee.
+    public boolean tailCalls = false;
+
+    // Print the call sites converted by -tailcalls to stderr.
+    public boolean tailCallReport = false;
+
+    public final List<String> fileNames = new ArrayList<>();
+
+    public static Options parse(String[] args) {
+        var options = new Options();
+
+        for (int i = 0; i < args.length; i++) {
+            var arg = args[i];
+
+            switch (arg) {
+                case "-j" -> options.jobs = parseCount(arg, nextArgument(args, ++i, arg));
+                case "-stats" -> options.stats = true;
+                case "-cache" -> options.cacheDirectory = nextArgument(args, ++i, arg);
+                case "-o" -> options.outputFile = nextArgument(args, ++i, arg);
+                case "-server" -> options.server = true;
+                case "-unboxed" -> options.unboxed = true;
+                case "-ir" -> options.ir = true;
+                case "-devirtualize" -> options.devirtualize = true;
+                case "-inline" -> options.inline = true;
+                case "-nonvoid" -> options.nonVoid = true;
+                case "-fold" -> options.fold = true;
+                case "-fuse" -> options.fuse = true;
+                case "-dce" -> options.dce = true;
+                case "-peephole" -> options.peephole = true;
+                case "-casedispatch" -> options.caseDispatch = true;
+                case "-inlineeq" -> options.inlineEquality = true;
+                case "-intcache" -> {
+                    options.intCache = true;
+                    if (i + 1 < args.length && isRange(args[i + 1]))
+                        options.parseIntCacheRange(arg, args[++i]);
+                }
+                case "-tailcalls" -> options.tailCalls = true;
+                case "-tailreport" -> options.tailCallReport = true;
+                default -> {
+                    if (arg.startsWith("-"))
+                        throw new IllegalArgumentException("Unknown option " + arg);
+
+                    options.fileNames.add(arg);
+                }
+            }
+        }
+
+        if (options.inline && !options.ir)
+            throw new IllegalArgumentException("Option -inline requires -ir");
+
+        return options;
+    }
+
+    public int getJobs() {
+        return (jobs == 0) ? Runtime.getRuntime().availableProcessors() : jobs;
+    }
+
+    private static String nextArgument(String[] args, int i, String option) {
+        if (i >= args.length)
+            throw new IllegalArgumentException("Option " + option + " requires an argument");
+
+        return args[i];
+    }
+
+    // The optional argument of -intcache is taken only if it is a range of
+    // numbers, so that an input file may follow the option directly.
+    private static boolean isRange(String value) {
+        return value.matches("-?\\d+\\.\\.-?\\d+");
+    }
+
+    // The range is given as min..max, e.g. -128..1023. The offset -min of the
+    // table index must fit in a word and the table in MAX_INT_CACHE_SIZE entries.
+    private void parseIntCacheRange(String option, String value) {
+        var bounds = value.split("\\.\\.", -1);
+
+        try {
+            if (bounds.length == 2) {
+                int min = Integer.parseInt(bounds[0]);
+                int max = Integer.parseInt(bounds[1]);
+                if (min <= max && min > Integer.MIN_VALUE && (long)max - min < MAX_INT_CACHE_SIZE) {
+                    intCacheMin = min;
+                    intCacheMax = max;
+                    return;
+                }
+            }
+        } catch (NumberFormatException ignored) {
+        }
+
+        throw new IllegalArgumentException("Option " + option + " expects a range min..max of at most "
+                + MAX_INT_CACHE_SIZE + " values, got " + value);
+    }
+
+    private static int parseCount(String option, String value) {
+        try {
+            int count = Integer.parseInt(value);
+            if (count >= 0)
+                return count;
+        } catch (NumberFormatException ignored) {
+        }
+
+        throw new IllegalArgumentException("Option " + option + " expects a non-negative number, got " + value);
+    }
+}
@@ -0,0 +1,143 @@
+package cool.compiler;
+
+import cool.lexer.CoolLexer;
+import cool.parser.AST.ASTConstructionVisitor;
+import cool.parser.AST.ASTNode;
+import cool.parser.CoolParser;
+import cool.structures.NameTable;
+import org.antlr.v4.runtime.*;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+// Lexes and parses individual source files and builds their ASTs. An instance
+// owns one lexer/parser pair which is reused across files, so it must not be
+// shared between threads.
+public class SourceParser {
+    // The outcome of parsing one file: its AST and the lexical/syntax error
+    // messages, buffered so that they can be reported in input order. The
+    // parse tree itself is not kept, so that it can be freed right away.
+    public static class ParsedFile {
+        public final String fileName;
+        public final List<String> errors;
+
+        // Null if the file has errors.
+        public final ASTNode ast;
+
+        // True if the fast SLL stage failed and the file was parsed again in
+        // full LL mode.
+        public final boolean usedFallback;
+
+        ParsedFile(String fileName, List<String> errors, ASTNode ast, boolean usedFallback) {
+            this.fileName = fileName;
+            this.errors = errors;
+            this.ast = ast;
+            this.usedFallback = usedFallback;
+        }
+
+        public boolean hasErrors() {
+            return !errors.isEmpty();
+        }
+    }
+
+    private CoolLexer lexer = null;
+    private CommonTokenStream tokenStream = null;
+    private CoolParser parser = null;
+
+    // The file id is recorded in the tokens of the AST, and identifier and
+    // type names are interned into the given table.
+    public ParsedFile parse(String fileName, int fileId, NameTable names) throws IOException {
+        var input = CharStreams.fromFileName(fileName);
+
+        // Lexer
+        if (lexer == null)
+            lexer = new CoolLexer(input);
+        else
+            lexer.setInputStream(input);
+
+        // Token stream
+        if (tokenStream == null)
+            tokenStream = new CommonTokenStream(lexer);
+        else
+            tokenStream.setTokenSource(lexer);
+
+        /*
+        // Test lexer only.
+        tokenStream.fill();
+        List<Token> tokens = tokenStream.getTokens();
+        tokens.stream().forEach(token -> {
+            var text = token.getText();
+            var name = CoolLexer.VOCABULARY.getSymbolicName(token.getType());
+
+            System.out.println(text + " : " + name);
+            //System.out.println(token);
+        });
+        */
+
+        // Parser
+        if (parser == null)
+            parser = new CoolParser(tokenStream);
+        else
+            parser.setTokenStream(tokenStream);
+
+        // Customized error listener, for including file names in error
+        // messages.
+        var errors = new ArrayList<String>();
+        var errorListener = new BaseErrorListener() {
+            @Override
+            public void syntaxError(Recognizer<?, ?> recognizer,
+                                    Object offendingSymbol,
+                                    int line, int charPositionInLine,
+                                    String msg,
+                                    RecognitionException e) {
+                String newMsg = "\"" + new File(fileName).getName() + "\", line " +
+                                    line + ":" + (charPositionInLine + 1) + ", ";
+
+                Token token = (Token)offendingSymbol;
+                if (token.getType() == CoolLexer.ERROR)
+                    newMsg += "Lexical error: " + token.getText();
+                else
+                    newMsg += "Syntax error: " + msg;
+
+                errors.add(newMsg);
+            }
+        };
+
+        // Actual parsing, in two stages. SLL prediction is much cheaper than
+        // full LL on the left-recursive expr rule and succeeds on virtually
+        // every valid input. It is run without error reporting and bails out
+        // on the first error.
+        parser.removeErrorListeners();
+        parser.setErrorHandler(new BailErrorStrategy());
+        parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+
+        CoolParser.ProgramContext tree;
+        boolean usedFallback = false;
+
+        try {
+            tree = parser.program();
+        } catch (ParseCancellationException e) {
+            // Either the input has errors, or it needs full LL prediction.
+            // Parse the file again in LL mode with the default recovery
+            // strategy, which also produces the usual error messages.
+            parser.reset();
+            parser.addErrorListener(errorListener);
+            parser.setErrorHandler(new DefaultErrorStrategy());
+            parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+
+            tree = parser.program();
+            usedFallback = true;
+        }
+
+        // The AST construction cannot handle trees with errors.
+        ASTNode ast = null;
+        if (errors.isEmpty())
+            ast = new ASTConstructionVisitor(fileId, names).visit(tree);
+
+        return new ParsedFile(fileName, errors, ast, usedFallback);
+    }
+}
@@ -0,0 +1,221 @@
+package cool.ir;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Codul intermediar al unei rutine, construit instrucțiune cu instrucțiune de
+// generatorul de cod. Fiecare valoare intermediară primește propriul registru
+// virtual; emit() alocă registrele fizice și produce codul MIPS al rutinei.
+public class Function {
+    public enum Operator {
+        ADD("add"), SUB("sub"), MUL("mul"), DIV("div"),
+        SLT("slt"), SLE("sle"), SEQ("seq"),
+        ADDU("addu"), SLL("sll");
+
+        final String instruction;
+
+        Operator(String instruction) {
+            this.instruction = instruction;
+        }
+    }
+
+    public enum UnaryOperator {
+        NEG,
+        // 1 dacă operandul este 0, altfel 0.
+        IS_ZERO
+    }
+
+    public enum Condition {
+        EQ("beq", "beqz"), NE("bne", "bnez"),
+        LT("blt", "bltz"), LE("ble", "blez"),
+        GT("bgt", "bgtz"), GE("bge", "bgez");
+
+        final String instruction;
+        final String zeroInstruction;
+
+        Condition(String instruction, String zeroInstruction) {
+            this.instruction = instruction;
+            this.zeroInstruction = zeroInstruction;
+        }
+    }
+
+    private final Label name;
+    private final int formalCount;
+    final List<Instruction> code = new ArrayList<>();
+
+    private int tempCount = 0;
+
+    // Obiectul curent (self), păstrat în $s0 pe toată durata rutinei.
+    private final Temp self = newTemp();
+
+    public Function(Label name, int formalCount) {
+        this.name = name;
+        this.formalCount = formalCount;
+    }
+
+    Label getName() {
+        return name;
+    }
+
+    int getFormalCount() {
+        return formalCount;
+    }
+
+    int getTempCount() {
+        return tempCount;
+    }
+
+    public Temp self() {
+        return self;
+    }
+
+    public Temp newTemp() {
+        return new Temp(tempCount++);
+    }
+
+    // Poziția curentă în cod, pentru insert.
+    public int mark() {
+        return code.size();
+    }
+
+    // Copiază valoarea lui src într-un registru nou, la poziția dată (obținută
+    // anterior prin mark), ca și cum copia ar fi fost făcută atunci.
+    public Temp insertCopy(int position, Temp src) {
+        var dst = newTemp();
+        code.add(position, new Move(dst, src));
+        return dst;
+    }
+
+    public void placeLabel(Label label) {
+        code.add(new LabelDef(label));
+    }
+
+    public void jump(Label target) {
+        code.add(new Jump(target));
+    }
+
+    public void branch(Condition cond, Temp a, Temp b, Label target) {
+        code.add(new Branch(cond, a, b, null, target));
+    }
+
+    public void branch(Condition cond, Temp a, int imm, Label target) {
+        code.add(new Branch(cond, a, null, imm, target));
+    }
+
+    // Salt dacă a <cond> 0.
+    public void branchZero(Condition cond, Temp a, Label target) {
+        code.add(new Branch(cond, a, null, null, target));
+    }
+
+    public void move(Temp dst, Temp src) {
+        code.add(new Move(dst, src));
+    }
+
+    // Copiază src în dst. Dacă src tocmai a fost calculat de ultima instrucțiune,
+    // aceasta este modificată să scrie direct în dst; apelantul garantează că
+    // src nu mai este folosit altundeva.
+    public void assign(Temp dst, Temp src) {
+        int last = code.size() - 1;
+        if (last >= 0 && code.get(last).def() == src) {
+            var redefined = code.get(last).withDef(dst);
+            if (redefined != null) {
+                code.set(last, redefined);
+                return;
+            }
+        }
+
+        move(dst, src);
+    }
+
+    public Temp loadImm(int value) {
+        var dst = newTemp();
+        code.add(new LoadImm(dst, value));
+        return dst;
+    }
+
+    public Temp loadAddress(Label symbol) {
+        var dst = newTemp();
+        code.add(new LoadAddress(dst, symbol));
+        return dst;
+    }
+
+    public Temp load(Temp base, int offset) {
+        var dst = newTemp();
+        code.add(new Load(dst, base, offset));
+        return dst;
+    }
+
+    public Temp loadArgument(int index) {
+        var dst = newTemp();
+        code.add(new LoadArgument(dst, index));
+        return dst;
+    }
+
+    public void store(Temp value, Temp base, int offset) {
+        code.add(new Store(value, base, offset));
+    }
+
+    public Temp binary(Operator op, Temp a, Temp b) {
+        var dst = newTemp();
+        code.add(new Binary(op, dst, a, b, 0));
+        return dst;
+    }
+
+    public Temp binary(Operator op, Temp a, int imm) {
+        var dst = newTemp();
+        code.add(new Binary(op, dst, a, null, imm));
+        return dst;
+    }
+
+    public Temp unary(UnaryOperator op, Temp a) {
+        var dst = newTemp();
+        code.add(new Unary(op, dst, a));
+        return dst;
+    }
+
+    public Temp call(Label routine, Temp receiver, List<Temp> args) {
+        var dst = newTemp();
+        code.add(new Call(dst, routine, null, receiver, List.copyOf(args)));
+        return dst;
+    }
+
+    public Temp callIndirect(Temp address, Temp receiver, List<Temp> args) {
+        var dst = newTemp();
+        code.add(new Call(dst, null, address, receiver, List.copyOf(args)));
+        return dst;
+    }
+
+    public void tailCall(Label routine, Temp receiver, List<Temp> args) {
+        code.add(new TailCall(routine, null, receiver, List.copyOf(args)));
+    }
+
+    public void tailCallIndirect(Temp address, Temp receiver, List<Temp> args) {
+        code.add(new TailCall(null, address, receiver, List.copyOf(args)));
+    }
+
+    public Temp equalityTest(Temp a, Temp b, Label equal) {
+        var dst = newTemp();
+        code.add(new EqualityTest(dst, a, b, equal));
+        return dst;
+    }
+
+    // Oprește programul printr-o rutină din runtime care primește obiectul în $a0.
+    public void abort(Label routine, Temp object) {
+        code.add(new Abort(routine, object, null, 0));
+    }
+
+    // Oprește programul printr-o rutină din runtime care primește locul erorii.
+    public void abort(Label routine, Label fileName, int line) {
+        code.add(new Abort(routine, null, fileName, line));
+    }
+
+    public void ret(Temp value) {
+        code.add(new Return(value));
+    }
+
+    // Alocă registrele și întoarce codul MIPS al rutinei.
+    public List<MipsInstruction> emit() {
+        var allocation = new RegisterAllocator(this).allocate();
+        return new MipsEmitter(this, allocation).emit();
+    }
+}
@@ -0,0 +1,636 @@
+package cool.ir;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Instrucțiunile reprezentării intermediare: cod cu trei adrese peste registre
+// virtuale. Registrele fizice și convenția de apel apar abia la emitere.
+abstract class Instruction {
+    // Registrul virtual scris de instrucțiune (null dacă nu scrie niciunul).
+    Temp def() {
+        return null;
+    }
+
+    // Registrele virtuale citite de instrucțiune.
+    List<Temp> uses() {
+        return List.of();
+    }
+
+    // Instrucțiunea apelează o rutină, care poate modifica orice registru
+    // temporar ($t, $a, $v). Doar registrele $s sunt păstrate peste apel.
+    boolean isCall() {
+        return false;
+    }
+
+    // Instrucțiunea nu are alt efect în afară de scrierea rezultatului, deci
+    // poate fi eliminată dacă rezultatul nu este folosit.
+    boolean isPure() {
+        return false;
+    }
+
+    // Label-ul la care poate sări instrucțiunea.
+    Label target() {
+        return null;
+    }
+
+    // Execuția poate continua cu instrucțiunea următoare.
+    boolean fallsThrough() {
+        return true;
+    }
+
+    // Aceeași instrucțiune, dar care scrie rezultatul în dst; null dacă
+    // instrucțiunea nu poate fi modificată astfel.
+    Instruction withDef(Temp dst) {
+        return null;
+    }
+
+    abstract void emit(MipsEmitter out);
+}
+
+class LabelDef extends Instruction {
+    final Label label;
+
+    LabelDef(Label label) {
+        this.label = label;
+    }
+
+    @Override
+    void emit(MipsEmitter out) {
+        out.label(label);
+    }
+}
+
+class Jump extends Instruction {
+    final Label target;
+
+    Jump(Label target) {
+        this.target = target;
+    }
+
+    @Override
+    Label target() {
+        return target;
+    }
+
+    @Override
+    boolean fallsThrough() {
+        return false;
+    }
+
+    @Override
+    void emit(MipsEmitter out) {
+        out.emit("b", target);
+    }
+}
+
+// Salt condiționat: a <cond> b, a <cond> imm sau a <cond> 0 (când lipsesc ambele).
+class Branch extends Instruction {
+    final Function.Condition cond;
+    final Temp a;
+    final Temp b;
+    final Integer imm;
+    final Label target;
+
+    Branch(Function.Condition cond, Temp a, Temp b, Integer imm, Label target) {
+        this.cond = cond;
+        this.a = a;
+        this.b = b;
+        this.imm = imm;
+        this.target = target;
+    }
+
+    @Override
+    List<Temp> uses() {
+        return (b == null) ? List.of(a) : List.of(a, b);
+    }
+
+    @Override
+    Label target() {
+        return target;
+    }
+
+    @Override
+    void emit(MipsEmitter out) {
+        var ra = out.use(a, MipsEmitter.SCRATCH1);
+
+        if (b != null)
+            out.emit(cond.instruction, ra, out.use(b, MipsEmitter.SCRATCH2), target);
+        else if (imm != null)
+            out.emit(cond.instruction, ra, imm, target);
+        else
+            out.emit(cond.zeroInstruction, ra, target);
+    }
+}
+
+class Move extends Instruction {
+    final Temp dst;
+    final Temp src;
+
+    Move(Temp dst, Temp src) {
+        this.dst = dst;
+        this.src = src;
+    }
+
+    @Override
+    Temp def() {
+        return dst;
+    }
+
+    @Override
+    List<Temp> uses() {
+        return List.of(src);
+    }
+
+    @Override
+    boolean isPure() {
+        return true;
+    }
+
+    @Override
+    void emit(MipsEmitter out) {
+        out.moveFrom(dst, out.use(src, MipsEmitter.SCRATCH1));
+    }
+}
+
+class LoadImm extends Instruction {
+    final Temp dst;
+    final int value;
+
+    LoadImm(Temp dst, int value) {
+        this.dst = dst;
+        this.value = value;
+    }
+
+    @Override
+    Temp def() {
+        return dst;
+    }
+
+    @Override
+    boolean isPure() {
+        return true;
+    }
+
+    @Override
+    Instruction withDef(Temp dst) {
+        return new LoadImm(dst, value);
+    }
+
+    @Override
+    void emit(MipsEmitter out) {
+        var rd = out.target(dst);
+        out.emit("li", rd, value);
+        out.commit(dst, rd);
+    }
+}
+
+class LoadAddress extends Instruction {
+    final Temp dst;
+    final Label symbol;
+
+    LoadAddress(Temp dst, Label symbol) {
+        this.dst = dst;
+        this.symbol = symbol;
+    }
+
+    @Override
+    Temp def() {
+        return dst;
+    }
+
+    @Override
+    boolean isPure() {
+        return true;
+    }
+
+    @Override
+    Instruction withDef(Temp dst) {
+        return new LoadAddress(dst, symbol);
+    }
+
+    @Override
+    void emit(MipsEmitter out) {
+        var rd = out.target(dst);
+        out.emit("la", rd, symbol);
+        out.commit(dst, rd);
+    }
+}
+
+class Load extends Instruction {
+    final Temp dst;
+    final Temp base;
+    final int offset;
+
+    Load(Temp dst, Temp base, int offset) {
+        this.dst = dst;
+        this.base = base;
+        this.offset = offset;
+    }
+
+    @Override
+    Temp def() {
+        return dst;
+    }
+
+    @Override
+    List<Temp> uses() {
+        return List.of(base);
+    }
+
+    @Override
+    boolean isPure() {
+        return true;
+    }
+
+    @Override
+    Instruction withDef(Temp dst) {
+        return new Load(dst, base, offset);
+    }
+
+    @Override
+    void emit(MipsEmitter out) {
+        var rb = out.use(base, MipsEmitter.SCRATCH1);
+        var rd = out.target(dst);
+        out.emit("lw", rd, offset + "(" + rb + ")");
+        out.commit(dst, rd);
+    }
+}
+
+// Încarcă al index-lea parametru formal al rutinei curente.
+class LoadArgument extends Instruction {
+    final Temp dst;
+    final int index;
+
+    LoadArgument(Temp dst, int index) {
+        this.dst = dst;
+        this.index = index;
+    }
+
+    @Override
+    Temp def() {
+        return dst;
+    }
+
+    @Override
+    boolean isPure() {
+        return true;
+    }
+
+    @Override
+    Instruction withDef(Temp dst) {
+        return new LoadArgument(dst, index);
+    }
+
+    @Override
+    void emit(MipsEmitter out) {
+        var rd = out.target(dst);
+        out.emit("lw", rd, out.argumentOffset(index) + "($fp)");
+        out.commit(dst, rd);
+    }
+}
+
+class Store extends Instruction {
+    final Temp value;
+    final Temp base;
+    final int offset;
+
+    Store(Temp value, Temp base, int offset) {
+        this.value = value;
+        this.base = base;
+        this.offset = offset;
+    }
+
+    @Override
+    List<Temp> uses() {
+        return List.of(value, base);
+    }
+
+    @Override
+    void emit(MipsEmitter out) {
+        var rv = out.use(value, MipsEmitter.SCRATCH1);
+        var rb = out.use(base, MipsEmitter.SCRATCH2);
+        out.emit("sw", rv, offset + "(" + rb + ")");
+    }
+}
+
+// dst = a <op> b sau dst = a <op> imm (când b lipsește).
+class Binary extends Instruction {
+    final Function.Operator op;
+    final Temp dst;
+    final Temp a;
+    final Temp b;
+    final int imm;
+
+    Binary(Function.Operator op, Temp dst, Temp a, Temp b, int imm) {
+        this.op = op;
+        this.dst = dst;
+        this.a = a;
+        this.b = b;
+        this.imm = imm;
+    }
+
+    @Override
+    Temp def() {
+        return dst;
+    }
+
+    @Override
+    List<Temp> uses() {
+        return (b == null) ? List.of(a) : List.of(a, b);
+    }
+
+    // Împărțirea la 0 oprește programul, deci nu poate fi eliminată.
+    @Override
+    boolean isPure() {
+        return op != Function.Operator.DIV;
+    }
+
+    @Override
+    Instruction withDef(Temp dst) {
+        return new Binary(op, dst, a, b, imm);
+    }
+
+    @Override
+    void emit(MipsEmitter out) {
+        var ra = out.use(a, MipsEmitter.SCRATCH1);
+        var rd = out.target(dst);
+
+        if (b != null)
+            out.emit(op.instruction, rd, ra, out.use(b, MipsEmitter.SCRATCH2));
+        else
+            out.emit(op.instruction, rd, ra, imm);
+
+        out.commit(dst, rd);
+    }
+}
+
+class Unary extends Instruction {
+    final Function.UnaryOperator op;
+    final Temp dst;
+    final Temp a;
+
+    Unary(Function.UnaryOperator op, Temp dst, Temp a) {
+        this.op = op;
+        this.dst = dst;
+        this.a = a;
+    }
+
+    @Override
+    Temp def() {
+        return dst;
+    }
+
+    @Override
+    List<Temp> uses() {
+        return List.of(a);
+    }
+
+    @Override
+    boolean isPure() {
+        return true;
+    }
+
+    @Override
+    Instruction withDef(Temp dst) {
+        return new Unary(op, dst, a);
+    }
+
+    @Override
+    void emit(MipsEmitter out) {
+        var ra = out.use(a, MipsEmitter.SCRATCH1);
+        var rd = out.target(dst);
+
+        if (op == Function.UnaryOperator.NEG)
+            out.emit("neg", rd, ra);
+        else
+            out.emit("seq", rd, ra, "$zero");
+
+        out.commit(dst, rd);
+    }
+}
+
+// Apel de rutină. Argumentele sunt puse pe stivă, receiver-ul în $a0, iar
+// rezultatul este întors în $a0. Rutina apelată este dată fie de un label
+// (jal), fie de adresa dintr-un registru virtual (jalr).
+class Call extends Instruction {
+    final Temp dst;
+    final Label routine;
+    final Temp address;
+    final Temp receiver;
+    final List<Temp> args;
+
+    Call(Temp dst, Label routine, Temp address, Temp receiver, List<Temp> args) {
+        this.dst = dst;
+        this.routine = routine;
+        this.address = address;
+        this.receiver = receiver;
+        this.args = args;
+    }
+
+    @Override
+    Temp def() {
+        return dst;
+    }
+
+    @Override
+    List<Temp> uses() {
+        var uses = new ArrayList<>(args);
+        uses.add(receiver);
+        if (address != null)
+            uses.add(address);
+
+        return uses;
+    }
+
+    @Override
+    boolean isCall() {
+        return true;
+    }
+
+    @Override
+    Instruction withDef(Temp dst) {
+        return new Call(dst, routine, address, receiver, args);
+    }
+
+    @Override
+    void emit(MipsEmitter out) {
+        if (!args.isEmpty()) {
+            out.emit("addiu", "$sp", "$sp", -MipsEmitter.WORD_SIZE * args.size());
+
+            // Primul parametru formal se află la adresa cea mai mică.
+            for (int i = 0; i < args.size(); i++)
+                out.emit("sw", out.use(args.get(i), MipsEmitter.SCRATCH1), MipsEmitter.WORD_SIZE * (i + 1) + "($sp)");
+        }
+
+        var ra = (address == null) ? null : out.use(address, MipsEmitter.SCRATCH2);
+        out.moveTo("$a0", receiver);
+
+        if (ra == null)
+            out.emit("jal", routine);
+        else
+            out.emit("jalr", ra);
+
+        out.moveFrom(dst, "$a0");
+    }
+}
+
+// Apel în poziție de coadă: argumentele iau locul parametrilor formali ai
+// rutinei curente, al cărei cadru este eliberat înainte de salt, astfel încât
+// rutina apelată se întoarce direct la apelantul rutinei curente. Rutina apelată
+// are tot atâția parametri formali ca rutina curentă.
+class TailCall extends Instruction {
+    final Label routine;
+    final Temp address;
+    final Temp receiver;
+    final List<Temp> args;
+
+    TailCall(Label routine, Temp address, Temp receiver, List<Temp> args) {
+        this.routine = routine;
+        this.address = address;
+        this.receiver = receiver;
+        this.args = args;
+    }
+
+    @Override
+    List<Temp> uses() {
+        var uses = new ArrayList<>(args);
+        uses.add(receiver);
+        if (address != null)
+            uses.add(address);
+
+        return uses;
+    }
+
+    @Override
+    boolean fallsThrough() {
+        return false;
+    }
+
+    @Override
+    void emit(MipsEmitter out) {
+        // Parametrii formali sunt citiți doar la începutul rutinei (LoadArgument),
+        // deci pot fi suprascriși înainte de citirea celorlalte argumente.
+        for (int i = 0; i < args.size(); i++)
+            out.emit("sw", out.use(args.get(i), MipsEmitter.SCRATCH1), out.argumentOffset(i) + "($fp)");
+
+        if (address != null)
+            out.moveTo(MipsEmitter.SCRATCH2, address);
+        out.moveTo("$a0", receiver);
+        out.releaseFrame();
+
+        if (address == null)
+            out.emit("j", routine);
+        else
+            out.emit("jr", MipsEmitter.SCRATCH2);
+    }
+}
+
+// Testul de egalitate pentru obiecte, prin rutina equality_test din runtime.
+// Rezultatul este unul dintre obiectele bool_const0 / bool_const1.
+class EqualityTest extends Instruction {
+    final Temp dst;
+    final Temp a;
+    final Temp b;
+    final Label equal;
+
+    EqualityTest(Temp dst, Temp a, Temp b, Label equal) {
+        this.dst = dst;
+        this.a = a;
+        this.b = b;
+        this.equal = equal;
+    }
+
+    @Override
+    Temp def() {
+        return dst;
+    }
+
+    @Override
+    List<Temp> uses() {
+        return List.of(a, b);
+    }
+
+    @Override
+    boolean isCall() {
+        return true;
+    }
+
+    @Override
+    Instruction withDef(Temp dst) {
+        return new EqualityTest(dst, a, b, equal);
+    }
+
+    @Override
+    void emit(MipsEmitter out) {
+        out.moveTo("$t1", a);
+        out.moveTo("$t2", b);
+        out.emit("la", "$a0", "bool_const1");
+        out.emit("beq", "$t1", "$t2", equal);
+        out.emit("la", "$a1", "bool_const0");
+        out.emit("jal", "equality_test");
+        out.label(equal);
+        out.moveFrom(dst, "$a0");
+    }
+}
+
+// Apel către o rutină de eroare din runtime, care oprește programul. Primește
+// fie obiectul în cauză, fie numele fișierului și linia în care a apărut eroarea.
+class Abort extends Instruction {
+    final Label routine;
+    final Temp object;
+    final Label fileName;
+    final int line;
+
+    Abort(Label routine, Temp object, Label fileName, int line) {
+        this.routine = routine;
+        this.object = object;
+        this.fileName = fileName;
+        this.line = line;
+    }
+
+    @Override
+    List<Temp> uses() {
+        return (object == null) ? List.of() : List.of(object);
+    }
+
+    @Override
+    boolean fallsThrough() {
+        return false;
+    }
+
+    @Override
+    void emit(MipsEmitter out) {
+        if (object != null) {
+            out.moveTo("$a0", object);
+        } else {
+            out.emit("la", "$a0", fileName);
+            out.emit("li", "$t1", line);
+        }
+
+        out.emit("jal", routine);
+    }
+}
+
+class Return extends Instruction {
+    final Temp value;
+
+    Return(Temp value) {
+        this.value = value;
+    }
+
+    @Override
+    List<Temp> uses() {
+        return List.of(value);
+    }
+
+    @Override
+    boolean fallsThrough() {
+        return false;
+    }
+
+    @Override
+    void emit(MipsEmitter out) {
+        out.moveTo("$a0", value);
+        out.epilogue();
+    }
+}
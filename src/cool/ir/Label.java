@@ -0,0 +1,24 @@
+package cool.ir;
+
+// Simbol din codul asamblat (label de salt, constantă, rutină). Numele este
+// format din prefix și sufix abia la randare, deoarece sufixul (numărul unic sau
+// indexul constantei) poate fi cunoscut doar după unificarea claselor generate
+// în paralel.
+public final class Label {
+    private final String prefix;
+    private final Object suffix;
+
+    public Label(String prefix, Object suffix) {
+        this.prefix = prefix;
+        this.suffix = suffix;
+    }
+
+    public Label(String name) {
+        this(name, null);
+    }
+
+    @Override
+    public String toString() {
+        return (suffix == null) ? prefix : prefix + suffix;
+    }
+}
@@ -0,0 +1,136 @@
+package cool.ir;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Produce codul MIPS al unei rutine din codul intermediar și alocarea
+// registrelor. Cadrul de stivă păstrează convenția rutinelor generate din
+// cgen.stg ($fp, $s0, $ra, iar parametrii formali deasupra lor), urmat de
+// registrele $s salvate și de sloturile valorilor care nu au încăput în registre.
+class MipsEmitter {
+    static final int WORD_SIZE = 4;
+
+    // Registre în care sunt aduse temporar valorile păstrate pe stivă.
+    static final String SCRATCH1 = "$t8";
+    static final String SCRATCH2 = "$t9";
+
+    // Numărul de cuvinte dintre $fp și primul parametru formal ($ra, $s0, $fp).
+    private static final int WORDS_UNTIL_FIRST_FORMAL_FROM_FP = 3;
+
+    private final Function fn;
+    private final RegisterAllocator.Allocation allocation;
+    private final List<MipsInstruction> out = new ArrayList<>();
+
+    MipsEmitter(Function fn, RegisterAllocator.Allocation allocation) {
+        this.fn = fn;
+        this.allocation = allocation;
+    }
+
+    List<MipsInstruction> emit() {
+        label(fn.getName());
+        emit("addiu", "$sp", "$sp", -12);
+        emit("sw", "$fp", "12($sp)");
+        emit("sw", "$s0", "8($sp)");
+        emit("sw", "$ra", "4($sp)");
+        emit("addiu", "$fp", "$sp", 4);
+
+        if (allocation.slotCount > 0)
+            emit("addiu", "$sp", "$sp", -WORD_SIZE * allocation.slotCount);
+
+        for (int i = 0; i < allocation.savedRegisters.size(); i++)
+            emit("sw", allocation.savedRegisters.get(i), slotAddress(i));
+
+        emit("move", "$s0", "$a0");
+
+        for (var ins : fn.code)
+            ins.emit(this);
+
+        return out;
+    }
+
+    void epilogue() {
+        restoreFrame();
+        emit("addiu", "$sp", "$sp", WORD_SIZE * (fn.getFormalCount() + WORDS_UNTIL_FIRST_FORMAL_FROM_FP));
+        emit("jr", "$ra");
+    }
+
+    // Restaurează registrele apelantului; $sp rămâne sub $fp, $s0 și $ra salvați.
+    void restoreFrame() {
+        for (int i = 0; i < allocation.savedRegisters.size(); i++)
+            emit("lw", allocation.savedRegisters.get(i), slotAddress(i));
+
+        if (allocation.slotCount > 0)
+            emit("addiu", "$sp", "$sp", WORD_SIZE * allocation.slotCount);
+
+        emit("lw", "$fp", "12($sp)");
+        emit("lw", "$s0", "8($sp)");
+        emit("lw", "$ra", "4($sp)");
+    }
+
+    // Eliberează cadrul rutinei, lăsând parametrii formali pe stivă pentru
+    // rutina la care se sare (vezi TailCall).
+    void releaseFrame() {
+        restoreFrame();
+        emit("addiu", "$sp", "$sp", WORD_SIZE * WORDS_UNTIL_FIRST_FORMAL_FROM_FP);
+    }
+
+    int argumentOffset(int index) {
+        return WORD_SIZE * (index + WORDS_UNTIL_FIRST_FORMAL_FROM_FP);
+    }
+
+    private String slotAddress(int slot) {
+        return -WORD_SIZE * (slot + 1) + "($fp)";
+    }
+
+    void emit(String op, Object... operands) {
+        out.add(MipsInstruction.of(op, operands));
+    }
+
+    void label(Label label) {
+        out.add(MipsInstruction.label(label));
+    }
+
+    // Registrul din care poate fi citită valoarea; valorile de pe stivă sunt
+    // aduse întâi în registrul scratch.
+    String use(Temp temp, String scratch) {
+        var reg = allocation.registers[temp.id];
+        if (reg != null)
+            return reg;
+
+        emit("lw", scratch, slotAddress(allocation.slots[temp.id]));
+        return scratch;
+    }
+
+    // Registrul în care se calculează valoarea; pentru valorile de pe stivă este
+    // un registru scratch, salvat apoi de commit.
+    String target(Temp temp) {
+        var reg = allocation.registers[temp.id];
+        return (reg != null) ? reg : SCRATCH1;
+    }
+
+    void commit(Temp temp, String reg) {
+        if (allocation.slots[temp.id] >= 0)
+            emit("sw", reg, slotAddress(allocation.slots[temp.id]));
+    }
+
+    // Copiază valoarea în registrul fizic dat.
+    void moveTo(String reg, Temp temp) {
+        var src = allocation.registers[temp.id];
+        if (src == null)
+            emit("lw", reg, slotAddress(allocation.slots[temp.id]));
+        else if (!src.equals(reg))
+            emit("move", reg, src);
+    }
+
+    // Copiază valoarea din registrul fizic dat.
+    void moveFrom(Temp temp, String reg) {
+        if (allocation.dead[temp.id])
+            return;
+
+        var dst = allocation.registers[temp.id];
+        if (dst == null)
+            emit("sw", reg, slotAddress(allocation.slots[temp.id]));
+        else if (!dst.equals(reg))
+            emit("move", dst, reg);
+    }
+}
@@ -0,0 +1,134 @@
+package cool.ir;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+// O linie de cod asamblat: o instrucțiune MIPS cu operanzii ei sau definiția
+// unui label. Operanzii sunt randați abia la scriere (vezi Label).
+public final class MipsInstruction {
+    private static final Set<String> STORES = Set.of("sw", "sh", "sb");
+
+    private final String op;
+    private final Object[] operands;
+
+    private MipsInstruction(String op, Object[] operands) {
+        this.op = op;
+        this.operands = operands;
+    }
+
+    public static MipsInstruction of(String op, Object... operands) {
+        return new MipsInstruction(op, operands);
+    }
+
+    public static MipsInstruction label(Object label) {
+        return new MipsInstruction(null, new Object[] { label });
+    }
+
+    // Instrucțiunile din codul randat (de exemplu dintr-un template), o linie
+    // pentru fiecare instrucțiune sau label. Comentariile și liniile goale sunt omise.
+    public static List<MipsInstruction> parse(String text) {
+        var code = new ArrayList<MipsInstruction>();
+
+        for (var line : text.split("\\R")) {
+            var comment = line.indexOf('#');
+            if (comment >= 0)
+                line = line.substring(0, comment);
+            if (line.isBlank())
+                continue;
+
+            if (!Character.isWhitespace(line.charAt(0)) && line.endsWith(":")) {
+                code.add(label(line.substring(0, line.length() - 1)));
+                continue;
+            }
+
+            var parts = line.trim().split("\\s+");
+            code.add(new MipsInstruction(parts[0], Arrays.copyOfRange(parts, 1, parts.length, Object[].class)));
+        }
+
+        return code;
+    }
+
+    public boolean isLabel() {
+        return op == null;
+    }
+
+    // Directivă de asamblare (.data, .word, ...), de exemplu o tabelă de salt.
+    public boolean isDirective() {
+        return !isLabel() && op.startsWith(".");
+    }
+
+    // Salt sau apel: b, j, jal, jr, ramificări condiționate.
+    public boolean isControlFlow() {
+        return !isLabel() && (op.startsWith("b") || op.startsWith("j") || op.equals("syscall"));
+    }
+
+    // Salt necondiționat, după care execuția nu continuă cu instrucțiunea următoare.
+    public boolean isUnconditionalJump() {
+        return !isLabel() && (op.equals("b") || op.equals("j") || op.equals("jr"));
+    }
+
+    // Label-ul la care sare instrucțiunea (b, j sau o ramificare), altfel null.
+    public String getJumpTarget() {
+        if (!isControlFlow() || op.startsWith("jal") || op.equals("jr") || op.equals("syscall"))
+            return null;
+
+        return operand(operands.length - 1);
+    }
+
+    // Registrul scris de instrucțiune, sau null pentru salturi și scrieri în memorie.
+    public String getDef() {
+        if (isLabel() || isDirective() || isControlFlow() || STORES.contains(op) || operands.length == 0)
+            return null;
+
+        return operand(0);
+    }
+
+    // Instrucțiunea citește registrul dat, direct sau ca bază a unei adrese.
+    public boolean uses(String reg) {
+        if (isLabel())
+            return false;
+
+        for (int i = (getDef() == null) ? 0 : 1; i < operands.length; i++) {
+            var operand = operand(i);
+            if (operand.equals(reg) || operand.endsWith("(" + reg + ")"))
+                return true;
+        }
+
+        return false;
+    }
+
+    // Operandul de la indexul dat, așa cum este randat.
+    public String operand(int index) {
+        return String.valueOf(operands[index]);
+    }
+
+    public String getOp() {
+        return op;
+    }
+
+    public List<Object> getOperands() {
+        return Arrays.asList(operands);
+    }
+
+    // Aliniat la fel ca instrucțiunile din cgen.stg.
+    @Override
+    public String toString() {
+        if (isLabel())
+            return operands[0] + ":";
+
+        var sb = new StringBuilder("    ").append(op);
+        if (operands.length > 0) {
+            sb.append(" ".repeat(Math.max(1, 8 - op.length())));
+
+            for (int i = 0; i < operands.length; i++) {
+                if (i > 0)
+                    sb.append(' ');
+                sb.append(operands[i]);
+            }
+        }
+
+        return sb.toString();
+    }
+}
@@ -0,0 +1,67 @@
+package cool.ir;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Optimizator peephole peste lista de instrucțiuni a unei rutine. Regulile sunt
+// încercate pe fiecare poziție, iar parcurgerea se repetă până când nicio regulă
+// nu mai modifică codul. Codul poate proveni din emițătorul codului intermediar
+// sau din template-urile cgen.stg, după randare (vezi MipsInstruction.parse).
+//
+// Același optimizator poate fi folosit de mai multe fire de execuție; numărul de
+// aplicări ale fiecărei reguli este cumulat pentru statistici.
+public class PeepholeOptimizer {
+    private final List<PeepholeRule> rules;
+
+    private final Map<String, Integer> applications = new LinkedHashMap<>();
+    private int removedCount = 0;
+
+    public PeepholeOptimizer(List<PeepholeRule> rules) {
+        this.rules = List.copyOf(rules);
+        for (var rule : rules)
+            applications.put(rule.getName(), 0);
+    }
+
+    public static PeepholeOptimizer withDefaultRules() {
+        return new PeepholeOptimizer(PeepholeRules.DEFAULT);
+    }
+
+    public List<MipsInstruction> optimize(List<MipsInstruction> instructions) {
+        var code = new ArrayList<>(instructions);
+        var counts = new int[rules.size()];
+
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+
+            for (int i = 0; i < code.size(); i++) {
+                for (int r = 0; r < rules.size(); r++) {
+                    if (rules.get(r).apply(code, i)) {
+                        counts[r]++;
+                        changed = true;
+                    }
+                }
+            }
+        }
+
+        synchronized (this) {
+            for (int r = 0; r < rules.size(); r++)
+                applications.merge(rules.get(r).getName(), counts[r], Integer::sum);
+            removedCount += instructions.size() - code.size();
+        }
+
+        return code;
+    }
+
+    // Numărul de aplicări ale fiecărei reguli, în ordinea regulilor.
+    public synchronized Map<String, Integer> getApplications() {
+        return new LinkedHashMap<>(applications);
+    }
+
+    // Numărul total de instrucțiuni eliminate.
+    public synchronized int getRemovedCount() {
+        return removedCount;
+    }
+}
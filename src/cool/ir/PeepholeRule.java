@@ -0,0 +1,13 @@
+package cool.ir;
+
+import java.util.List;
+
+// Regulă de optimizare peephole: încearcă să rescrie codul începând de la
+// poziția dată, modificând lista pe loc.
+public interface PeepholeRule {
+    // Numele regulii, folosit în statistici.
+    String getName();
+
+    // Întoarce true dacă a modificat codul.
+    boolean apply(List<MipsInstruction> code, int position);
+}
@@ -0,0 +1,186 @@
+package cool.ir;
+
+import java.util.List;
+
+// Regulile peephole folosite implicit. Fiecare regulă privește doar cod liniar
+// (fără label-uri sau salturi între instrucțiunile rescrise), deci nu depinde
+// de ce se întâmplă în restul rutinei.
+public final class PeepholeRules {
+    private PeepholeRules() {
+    }
+
+    // Numărul maxim de instrucțiuni dintre push și pop-ul corespunzător.
+    private static final int PUSH_POP_WINDOW = 8;
+
+    // sw R 0($sp); addiu $sp $sp -4; ...; lw T 4($sp); addiu $sp $sp 4
+    // devine move T R; ..., dacă instrucțiunile dintre ele nu folosesc stiva și
+    // nu citesc sau scriu T. Este forma operațiilor binare din cgen.stg, în care
+    // valoarea primului operand este salvată pe stivă cât timp se calculează al doilea.
+    public static final PeepholeRule PUSH_POP = new PeepholeRule() {
+        @Override
+        public String getName() {
+            return "push-pop";
+        }
+
+        @Override
+        public boolean apply(List<MipsInstruction> code, int position) {
+            if (!is(code, position, "sw", null, "0($sp)") || !is(code, position + 1, "addiu", "$sp", "$sp", "-4"))
+                return false;
+
+            var value = code.get(position).operand(0);
+
+            for (int i = position + 2; i < code.size() && i <= position + 2 + PUSH_POP_WINDOW; i++) {
+                if (is(code, i, "lw", null, "4($sp)") && is(code, i + 1, "addiu", "$sp", "$sp", "4")) {
+                    var target = code.get(i).operand(0);
+                    for (int j = position + 2; j < i; j++) {
+                        var ins = code.get(j);
+                        if (ins.uses(target) || target.equals(ins.getDef()))
+                            return false;
+                    }
+
+                    code.remove(i + 1);
+                    code.remove(i);
+                    code.remove(position + 1);
+                    code.set(position, MipsInstruction.of("move", target, value));
+                    return true;
+                }
+
+                var ins = code.get(i);
+                if (ins.isLabel() || ins.isControlFlow() || ins.getDef() == null && !ins.getOp().equals("sw")
+                        || ins.uses("$sp") || "$sp".equals(ins.getDef()))
+                    return false;
+            }
+
+            return false;
+        }
+    };
+
+    // sw R X; lw T X devine sw R X; move T R.
+    public static final PeepholeRule STORE_LOAD = new PeepholeRule() {
+        @Override
+        public String getName() {
+            return "store-load";
+        }
+
+        @Override
+        public boolean apply(List<MipsInstruction> code, int position) {
+            if (!is(code, position, "sw", null, null) || !is(code, position + 1, "lw", null, null))
+                return false;
+
+            var store = code.get(position);
+            var load = code.get(position + 1);
+            if (!store.operand(1).equals(load.operand(1)))
+                return false;
+
+            code.set(position + 1, MipsInstruction.of("move", load.operand(0), store.operand(0)));
+            return true;
+        }
+    };
+
+    // move R R nu are efect.
+    public static final PeepholeRule SELF_MOVE = new PeepholeRule() {
+        @Override
+        public String getName() {
+            return "self-move";
+        }
+
+        @Override
+        public boolean apply(List<MipsInstruction> code, int position) {
+            if (!is(code, position, "move", null, null))
+                return false;
+
+            var ins = code.get(position);
+            if (!ins.operand(0).equals(ins.operand(1)))
+                return false;
+
+            code.remove(position);
+            return true;
+        }
+    };
+
+    // În move A B; move B A, a doua copiere nu are efect.
+    public static final PeepholeRule MOVE_BACK = new PeepholeRule() {
+        @Override
+        public String getName() {
+            return "move-back";
+        }
+
+        @Override
+        public boolean apply(List<MipsInstruction> code, int position) {
+            if (!is(code, position, "move", null, null) || !is(code, position + 1, "move", null, null))
+                return false;
+
+            var first = code.get(position);
+            var second = code.get(position + 1);
+            if (!first.operand(0).equals(second.operand(1)) || !first.operand(1).equals(second.operand(0)))
+                return false;
+
+            code.remove(position + 1);
+            return true;
+        }
+    };
+
+    // Un salt (condiționat sau nu) la un label care urmează imediat nu are efect.
+    public static final PeepholeRule JUMP_TO_NEXT = new PeepholeRule() {
+        @Override
+        public String getName() {
+            return "jump-to-next";
+        }
+
+        @Override
+        public boolean apply(List<MipsInstruction> code, int position) {
+            var target = code.get(position).getJumpTarget();
+            if (target == null)
+                return false;
+
+            for (int i = position + 1; i < code.size() && code.get(i).isLabel(); i++) {
+                if (code.get(i).operand(0).equals(target)) {
+                    code.remove(position);
+                    return true;
+                }
+            }
+
+            return false;
+        }
+    };
+
+    // Instrucțiunile dintre un salt necondiționat și următorul label (sau
+    // directivă) nu pot fi executate.
+    public static final PeepholeRule UNREACHABLE = new PeepholeRule() {
+        @Override
+        public String getName() {
+            return "unreachable";
+        }
+
+        @Override
+        public boolean apply(List<MipsInstruction> code, int position) {
+            if (!code.get(position).isUnconditionalJump() || position + 1 >= code.size()
+                    || code.get(position + 1).isLabel() || code.get(position + 1).isDirective())
+                return false;
+
+            code.remove(position + 1);
+            return true;
+        }
+    };
+
+    public static final List<PeepholeRule> DEFAULT = List.of(
+            PUSH_POP, STORE_LOAD, SELF_MOVE, MOVE_BACK, JUMP_TO_NEXT, UNREACHABLE);
+
+    // Instrucțiunea de la poziția dată are operația și operanzii dați (null
+    // acceptă orice operand).
+    private static boolean is(List<MipsInstruction> code, int position, String op, String... operands) {
+        if (position >= code.size())
+            return false;
+
+        var ins = code.get(position);
+        if (ins.isLabel() || !ins.getOp().equals(op) || ins.getOperands().size() != operands.length)
+            return false;
+
+        for (int i = 0; i < operands.length; i++) {
+            if (operands[i] != null && !operands[i].equals(ins.operand(i)))
+                return false;
+        }
+
+        return true;
+    }
+}
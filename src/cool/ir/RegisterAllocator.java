@@ -0,0 +1,297 @@
+package cool.ir;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+
+// Alocator de registre linear scan (Poletto & Sarkar). Intervalul de viață al
+// fiecărui registru virtual este calculat din analiza de liveness a rutinei.
+// Valorile care trebuie să supraviețuiască unui apel primesc registre $s,
+// salvate în prologul rutinei, celelalte preferă registre $t. Când registrele
+// se termină, pe stivă ajunge intervalul care se termină cel mai târziu.
+class RegisterAllocator {
+    // Registre care nu sunt păstrate peste apeluri. $t1 și $t2 sunt ocupate de
+    // secvențele de apel către runtime, iar $t8 și $t9 de emitere.
+    private static final String[] CALLER_SAVED = { "$t0", "$t3", "$t4", "$t5", "$t6", "$t7" };
+
+    // Registre păstrate peste apeluri, atât de rutinele generate, cât și de
+    // runtime. $s0 conține self, iar $s7 este rezervat de runtime.
+    private static final String[] CALLEE_SAVED = { "$s1", "$s2", "$s3", "$s4", "$s5", "$s6" };
+
+    // Registrul prin care apelurile primesc receiver-ul și întorc rezultatul.
+    // Poate păstra o valoare doar cât timp nu are loc niciun apel.
+    private static final String ACCUMULATOR = "$a0";
+
+    static class Allocation {
+        // Registrul fizic al fiecărui registru virtual, sau null dacă valoarea
+        // este păstrată pe stivă (slot) ori nu este folosită niciodată (dead).
+        final String[] registers;
+        final int[] slots;
+        final boolean[] dead;
+
+        // Registrele $s folosite de rutină, în ordinea în care sunt salvate.
+        final List<String> savedRegisters = new ArrayList<>();
+        int slotCount = 0;
+
+        Allocation(int tempCount) {
+            registers = new String[tempCount];
+            slots = new int[tempCount];
+            dead = new boolean[tempCount];
+            Arrays.fill(slots, -1);
+        }
+    }
+
+    private final Function fn;
+    private final List<Instruction> code;
+
+    private BitSet[] liveIn;
+    private BitSet[] liveOut;
+
+    RegisterAllocator(Function fn) {
+        this.fn = fn;
+        this.code = fn.code;
+    }
+
+    Allocation allocate() {
+        removeDeadCode();
+
+        int tempCount = fn.getTempCount();
+        var allocation = new Allocation(tempCount);
+
+        var start = new int[tempCount];
+        var end = new int[tempCount];
+        var crossesCall = new boolean[tempCount];
+        var callPositions = new ArrayList<Integer>();
+        Arrays.fill(start, Integer.MAX_VALUE);
+        Arrays.fill(end, -1);
+
+        for (int i = 0; i < code.size(); i++) {
+            var ins = code.get(i);
+            final int pos = i;
+
+            liveIn[i].stream().forEach(t -> extend(start, end, t, pos));
+            liveOut[i].stream().forEach(t -> extend(start, end, t, pos));
+            ins.uses().forEach(t -> extend(start, end, t.id, pos));
+            if (ins.def() != null)
+                extend(start, end, ins.def().id, pos);
+
+            if (ins.isCall()) {
+                callPositions.add(i);
+
+                var def = ins.def();
+                liveOut[i].stream()
+                        .filter(t -> def == null || t != def.id)
+                        .forEach(t -> crossesCall[t] = true);
+            }
+        }
+
+        // Un interval care începe cu scrierea valorii poate refolosi registrul
+        // unui interval care se termină chiar la acea instrucțiune, deoarece
+        // operanzii sunt citiți înaintea scrierii rezultatului.
+        var startsWithDef = new boolean[tempCount];
+
+        // Pentru move-uri se încearcă refolosirea registrului sursei.
+        var hint = new int[tempCount];
+        Arrays.fill(hint, -1);
+
+        var prefersAccumulator = new boolean[tempCount];
+
+        var order = new ArrayList<Integer>();
+        for (int t = 0; t < tempCount; t++) {
+            if (end[t] < 0 || t == fn.self().id)
+                continue;
+
+            var first = code.get(start[t]);
+            startsWithDef[t] = first.def() != null && first.def().id == t && !liveIn[start[t]].get(t);
+
+            // Valoare scrisă, dar niciodată citită.
+            if (startsWithDef[t] && !liveOut[start[t]].get(t) && end[t] == start[t]) {
+                allocation.dead[t] = true;
+                continue;
+            }
+
+            if (startsWithDef[t] && first instanceof Move)
+                hint[t] = ((Move)first).src.id;
+
+            // Rezultatul unui apel sau receiver-ul următorului apel rămâne în $a0,
+            // dacă între timp nu are loc alt apel.
+            var last = code.get(end[t]);
+            if (first.isCall() && startsWithDef[t] || last instanceof Call && ((Call)last).receiver.id == t
+                    || last instanceof Return && ((Return)last).value.id == t)
+                prefersAccumulator[t] = !hasCallBetween(callPositions, start[t], end[t]);
+
+            order.add(t);
+        }
+        order.sort(Comparator.<Integer>comparingInt(t -> start[t]).thenComparingInt(t -> t));
+
+        allocation.registers[fn.self().id] = "$s0";
+
+        var active = new ArrayList<Integer>();
+        var busy = new HashMap<String, Integer>();
+        var spilled = new ArrayList<Integer>();
+
+        for (int t : order) {
+            for (var it = active.iterator(); it.hasNext(); ) {
+                int a = it.next();
+                if (end[a] < start[t] || end[a] == start[t] && startsWithDef[t]) {
+                    busy.remove(allocation.registers[a]);
+                    it.remove();
+                }
+            }
+
+            String reg = null;
+
+            var h = hint[t];
+            if (h >= 0 && allocation.registers[h] != null && !busy.containsKey(allocation.registers[h])
+                    && (!crossesCall[t] || isCalleeSaved(allocation.registers[h]))
+                    && (!allocation.registers[h].equals(ACCUMULATOR) || !hasCallBetween(callPositions, start[t], end[t])))
+                reg = allocation.registers[h];
+
+            if (reg == null && prefersAccumulator[t] && !busy.containsKey(ACCUMULATOR))
+                reg = ACCUMULATOR;
+            if (reg == null && !crossesCall[t])
+                reg = firstFree(CALLER_SAVED, busy);
+            if (reg == null)
+                reg = firstFree(CALLEE_SAVED, busy);
+
+            if (reg == null) {
+                // Se eliberează registrul intervalului care se termină cel mai
+                // târziu, dacă acesta se termină după intervalul curent.
+                int victim = -1;
+                for (int a : active) {
+                    if (crossesCall[t] && !isCalleeSaved(allocation.registers[a]))
+                        continue;
+                    if (allocation.registers[a].equals(ACCUMULATOR))
+                        continue;
+                    if (victim < 0 || end[a] > end[victim])
+                        victim = a;
+                }
+
+                if (victim < 0 || end[victim] <= end[t]) {
+                    spilled.add(t);
+                    continue;
+                }
+
+                reg = allocation.registers[victim];
+                allocation.registers[victim] = null;
+                spilled.add(victim);
+                active.remove((Integer)victim);
+            }
+
+            allocation.registers[t] = reg;
+            busy.put(reg, t);
+            active.add(t);
+        }
+
+        for (var reg : CALLEE_SAVED) {
+            for (int t = 0; t < tempCount; t++) {
+                if (reg.equals(allocation.registers[t])) {
+                    allocation.savedRegisters.add(reg);
+                    break;
+                }
+            }
+        }
+
+        allocation.slotCount = allocation.savedRegisters.size();
+        spilled.sort(Comparator.naturalOrder());
+        for (int t : spilled)
+            allocation.slots[t] = allocation.slotCount++;
+
+        return allocation;
+    }
+
+    private static void extend(int[] start, int[] end, int t, int pos) {
+        start[t] = Math.min(start[t], pos);
+        end[t] = Math.max(end[t], pos);
+    }
+
+    // Există un apel strict în interiorul intervalului [start, end].
+    private static boolean hasCallBetween(List<Integer> callPositions, int start, int end) {
+        for (int pos : callPositions) {
+            if (pos > start && pos < end)
+                return true;
+        }
+
+        return false;
+    }
+
+    private static boolean isCalleeSaved(String reg) {
+        return reg.startsWith("$s");
+    }
+
+    private static String firstFree(String[] pool, HashMap<String, Integer> busy) {
+        for (var reg : pool) {
+            if (!busy.containsKey(reg))
+                return reg;
+        }
+
+        return null;
+    }
+
+    // Elimină instrucțiunile fără efecte al căror rezultat nu este folosit.
+    private void removeDeadCode() {
+        while (true) {
+            computeLiveness();
+
+            var kept = new ArrayList<Instruction>(code.size());
+            for (int i = 0; i < code.size(); i++) {
+                var ins = code.get(i);
+                if (ins.isPure() && !liveOut[i].get(ins.def().id))
+                    continue;
+
+                kept.add(ins);
+            }
+
+            if (kept.size() == code.size())
+                return;
+
+            code.clear();
+            code.addAll(kept);
+        }
+    }
+
+    private void computeLiveness() {
+        int n = code.size();
+
+        var labels = new HashMap<Label, Integer>();
+        for (int i = 0; i < n; i++) {
+            if (code.get(i) instanceof LabelDef)
+                labels.put(((LabelDef)code.get(i)).label, i);
+        }
+
+        liveIn = new BitSet[n];
+        liveOut = new BitSet[n];
+        for (int i = 0; i < n; i++) {
+            liveIn[i] = new BitSet();
+            liveOut[i] = new BitSet();
+        }
+
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+
+            for (int i = n - 1; i >= 0; i--) {
+                var ins = code.get(i);
+
+                var out = liveOut[i];
+                if (ins.fallsThrough() && i + 1 < n)
+                    out.or(liveIn[i + 1]);
+                if (ins.target() != null)
+                    out.or(liveIn[labels.get(ins.target())]);
+
+                var in = (BitSet)out.clone();
+                if (ins.def() != null)
+                    in.clear(ins.def().id);
+                ins.uses().forEach(t -> in.set(t.id));
+
+                if (!in.equals(liveIn[i])) {
+                    liveIn[i] = in;
+                    changed = true;
+                }
+            }
+        }
+    }
+}
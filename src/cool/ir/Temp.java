@@ -0,0 +1,16 @@
+package cool.ir;
+
+// Registru virtual. Locația sa (registru fizic sau slot pe stivă) este aleasă
+// de alocatorul de registre.
+public final class Temp {
+    final int id;
+
+    Temp(int id) {
+        this.id = id;
+    }
+
+    @Override
+    public String toString() {
+        return "%t" + id;
+    }
+}
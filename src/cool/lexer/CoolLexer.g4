@@ -9,10 +9,55 @@ tokens { ERROR }
 @members{
     private static final int MAX_STRING_LENGTH = 1024;
 
+    // Buffer reutilizat pentru decodificarea literalilor șir.
+    private final StringBuilder stringBuffer = new StringBuilder();
+
     private void raiseError(String msg) {
         setText(msg);
         setType(ERROR);
     }
+
+    private static boolean isEscapeLetter(char c) {
+        return c == 'n' || c == 't' || c == 'b' || c == 'f';
+    }
+
+    /* Decodifică un literal șir (inclusiv ghilimelele) într-o singură trecere:
+     *
+     * * \n, \t, \b, \f devin caracterele de control corespunzătoare;
+     *
+     * * orice alt backslash este eliminat, mai puțin cel urmat de un alt
+     *   backslash care nu începe, la rândul său, una din secvențele de mai sus.
+     *
+     * Rezultatul ajunge în stringBuffer. Ultimul caracter al textului este
+     * ghilimeaua de închidere, deci text.charAt(i + 2) există pentru orice
+     * backslash urmat de un alt backslash.
+     */
+    private void decodeString(String text) {
+        stringBuffer.setLength(0);
+
+        int end = text.length() - 1;
+        for (int i = 1; i < end; i++) {
+            char c = text.charAt(i);
+            if (c != '\\') {
+                stringBuffer.append(c);
+                continue;
+            }
+
+            char next = text.charAt(i + 1);
+            switch (next) {
+                case 'n': stringBuffer.append('\n'); i++; break;
+                case 't': stringBuffer.append('\t'); i++; break;
+                case 'b': stringBuffer.append('\b'); i++; break;
+                case 'f': stringBuffer.append('\f'); i++; break;
+                case '\\':
+                    if (!isEscapeLetter(text.charAt(i + 2)))
+                        stringBuffer.append('\\');
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
 }
 
 fragment UPPERCASE : [A-Z];
@@ -86,22 +131,16 @@ STRING  :   '"'
             |   .
             )*?
             (   '"'         {
-                                var text = getText();
-
-                                text = text
-                                        .replace("\\n", "\n")
-                                        .replace("\\t", "\t")
-                                        .replace("\\b", "\b")
-                                        .replace("\\f", "\f")
-                                        .replaceAll("\\\\(?!\\\\)", "");
-
-                                text = text
-                                        .substring(1, text.length() - 1);
-
-                                if (text.length() > MAX_STRING_LENGTH) {
-                                    raiseError("String constant too long");
-                                } else if (getType() != ERROR) {
-                                    setText(text);
+                                // După un caracter null, textul token-ului este
+                                // deja mesajul de eroare.
+                                if (getType() != ERROR) {
+                                    decodeString(getText());
+
+                                    if (stringBuffer.length() > MAX_STRING_LENGTH) {
+                                        raiseError("String constant too long");
+                                    } else {
+                                        setText(stringBuffer.toString());
+                                    }
                                 }
                             }
             |   NEW_LINE    { raiseError("Unterminated string constant"); }
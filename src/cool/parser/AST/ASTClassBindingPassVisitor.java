@@ -1,10 +1,17 @@
 package cool.parser.AST;
 
+import cool.compiler.CompilationContext;
 import cool.structures.*;
 
 import java.util.Arrays;
 
 public class ASTClassBindingPassVisitor extends ASTDefaultVisitor<Void> {
+    private final SymbolTable symbolTable;
+
+    public ASTClassBindingPassVisitor(CompilationContext context) {
+        this.symbolTable = context.symbolTable;
+    }
+
     @Override
     public Void visit(New new_) {
         var scope = new_.getScope();
@@ -13,10 +20,10 @@ public class ASTClassBindingPassVisitor extends ASTDefaultVisitor<Void> {
 
         var type = new_.type;
         var typeName = type.getToken().getText();
-        var typeSymbol = (ClassSymbol)scope.lookup(typeName);
+        var typeSymbol = (ClassSymbol)scope.lookup(type.getToken().getNameId());
 
         if (typeSymbol == null) {
-            SymbolTable.error(type, "new is used with undefined type " + typeName);
+            symbolTable.error(type, "new is used with undefined type " + typeName);
             return null;
         }
 
@@ -31,10 +38,10 @@ public class ASTClassBindingPassVisitor extends ASTDefaultVisitor<Void> {
             return null;
 
         var idName = id.getToken().getText();
-        var idSymbol = (IdSymbol)scope.lookup(idName);
+        var idSymbol = (IdSymbol)scope.lookup(id.getToken().getNameId());
 
         if (idSymbol == null) {
-            SymbolTable.error(id, "Undefined identifier " + idName);
+            symbolTable.error(id, "Undefined identifier " + idName);
             return null;
         }
 
@@ -51,15 +58,15 @@ public class ASTClassBindingPassVisitor extends ASTDefaultVisitor<Void> {
 
         var type = caseTest.type;
         var typeName = type.getToken().getText();
-        var typeSymbol = (ClassSymbol)SymbolTable.globals.lookup(typeName);
+        var typeSymbol = (ClassSymbol)symbolTable.globals.lookup(type.getToken().getNameId());
 
         if (typeName.equals("SELF_TYPE")) {
-            SymbolTable.error(type, "Case variable " + idSymbol + " has illegal type SELF_TYPE");
+            symbolTable.error(type, "Case variable " + idSymbol + " has illegal type SELF_TYPE");
             return null;
         }
 
         if (typeSymbol == null) {
-            SymbolTable.error(type, "Case variable " + idSymbol + " has undefined type " + typeName);
+            symbolTable.error(type, "Case variable " + idSymbol + " has undefined type " + typeName);
             return null;
         }
 
@@ -90,10 +97,10 @@ public class ASTClassBindingPassVisitor extends ASTDefaultVisitor<Void> {
 
         var type = localDef.type;
         var typeName = type.getToken().getText();
-        var typeSymbol = (ClassSymbol)scope.lookup(typeName);
+        var typeSymbol = (ClassSymbol)scope.lookup(type.getToken().getNameId());
 
         if (typeSymbol == null) {
-            SymbolTable.error(type, "Let variable " + idSymbol + " has undefined type " + typeName);
+            symbolTable.error(type, "Let variable " + idSymbol + " has undefined type " + typeName);
             return null;
         }
 
@@ -125,15 +132,15 @@ public class ASTClassBindingPassVisitor extends ASTDefaultVisitor<Void> {
             // Static dispatch!
 
             var typeName = type.getToken().getText();
-            var typeSymbol = (ClassSymbol) SymbolTable.globals.lookup(typeName);
+            var typeSymbol = (ClassSymbol) symbolTable.globals.lookup(type.getToken().getNameId());
 
             if (typeName.equals("SELF_TYPE")) {
-                SymbolTable.error(type, "Type of static dispatch cannot be SELF_TYPE");
+                symbolTable.error(type, "Type of static dispatch cannot be SELF_TYPE");
                 return null;
             }
 
             if (typeSymbol == null) {
-                SymbolTable.error(type, "Type " + typeName + " of static dispatch is undefined");
+                symbolTable.error(type, "Type " + typeName + " of static dispatch is undefined");
                 return null;
             }
 
@@ -161,15 +168,15 @@ public class ASTClassBindingPassVisitor extends ASTDefaultVisitor<Void> {
 
         var type = formal.type;
         var typeName = type.getToken().getText();
-        var typeSymbol = (ClassSymbol)SymbolTable.globals.lookup(typeName);
+        var typeSymbol = (ClassSymbol)symbolTable.globals.lookup(type.getToken().getNameId());
 
         if (typeName.equals("SELF_TYPE")) {
-            SymbolTable.error(type, "Method " + methodSymbol + " of class " + classSymbol + " has formal parameter " + idSymbol + " with illegal type SELF_TYPE");
+            symbolTable.error(type, "Method " + methodSymbol + " of class " + classSymbol + " has formal parameter " + idSymbol + " with illegal type SELF_TYPE");
             return null;
         }
 
         if (typeSymbol == null) {
-            SymbolTable.error(type, "Method " + methodSymbol + " of class " + classSymbol + " has formal parameter " + idSymbol + " with undefined type " + typeName);
+            symbolTable.error(type, "Method " + methodSymbol + " of class " + classSymbol + " has formal parameter " + idSymbol + " with undefined type " + typeName);
             return null;
         }
 
@@ -191,10 +198,10 @@ public class ASTClassBindingPassVisitor extends ASTDefaultVisitor<Void> {
 
         var type = methodDef.type;
         var typeName = type.getToken().getText();
-        var typeSymbol = (ClassSymbol)classSymbol.lookup(typeName);
+        var typeSymbol = (ClassSymbol)classSymbol.lookup(type.getToken().getNameId());
 
         if (typeSymbol == null) {
-            SymbolTable.error(type, "Class " + classSymbol + " has method " + methodSymbol + " with undefined return type " + typeName);
+            symbolTable.error(type, "Class " + classSymbol + " has method " + methodSymbol + " with undefined return type " + typeName);
             return null;
         }
 
@@ -219,10 +226,10 @@ public class ASTClassBindingPassVisitor extends ASTDefaultVisitor<Void> {
 
         var type = attributeDef.type;
         var typeName = type.getToken().getText();
-        var typeSymbol = (ClassSymbol)classSymbol.lookup(typeName);
+        var typeSymbol = (ClassSymbol)classSymbol.lookup(type.getToken().getNameId());
 
         if (typeSymbol == null) {
-            SymbolTable.error(type, "Class " + classSymbol + " has attribute " + idSymbol + " with undefined type " + typeName);
+            symbolTable.error(type, "Class " + classSymbol + " has attribute " + idSymbol + " with undefined type " + typeName);
             return null;
         }
 
@@ -244,18 +251,18 @@ public class ASTClassBindingPassVisitor extends ASTDefaultVisitor<Void> {
 
         var parentClassType = class_.superType;
         if (parentClassType == null) {
-            classSymbol.setParent(ActualClassSymbol.OBJECT);
+            classSymbol.setParent(symbolTable.OBJECT);
         }
         else {
             var parentClassTypeName = parentClassType.getToken().getText();
             if (Arrays.asList("Int", "String", "Bool", "SELF_TYPE").contains(parentClassTypeName)) {
-                SymbolTable.error(parentClassType, "Class " + classSymbol + " has illegal parent " + parentClassTypeName);
+                symbolTable.error(parentClassType, "Class " + classSymbol + " has illegal parent " + parentClassTypeName);
                 return null;
             }
 
-            var parentClassSymbol = (ClassSymbol)SymbolTable.globals.lookup(parentClassTypeName);
+            var parentClassSymbol = (ClassSymbol)symbolTable.globals.lookup(parentClassType.getToken().getNameId());
             if (parentClassSymbol == null) {
-                SymbolTable.error(parentClassType, "Class " + classSymbol + " has undefined parent " + parentClassTypeName);
+                symbolTable.error(parentClassType, "Class " + classSymbol + " has undefined parent " + parentClassTypeName);
                 return null;
             }
 
@@ -270,6 +277,9 @@ public class ASTClassBindingPassVisitor extends ASTDefaultVisitor<Void> {
     @Override
     public Void visit(Program program) {
         program.classes.forEach(x -> x.accept(this));
+
+        // Ierarhia este completă: numerotez clasele pentru testele de subtip.
+        symbolTable.numberClasses();
         return null;
     }
 }
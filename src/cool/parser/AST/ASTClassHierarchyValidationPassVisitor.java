@@ -1,11 +1,18 @@
 package cool.parser.AST;
 
+import cool.compiler.CompilationContext;
 import cool.structures.*;
 import cool.util.stream;
 
 import java.util.Objects;
 
 public class ASTClassHierarchyValidationPassVisitor extends ASTDefaultVisitor<Void> {
+    private final SymbolTable symbolTable;
+
+    public ASTClassHierarchyValidationPassVisitor(CompilationContext context) {
+        this.symbolTable = context.symbolTable;
+    }
+
     @Override
     public Void visit(MethodDef methodDef) {
         var id = methodDef.id;
@@ -17,13 +24,13 @@ public class ASTClassHierarchyValidationPassVisitor extends ASTDefaultVisitor<Vo
         if (methodSymbol == null)
             return null;
 
-        var overriddenMethodSymbol = (MethodSymbol)classSymbol.getParent().lookup(methodSymbol.getName());
+        var overriddenMethodSymbol = ((ClassSymbol)classSymbol.getParent()).lookupMethod(methodSymbol.getNameId());
         if (overriddenMethodSymbol == null)
             return null;
 
         var overriddenMethodFormals = overriddenMethodSymbol.getFormals();
         if (overriddenMethodFormals.size() != methodSymbol.getFormals().size()) {
-            SymbolTable.error(id, "Class " + classSymbol + " overrides method " + methodSymbol + " with different number of formal parameters");
+            symbolTable.error(id, "Class " + classSymbol + " overrides method " + methodSymbol + " with different number of formal parameters");
             return null;
         }
 
@@ -31,7 +38,7 @@ public class ASTClassHierarchyValidationPassVisitor extends ASTDefaultVisitor<Vo
         var methodTypeSymbol = methodSymbol.getType();
         var overriddenMethodTypeSymbol = overriddenMethodSymbol.getType();
         if (overriddenMethodTypeSymbol != methodTypeSymbol && !overriddenMethodTypeSymbol.isSelfType() && !methodTypeSymbol.isSelfType()) {
-            SymbolTable.error(type, "Class " + classSymbol + " overrides method " + methodSymbol + " but changes return type from " + overriddenMethodTypeSymbol + " to " + methodTypeSymbol);
+            symbolTable.error(type, "Class " + classSymbol + " overrides method " + methodSymbol + " but changes return type from " + overriddenMethodTypeSymbol + " to " + methodTypeSymbol);
             return null;
         }
 
@@ -48,7 +55,7 @@ public class ASTClassHierarchyValidationPassVisitor extends ASTDefaultVisitor<Vo
         }
 
         var typeMismatch = stream.zip(
-                overriddenMethodFormals.values().stream(),
+                overriddenMethodFormals.stream(),
                 methodDef.formals.stream(),
                 (overriddenFormalSymbol, newFormal) -> {
                     var oldType = overriddenFormalSymbol.getType();
@@ -70,7 +77,7 @@ public class ASTClassHierarchyValidationPassVisitor extends ASTDefaultVisitor<Vo
             var mismatchSymbol = mismatch.formal.id.getSymbol();
             var astNode = mismatch.formal.type;
 
-            SymbolTable.error(astNode, "Class " + classSymbol + " overrides method " + methodSymbol + " but changes type of formal parameter " + mismatchSymbol + " from " + oldType + " to " + newType);
+            symbolTable.error(astNode, "Class " + classSymbol + " overrides method " + methodSymbol + " but changes type of formal parameter " + mismatchSymbol + " from " + oldType + " to " + newType);
             return null;
         }
 
@@ -88,8 +95,8 @@ public class ASTClassHierarchyValidationPassVisitor extends ASTDefaultVisitor<Vo
         if (idSymbol == null)
             return null;
 
-        if (classSymbol.getParent().lookup(idSymbol.getName()) != null) {
-            SymbolTable.error(id, "Class " + classSymbol + " redefines inherited attribute " + idSymbol);
+        if (classSymbol.getParent().lookup(idSymbol.getNameId()) != null) {
+            symbolTable.error(id, "Class " + classSymbol + " redefines inherited attribute " + idSymbol);
             return null;
         }
 
@@ -106,7 +113,7 @@ public class ASTClassHierarchyValidationPassVisitor extends ASTDefaultVisitor<Vo
         Scope temp = classSymbol.getParent();
         while (temp != null) {
             if (temp == classSymbol) {
-                SymbolTable.error(type, "Inheritance cycle for class " + classSymbol);
+                symbolTable.error(type, "Inheritance cycle for class " + classSymbol);
                 break;
             }
             temp = temp.getParent();
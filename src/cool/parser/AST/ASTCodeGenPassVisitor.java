@@ -1,16 +1,28 @@
 package cool.parser.AST;
 
-import cool.compiler.Compiler;
+import cool.compiler.CompilationContext;
+import cool.compiler.Options;
+import cool.ir.Label;
+import cool.ir.MipsInstruction;
+import cool.ir.PeepholeOptimizer;
 import cool.parser.CoolParser;
-import cool.structures.ActualClassSymbol;
+import cool.structures.SymbolTable;
 import cool.structures.ClassSymbol;
 import cool.structures.IdSymbol;
 import cool.structures.MethodSymbol;
+import org.stringtemplate.v4.AutoIndentWriter;
 import org.stringtemplate.v4.ST;
 import org.stringtemplate.v4.STGroupFile;
 
-import java.io.File;
-import java.util.HashMap;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 public class ASTCodeGenPassVisitor extends ASTDefaultVisitor<ST> {
@@ -26,19 +38,81 @@ public class ASTCodeGenPassVisitor extends ASTDefaultVisitor<ST> {
     // Numărul de cuvinte ce se află între $fp și primul parametru formal ($ra, $s0, $fp).
     private static final int MIPS_NUM_WORDS_UNTIL_FIRST_FORMAL_FROM_FP = 3;
 
-    private static final STGroupFile templates = new STGroupFile("cgen.stg");
+    // Cu -casedispatch, un case cu mai multe ramuri decât atât alege ramura
+    // printr-o tabelă de salt sau o căutare binară după tag.
+    private static final int CASE_DISPATCH_THRESHOLD = 4;
+
+    // Tabela de salt este folosită dacă are cel mult atâtea intrări pe ramură.
+    private static final int CASE_JUMP_TABLE_DENSITY = 4;
+
+    private static final STGroupFile templates = loadTemplates();
+
+    // Grupul de template-uri este încărcat complet la inițializarea clasei,
+    // deoarece încărcarea leneșă din ST nu este sigură între fire de execuție.
+    private static STGroupFile loadTemplates() {
+        var group = new STGroupFile("cgen.stg");
+        group.load();
+        return group;
+    }
+
+    private final CompilationContext context;
+    private final SymbolTable symbolTable;
 
     // Număr folosit pentru numerotarea label-urilor (eg: dispatchX, thenBranchX)
     private int uniqCounter = 0;
 
     // Număr folosit pentru a numerotarea case-urilor. (doar trebuie să fie unic, nu contează valoarea propriu-zisă)
-    private int currentCaseUniq = 0;
+    private Object currentCaseUniq = 0;
+
+    // Clasa generată de acest visitor, atunci când clasele sunt generate în
+    // paralel. Null la generarea secvențială.
+    private final ClassUnit unit;
+
+    // Clasa pentru care se generează cod la un moment dat.
+    private ClassSymbol currentClass;
+
+    // Numărul de dispatch-uri generate și câte dintre ele apelează direct metoda.
+    private int dispatchCount = 0;
+    private int directDispatchCount = 0;
+
+    // Numărul de apeluri înlocuite cu corpul metodei apelate (-inline).
+    private int inlinedCount = 0;
+
+    // Metoda generată la un moment dat și dispatch-urile din pozițiile de coadă
+    // ale corpului ei (-tailcalls).
+    private MethodDef currentMethodDef;
+    private final Set<Dispatch> tailDispatches = new HashSet<>();
+
+    // Apelurile transformate în salturi, pentru raport, și câte dintre ele sunt
+    // apeluri recursive transformate în bucle.
+    private final List<java.lang.String> tailCallSites = new ArrayList<>();
+    private int selfTailCallCount = 0;
+
+    // Label-ul la care sar apelurile recursive din metoda curentă, sau null.
+    private Object tailUniq;
+
+    // Dispatch-urile al căror receiver nu poate fi void (-nonvoid) și numărul
+    // de verificări omise din această cauză.
+    private final Set<Dispatch> nonVoidReceivers = new HashSet<>();
+    private int voidCheckCount = 0;
+    private int omittedVoidCheckCount = 0;
+
+    // Definițiile metodelor din program, pentru inlining.
+    private final Map<MethodSymbol, MethodDef> methodDefs;
+
+    // Clasele și metodele folosite de program (-dce), sau null dacă toate
+    // sunt generate.
+    private ASTReachabilityAnalysisVisitor reachability;
+
+    // Optimizatorul peephole aplicat rutinelor (-peephole), comun tuturor
+    // claselor generate, sau null.
+    private final PeepholeOptimizer peephole;
 
     // Fișierul sursă în care este definită clasa pentru care se generează cod la un moment dat.
     private java.lang.String currentFileName;
 
-    private ST classUserRoutinesSection;	// filled directly (through visitor returns)
-    private ST classInitRoutinesSection;	// filled collaterally ("global" access)
+    private RoutineSection classUserRoutinesSection;	// filled directly (through visitor returns)
+    private RoutineSection classInitRoutinesSection;	// filled collaterally ("global" access)
 
     private ST classNamesSection;
     private ST classObjectsSection;
@@ -54,6 +128,191 @@ public class ASTCodeGenPassVisitor extends ASTDefaultVisitor<ST> {
     private ST kBoolSection;
     private final HashMap<java.lang.Boolean, Integer> kBoolPool = new HashMap<>();
 
+    // Tabelele de salt ale case-urilor (-casedispatch), scrise în secțiunea de
+    // date înainte de heap_start.
+    private final List<ST> jumpTables = new ArrayList<>();
+
+    // Forma în care o expresie își lasă valoarea în $a0: referință către un
+    // obiect sau, cu -unboxed, valoarea brută a unui Int / Bool.
+    enum Rep { BOXED, INT, BOOL }
+
+    final boolean unboxed;
+
+    // Apelurile monomorfe către metode mici sunt expandate inline (doar cu -ir).
+    final boolean inline;
+
+    // Variabilele locale (let) păstrate pe stivă ca valori brute.
+    private final Set<IdSymbol> unboxedLocals = new HashSet<>();
+
+    // Forma în care ramurile case-ului curent își lasă valoarea.
+    private Rep caseResultRep = Rep.BOXED;
+
+    public ASTCodeGenPassVisitor(CompilationContext context) {
+        this(context, null, new HashMap<>(), null,
+                context.options.peephole ? PeepholeOptimizer.withDefaultRules() : null);
+    }
+
+    private ASTCodeGenPassVisitor(CompilationContext context, ClassUnit unit, Map<MethodSymbol, MethodDef> methodDefs,
+                                  ASTReachabilityAnalysisVisitor reachability, PeepholeOptimizer peephole) {
+        this.context = context;
+        this.symbolTable = context.symbolTable;
+        this.unit = unit;
+        this.methodDefs = methodDefs;
+        this.reachability = reachability;
+        this.peephole = peephole;
+        this.unboxed = context.options.unboxed;
+        this.inline = context.options.inline;
+    }
+
+    // Codul unei clase generat în paralel cu celelalte. Label-urile și indecșii
+    // constantelor sunt locali clasei și primesc valorile finale la unificare,
+    // care se face în ordinea claselor: label-urile sunt decalate cu numărul de
+    // label-uri al claselor anterioare, iar constantele sunt definite în ordinea
+    // primei utilizări. Rezultatul este identic cu cel al generării secvențiale,
+    // indiferent de ordinea în care rulează firele de execuție.
+    private static class ClassUnit {
+        final ClassDef class_;
+
+        int labelBase;
+        int labelCount;
+
+        int dispatchCount;
+        int directDispatchCount;
+        int inlinedCount;
+        int voidCheckCount;
+        int omittedVoidCheckCount;
+        int selfTailCallCount;
+
+        final List<java.lang.String> tailCallSites = new ArrayList<>();
+
+        // Constantele folosite de clasă, în ordinea primei utilizări.
+        final Map<Object, Konstant> konstants = new LinkedHashMap<>();
+
+        final List<ST> jumpTables = new ArrayList<>();
+
+        final List<ST> userRoutines = new ArrayList<>();
+        ST initRoutine;
+
+        // Rutinele randate, după rezolvarea label-urilor și a constantelor.
+        List<java.lang.String> renderedUserRoutines;
+        java.lang.String renderedInitRoutine;
+
+        ClassUnit(ClassDef class_) {
+            this.class_ = class_;
+        }
+
+        Object label(int localLabel) {
+            return new Object() {
+                @Override
+                public java.lang.String toString() {
+                    return Integer.toString(labelBase + localLabel);
+                }
+            };
+        }
+
+        Object constant(Object konstant) {
+            return konstants.computeIfAbsent(konstant, x -> new Konstant());
+        }
+
+        void render() {
+            renderedUserRoutines = new ArrayList<>(userRoutines.size());
+            for (var routine : userRoutines)
+                renderedUserRoutines.add(routine.render());
+            renderedInitRoutine = (initRoutine == null) ? null : initRoutine.render();
+
+            userRoutines.clear();
+            initRoutine = null;
+        }
+    }
+
+    // Indexul unei constante din kPool, cunoscut după unificare.
+    private static class Konstant {
+        int id;
+
+        @Override
+        public java.lang.String toString() {
+            return Integer.toString(id);
+        }
+    }
+
+    // Rutinele nu sunt păstrate ca arbori de template-uri până la final: fiecare
+    // rutină este randată imediat ce a fost generată într-un fișier temporar,
+    // care este copiat în ieșire după antetul programului. Antetul (secțiunea de
+    // date) poate fi scris doar la final, după ce se cunosc toate constantele.
+    private static class RoutineSection implements Closeable {
+        private final Path path;
+        private final Writer out;
+        private boolean empty = true;
+
+        RoutineSection() throws IOException {
+            path = Files.createTempFile("cool-", ".s");
+            out = Files.newBufferedWriter(path, StandardCharsets.UTF_8);
+        }
+
+        // Rutinele sunt separate prin newline, la fel ca în template-ul sequence.
+        void add(ST routine) {
+            try {
+                if (!empty)
+                    out.write('\n');
+
+                routine.write(new AutoIndentWriter(out));
+                empty = false;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        // Adaugă o rutină deja randată.
+        void add(java.lang.String routine) {
+            try {
+                if (!empty)
+                    out.write('\n');
+
+                out.write(routine);
+                empty = false;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void transferTo(Writer target) throws IOException {
+            out.close();
+
+            try (var in = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                in.transferTo(target);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+            Files.deleteIfExists(path);
+        }
+    }
+
+    // Generează codul programului și îl scrie în out, secțiune cu secțiune.
+    public void generate(ASTNode program, Writer out) throws IOException {
+        try (var initRoutines = new RoutineSection(); var userRoutines = new RoutineSection()) {
+            classInitRoutinesSection = initRoutines;
+            classUserRoutinesSection = userRoutines;
+
+            var header = program.accept(this);
+
+            var writer = new AutoIndentWriter(out);
+            header.write(writer);
+            writer.write("\n");
+            initRoutines.transferTo(out);
+            writer.write("\n\n");
+            userRoutines.transferTo(out);
+            out.write(System.lineSeparator());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            classInitRoutinesSection = null;
+            classUserRoutinesSection = null;
+        }
+    }
+
     private int defineConstant(java.lang.String konstant) {
         var kId = kStringPool.putIfAbsent(konstant, kStringPool.size());
         if (kId == null) {
@@ -64,7 +323,7 @@ public class ASTCodeGenPassVisitor extends ASTDefaultVisitor<ST> {
 
             var st = templates.getInstanceOf("konstantString")
                     .add("newStringkId", kId)
-                    .add("stringTag", ActualClassSymbol.STRING.getTag())
+                    .add("stringTag", symbolTable.STRING.getTag())
                     .add("stringObjSize", totalObjectSize)
                     .add("intLenkId", kLenId)
                     .add("ascii", konstant);
@@ -82,7 +341,7 @@ public class ASTCodeGenPassVisitor extends ASTDefaultVisitor<ST> {
 
             var st = templates.getInstanceOf("konstantInt")
                     .add("newIntkId", kId)
-                    .add("intTag", ActualClassSymbol.INT.getTag())
+                    .add("intTag", symbolTable.INT.getTag())
                     .add("int", konstant);
 
             kIntSection.add("e", st);
@@ -98,7 +357,7 @@ public class ASTCodeGenPassVisitor extends ASTDefaultVisitor<ST> {
 
             var st = templates.getInstanceOf("konstantBool")
                     .add("newBoolkId", kId)
-                    .add("boolTag", ActualClassSymbol.BOOL.getTag())
+                    .add("boolTag", symbolTable.BOOL.getTag())
                     .add("bool", konstant.compareTo(false));
 
             kBoolSection.add("e", st);
@@ -107,29 +366,67 @@ public class ASTCodeGenPassVisitor extends ASTDefaultVisitor<ST> {
         return kId;
     }
 
-    private void assignClassTagIds(ClassSymbol sym) {
-        var parentClass = (ClassSymbol) sym.getParent();
+    private int defineConstantValue(Object konstant) {
+        if (konstant instanceof java.lang.String)
+            return defineConstant((java.lang.String)konstant);
+        if (konstant instanceof java.lang.Integer)
+            return defineConstant((java.lang.Integer)konstant);
 
-        // Determin eticheta clasei
-        int parentMaxSubTreeTag = (parentClass == null) ? 0 : parentClass.getMaxSubTreeTag();
-        sym.setTag(parentMaxSubTreeTag);
-        sym.setMaxSubTreeTag(parentMaxSubTreeTag + 1);
+        return defineConstant((java.lang.Boolean)konstant);
+    }
 
-        // Parcurgere recursivă a subclaselor (în ordine DFS -- important pentru asignarea corectă a tagurilor)
-        for (var c : sym.getChildren()) {
-            assignClassTagIds(c);
-        }
+    // Indexul constantei în kPool. La generarea în paralel este cunoscut abia
+    // după unificarea clasei curente (vezi ClassUnit).
+    Object constant(Object konstant) {
+        if (unit != null)
+            return unit.constant(konstant);
 
-        if (parentClass != null) {
-            parentClass.setMaxSubTreeTag(sym.getMaxSubTreeTag());
-        }
+        return defineConstantValue(konstant);
     }
 
-    private int getAttrOffset(IdSymbol sym) {
+    // Următorul număr unic folosit în label-uri.
+    Object nextUniq() {
+        if (unit != null)
+            return unit.label(uniqCounter++);
+
+        return uniqCounter++;
+    }
+
+    int getAttrOffset(IdSymbol sym) {
         assert sym.getDefinitionType() == IdSymbol.DefinitionType.ATTRIBUTE;
         return (sym.getIndex() + MIPS_PROT_OBJ_HEADER_NUM_WORDS) * MIPS_WORD_SIZE;
     }
 
+    // Indexul în kPool al numelui unui fișier de intrare (pentru mesajele de eroare).
+    Object fileNameConstant(int fileId) {
+        return constant(new File(context.fileNames.get(fileId)).getName());
+    }
+
+    // Definiția unei metode din program, sau null pentru metodele predefinite.
+    MethodDef getMethodDef(MethodSymbol sym) {
+        return methodDefs.get(sym);
+    }
+
+    void countInlined() {
+        inlinedCount++;
+    }
+
+    boolean fusesBranches() {
+        return context.options.fuse;
+    }
+
+    boolean devirtualizes() {
+        return context.options.devirtualize;
+    }
+
+    boolean foldsConstants() {
+        return context.options.fold;
+    }
+
+    SymbolTable getSymbolTable() {
+        return symbolTable;
+    }
+
     private int getLocalOffset(IdSymbol sym) {
         assert sym.getDefinitionType() == IdSymbol.DefinitionType.LOCAL;
         return (-sym.getIndex() - MIPS_NUM_WORDS_UNTIL_FIRST_LOCAL_FROM_FP) * MIPS_WORD_SIZE;
@@ -142,7 +439,7 @@ public class ASTCodeGenPassVisitor extends ASTDefaultVisitor<ST> {
 
     private java.lang.String getShortTypeName(ClassSymbol type) {
         if (type.isPrimitive()) {
-            if (type == ActualClassSymbol.STRING)
+            if (type == symbolTable.STRING)
                 return "str";
 
             return type.toString().toLowerCase();
@@ -151,6 +448,115 @@ public class ASTCodeGenPassVisitor extends ASTDefaultVisitor<ST> {
         return null;
     }
 
+    Rep rep(Expression expr) {
+        return unboxed ? rep(expr.getStaticType()) : Rep.BOXED;
+    }
+
+    Rep rep(ClassSymbol type) {
+        if (type == symbolTable.INT)
+            return Rep.INT;
+        if (type == symbolTable.BOOL)
+            return Rep.BOOL;
+
+        return Rep.BOXED;
+    }
+
+    // Forma în care este păstrată variabila. Atributele, parametrii formali și
+    // variabilele din case rămân obiecte, deoarece sunt vizibile din afara
+    // metodei sau sunt inițializate cu obiecte.
+    private Rep storageRep(IdSymbol sym) {
+        return unboxedLocals.contains(sym) ? rep(sym.getType()) : Rep.BOXED;
+    }
+
+    // Convertește valoarea din $a0 lăsată de code din forma from în forma to.
+    private ST convert(ST code, Rep from, Rep to) {
+        if (from == to)
+            return code;
+
+        // O valoare despachetată doar pentru a fi împachetată la loc (sau invers)
+        // își păstrează forma inițială. Identitatea obiectelor Int / Bool nu poate
+        // fi observată, egalitatea lor compară valorile.
+        var boxing = (from == Rep.INT) ? List.of("/boxInt", "/cachedBoxInt") : List.of("/boxBool");
+        if (to == Rep.BOXED ? code.getName().equals("/unbox") : boxing.contains(code.getName()))
+            return (ST)code.getAttribute("e");
+
+        if (to == Rep.BOXED && from == Rep.INT && context.options.intCache)
+            return templates.getInstanceOf("cachedBoxInt").add("e", code).add("int", cachedInt());
+        if (to == Rep.BOXED)
+            return templates.getInstanceOf(from == Rep.INT ? "boxInt" : "boxBool").add("e", code);
+
+        assert from == Rep.BOXED;
+        return templates.getInstanceOf("unbox").add("e", code);
+    }
+
+    // Obiectul Int cu valoarea din $t1: cel din tabela int_cache dacă valoarea
+    // este în intervalul dat de -intcache, altfel o copie nouă a lui Int_protObj.
+    private ST cachedInt() {
+        var uniq = nextUniq();
+        return templates.getInstanceOf("cachedInt")
+                .add("lookup", intCacheLookup(uniq))
+                .add("uniq", uniq);
+    }
+
+    // Pune în $a0 obiectul din int_cache cu valoarea din $t1 sau, dacă valoarea
+    // nu este în tabelă, sare la intcache<uniq>.
+    private ST intCacheLookup(Object uniq) {
+        return templates.getInstanceOf("intCacheLookup")
+                .add("min", context.options.intCacheMin)
+                .add("max", context.options.intCacheMax)
+                .add("index", getIntCacheOffset())
+                .add("uniq", uniq);
+    }
+
+    boolean cachesInts() {
+        return context.options.intCache;
+    }
+
+    int getIntCacheMin() {
+        return context.options.intCacheMin;
+    }
+
+    int getIntCacheMax() {
+        return context.options.intCacheMax;
+    }
+
+    // Deplasamentul adăugat valorii pentru a obține indexul în int_cache,
+    // calculat pe 64 de biți pentru că -Integer.MIN_VALUE nu încape într-un int.
+    int getIntCacheOffset() {
+        long offset = -(long)context.options.intCacheMin;
+        long size = (long)context.options.intCacheMax + offset + 1;
+        if (offset > Integer.MAX_VALUE || size > Options.MAX_INT_CACHE_SIZE)
+            throw new IllegalStateException("Int cache range " + context.options.intCacheMin + ".."
+                    + context.options.intCacheMax + " does not fit in the int_cache table");
+
+        return (int)offset;
+    }
+
+    // Valoarea întoarsă de in_int este înlocuită cu obiectul din int_cache cu
+    // aceeași valoare (-intcache), astfel încât obiectul alocat de runtime nu
+    // mai este referit de program.
+    boolean sharesIntResult(Dispatch dispatch) {
+        return context.options.intCache && dispatch.id.getToken().getText().equals("in_int")
+                && dispatch.getStaticType() == symbolTable.INT;
+    }
+
+    // Codul expresiei, cu valoarea lăsată în forma cerută.
+    private ST generate(Expression expr, Rep to) {
+        // Literalii au deja obiecte în kPool, nu are rost să fie alocate altele.
+        if (to == Rep.BOXED && expr instanceof Int)
+            return loadIntConstant((Int)expr);
+        if (to == Rep.BOXED && expr instanceof Bool)
+            return loadBoolConstant((Bool)expr);
+
+        // Iar valorile brute ale literalilor sunt imediate.
+        if (to == Rep.INT && expr instanceof Int)
+            return templates.getInstanceOf("loadImm").add("imm", Integer.parseInt(expr.getToken().getText()));
+        if (to == Rep.BOOL && expr instanceof Bool)
+            return templates.getInstanceOf("loadImm").add("imm", Boolean.parseBoolean(expr.getToken().getText()) ? 1 : 0);
+
+        return convert(expr.accept(this), rep(expr), to);
+    }
+
     private ST generateDefaultValue(ClassSymbol sym) {
         var shortType = getShortTypeName(sym);
         if (shortType == null) {
@@ -168,6 +574,23 @@ public class ASTCodeGenPassVisitor extends ASTDefaultVisitor<ST> {
         // Trebuie parcurse clasele în ordinea dată de tag-uri. Din cauza asta nu pot folosi visitorul.
         // Ordinea obligatorie vine din faptul că tabelele claselor (nume/rutine de inițializare) sunt indexate după tag
 
+        // O clasă eliminată (-dce) nu are obiecte, dar își păstrează tag-ul, de
+        // care depind intervalele din case; intrările ei din tabele rămân goale.
+        if (reachability != null && !reachability.isKept(sym)) {
+            classNamesSection.add("e", templates.getInstanceOf("wordSymbol").add("value", 0));
+            classObjectsSection.add("e", templates.getInstanceOf("sequence")
+                    .add("e", templates.getInstanceOf("wordSymbol").add("value", 0))
+                    .add("e", templates.getInstanceOf("wordSymbol").add("value", 0)));
+
+            if (reachability.hasDispTable(sym))
+                classDispTablesSection.add("e", createDispTable(sym));
+
+            for (var c : sym.getChildren()) {
+                createClassLayout(c);
+            }
+            return;
+        }
+
         // Adăugare clasă în tabela de nume
         int kNameId = defineConstant(sym.getName());
         var nameTabEntry = templates.getInstanceOf("nameTabEntry")
@@ -198,22 +621,14 @@ public class ASTCodeGenPassVisitor extends ASTDefaultVisitor<ST> {
                 .add("attrs", defaultValues);
         classPrototypeObjectsSection.add("e", protObj);
 
-        // Construiesc tabela de dispatch (plus caching pentru acces facil în viitor)
-        var vmTable = sym.getVMTable();
-
-        // Creez codul aferent tabelei de dispatch
-        var dispTable = templates.getInstanceOf("dispTable").add("class", sym.getName());
-        for (var m : vmTable) {
-            dispTable.add("entry", m.getFullName());
-        }
-        classDispTablesSection.add("e", dispTable);
+        classDispTablesSection.add("e", createDispTable(sym));
 
         // Creez codul aferent rutinei de inițializare (doar pentru clasele definite implicit)
         if (sym.isBuiltIn()) {
             var initRoutine = templates.getInstanceOf("initRoutine")
                     .add("class", sym.getName())
                     .add("parentClass", sym.getParent());
-            classInitRoutinesSection.add("e", initRoutine);
+            classInitRoutinesSection.add(optimizeRoutine(initRoutine));
         }
 
         // Parcurg în continuare clasele în ordinea dată de tag indices
@@ -222,6 +637,20 @@ public class ASTCodeGenPassVisitor extends ASTDefaultVisitor<ST> {
         }
     }
 
+    private ST createDispTable(ClassSymbol sym) {
+        // Construiesc tabela de dispatch (plus caching pentru acces facil în viitor)
+        var vmTable = sym.getVMTable();
+
+        // Creez codul aferent tabelei de dispatch. Metodele eliminate (-dce) nu
+        // pot fi apelate, iar intrările lor rămân goale.
+        var dispTable = templates.getInstanceOf("dispTable").add("class", sym.getName());
+        for (var m : vmTable) {
+            dispTable.add("entry", (reachability == null || reachability.isReachable(m)) ? m.getFullName() : "0");
+        }
+
+        return dispTable;
+    }
+
     @Override
     public ST visit(Id id) {
         var idSymbol = id.getSymbol();
@@ -230,7 +659,7 @@ public class ASTCodeGenPassVisitor extends ASTDefaultVisitor<ST> {
             return templates.getInstanceOf("loadSelf");
         }
 
-        return switch (idSymbol.getDefinitionType()) {
+        var st = switch (idSymbol.getDefinitionType()) {
             case ATTRIBUTE -> templates.getInstanceOf("loadAttr")
                     .add("offset", getAttrOffset(idSymbol));
             case LOCAL -> templates.getInstanceOf("loadFpRelative")
@@ -239,12 +668,23 @@ public class ASTCodeGenPassVisitor extends ASTDefaultVisitor<ST> {
                     .add("offset", getFormalOffset(idSymbol));
             default -> throw new RuntimeException("DEBUG: shouldn't get here");
         };
+
+        return convert(st, storageRep(idSymbol), rep(id));
     }
 
     @Override
     public ST visit(Int int_) {
+        if (rep(int_) == Rep.INT) {
+            return templates.getInstanceOf("loadImm")
+                    .add("imm", Integer.parseInt(int_.getToken().getText()));
+        }
+
+        return loadIntConstant(int_);
+    }
+
+    private ST loadIntConstant(Int int_) {
         var val = Integer.parseInt(int_.getToken().getText());
-        var kId = defineConstant(val);
+        var kId = constant(val);
 
         return templates.getInstanceOf("loadConstant")
                 .add("class", "int")
@@ -254,7 +694,7 @@ public class ASTCodeGenPassVisitor extends ASTDefaultVisitor<ST> {
     @Override
     public ST visit(String string) {
         var val = string.getToken().getText();
-        var kId = defineConstant(val);
+        var kId = constant(val);
 
         return templates.getInstanceOf("loadConstant")
                 .add("class", "str")
@@ -263,8 +703,17 @@ public class ASTCodeGenPassVisitor extends ASTDefaultVisitor<ST> {
 
     @Override
     public ST visit(Bool bool_) {
+        if (rep(bool_) == Rep.BOOL) {
+            return templates.getInstanceOf("loadImm")
+                    .add("imm", Boolean.parseBoolean(bool_.getToken().getText()) ? 1 : 0);
+        }
+
+        return loadBoolConstant(bool_);
+    }
+
+    private ST loadBoolConstant(Bool bool_) {
         var val = Boolean.parseBoolean(bool_.getToken().getText());
-        var kId = defineConstant(val);
+        var kId = constant(val);
 
         return templates.getInstanceOf("loadConstant")
                 .add("class", "bool")
@@ -273,31 +722,142 @@ public class ASTCodeGenPassVisitor extends ASTDefaultVisitor<ST> {
 
     @Override
     public ST visit(If if_) {
+        if (context.options.fuse) {
+            var uniq = nextUniq();
+            return templates.getInstanceOf("fusedConditional")
+                    .add("cond", generateBranch(if_.cond, false, "else", uniq))
+                    .add("thenBranch", generate(if_.thenBranch, rep(if_)))
+                    .add("elseBranch", generate(if_.elseBranch, rep(if_)))
+                    .add("uniq", uniq);
+        }
+
+        if (unboxed) {
+            return templates.getInstanceOf("unboxedConditional")
+                    .add("cond", generate(if_.cond, Rep.BOOL))
+                    .add("thenBranch", generate(if_.thenBranch, rep(if_)))
+                    .add("elseBranch", generate(if_.elseBranch, rep(if_)))
+                    .add("uniq", nextUniq());
+        }
+
         return templates.getInstanceOf("conditional")
                 .add("cond", if_.cond.accept(this))
                 .add("thenBranch", if_.thenBranch.accept(this))
                 .add("elseBranch", if_.elseBranch.accept(this))
-                .add("uniq", uniqCounter++);
+                .add("uniq", nextUniq());
     }
 
     @Override
     public ST visit(While while_) {
+        // Cu -fold, o buclă cu condiție constantă nu mai testează condiția.
+        if (context.options.fold && while_.cond instanceof Bool) {
+            if (!Boolean.parseBoolean(while_.cond.getToken().getText()))
+                return templates.getInstanceOf("loadImm").add("imm", 0);
+
+            return templates.getInstanceOf("endlessLoop")
+                    .add("body", while_.body.accept(this))
+                    .add("uniq", nextUniq());
+        }
+
+        if (context.options.fuse) {
+            var uniq = nextUniq();
+            return templates.getInstanceOf("fusedWhileLoop")
+                    .add("cond", generateBranch(while_.cond, false, "endwhile", uniq))
+                    .add("body", while_.body.accept(this))
+                    .add("uniq", uniq);
+        }
+
+        if (unboxed) {
+            return templates.getInstanceOf("unboxedWhileLoop")
+                    .add("cond", generate(while_.cond, Rep.BOOL))
+                    .add("body", while_.body.accept(this))
+                    .add("uniq", nextUniq());
+        }
+
         return templates.getInstanceOf("whileLoop")
                 .add("cond", while_.cond.accept(this))
                 .add("body", while_.body.accept(this))
-                .add("uniq", uniqCounter++);
+                .add("uniq", nextUniq());
+    }
+
+    // Codul unei condiții care sare la label<uniq> dacă valoarea ei este when și
+    // continuă altfel. Comparațiile, not și isvoid se termină direct cu saltul,
+    // fără a construi valoarea Bool a condiției (-fuse).
+    private ST generateBranch(Expression cond, boolean when, java.lang.String label, Object uniq) {
+        if (cond instanceof Not)
+            return generateBranch(((Not)cond).expr, !when, label, uniq);
+
+        if (cond instanceof IsVoid && rep(((IsVoid)cond).instance) == Rep.BOXED) {
+            return templates.getInstanceOf("branchTest")
+                    .add("e", ((IsVoid)cond).instance.accept(this))
+                    .add("x", when ? "beqz" : "bnez")
+                    .add("label", label)
+                    .add("uniq", uniq);
+        }
+
+        if (cond instanceof Relational) {
+            var rel = (Relational)cond;
+            var operator = rel.getToken().getType();
+
+            // Egalitatea este comparată direct doar pentru valori Int / Bool de același tip.
+            var operandRep = (operator == CoolParser.EQUAL) ? comparableRep(rel.left, rel.right) : Rep.INT;
+            if (operandRep != null) {
+                var branchInstruction = switch (operator) {
+                    case CoolParser.LT -> when ? "blt" : "bge";
+                    case CoolParser.LE -> when ? "ble" : "bgt";
+                    case CoolParser.EQUAL -> when ? "beq" : "bne";
+
+                    default -> throw new IllegalStateException("Unexpected value: " + operator);
+                };
+
+                return templates.getInstanceOf("branchCompare")
+                        .add("e1", generate(rel.left, operandRep))
+                        .add("e2", generate(rel.right, operandRep))
+                        .add("x", branchInstruction)
+                        .add("label", label)
+                        .add("uniq", uniq);
+            }
+        }
+
+        return templates.getInstanceOf("branchTest")
+                .add("e", generate(cond, Rep.BOOL))
+                .add("x", when ? "bnez" : "beqz")
+                .add("label", label)
+                .add("uniq", uniq);
+    }
+
+    // Forma brută în care pot fi comparate direct două valori, dacă ambele
+    // sunt Int sau ambele Bool, altfel null.
+    Rep comparableRep(Expression left, Expression right) {
+        var type = left.getStaticType();
+        if ((type == symbolTable.INT || type == symbolTable.BOOL) && type == right.getStaticType())
+            return rep(type);
+
+        return null;
+    }
+
+    // Operanzii egalității sunt comparați după valoare, fără equality_test.
+    boolean inlinesEquality(Relational rel) {
+        return context.options.inlineEquality && comparableRep(rel.left, rel.right) != null;
     }
 
     @Override
     public ST visit(Block block) {
         var st = templates.getInstanceOf("sequence");
 
-        block.exprs.forEach(x -> st.add("e", x.accept(this)));
+        var last = block.exprs.size() - 1;
+        for (int i = 0; i < last; i++)
+            st.add("e", block.exprs.get(i).accept(this));
+
+        st.add("e", generate(block.exprs.get(last), rep(block)));
         return st;
     }
 
     @Override
     public ST visit(LocalDef localDef) {
+        var idSymbol = localDef.id.getSymbol();
+        if (unboxed && rep(idSymbol.getType()) != Rep.BOXED)
+            unboxedLocals.add(idSymbol);
+
         return generateAssignmentCode(localDef.id, localDef.initValue, true);
     }
 
@@ -306,7 +866,7 @@ public class ASTCodeGenPassVisitor extends ASTDefaultVisitor<ST> {
         var st = templates.getInstanceOf("sequence");
 
         let.vars.forEach(x -> st.add("e", x.accept(this)));
-        st.add("e", let.body.accept(this));
+        st.add("e", generate(let.body, rep(let)));
         return st;
     }
 
@@ -315,11 +875,11 @@ public class ASTCodeGenPassVisitor extends ASTDefaultVisitor<ST> {
         var type = caseTest.type.getSymbol();
 
         return templates.getInstanceOf("caseBranch")
-                .add("e", caseTest.body.accept(this))
+                .add("e", generate(caseTest.body, caseResultRep))
                 .add("minTag", type.getTag())
                 .add("maxTag", type.getMaxSubTreeTag() - 1) // bgt
                 .add("currentCaseUniq", currentCaseUniq)
-                .add("uniq", uniqCounter++);
+                .add("uniq", nextUniq());
     }
 
     @Override
@@ -345,17 +905,27 @@ public class ASTCodeGenPassVisitor extends ASTDefaultVisitor<ST> {
          *   3. Dacă nicio ramură nu se potrivește, atunci se consideră runtime error și se oprește execuția.
          */
 
-        currentCaseUniq = uniqCounter++;
+        currentCaseUniq = nextUniq();
+
+        var enclosingCaseResultRep = caseResultRep;
+        caseResultRep = rep(case_);
 
         // Ugly hack: offset-ul pentru case este memorat în symbol-ul de pe fiecare ramură. Felul în care am scris
         // regulile parser-ului îmi garantează că există cel puțin un case (get(0) va returna un obiect valid mereu)
         var offset = getLocalOffset(case_.caseTests.get(0).id.getSymbol());
+
+        if (usesCaseDispatch(case_)) {
+            var st = generateCaseDispatch(case_, offset);
+            caseResultRep = enclosingCaseResultRep;
+            return st;
+        }
+
         var branches = templates.getInstanceOf("sequence");
         var st = templates.getInstanceOf("case")
-                .add("e", case_.instance.accept(this))
+                .add("e", generate(case_.instance, Rep.BOXED))
                 .add("offset", offset)
                 .add("currentCaseUniq", currentCaseUniq)
-                .add("filekId", defineConstant(currentFileName))
+                .add("filekId", constant(currentFileName))
                 .add("line", case_.getToken().getLine());
 
         // Parcurg branch-urile în ordine descrescătoare a tag-urilor claselor.
@@ -368,13 +938,140 @@ public class ASTCodeGenPassVisitor extends ASTDefaultVisitor<ST> {
                 })
                 .forEachOrdered(x -> branches.add("e", x.accept(this)));
 
+        caseResultRep = enclosingCaseResultRep;
         return st.add("branches", branches);
     }
 
+    // Un interval de tag-uri pentru care case-ul alege aceeași ramură (null
+    // dacă niciuna nu se potrivește).
+    static class CaseInterval {
+        final int minTag;
+        int maxTag;
+        final CaseTest branch;
+
+        CaseInterval(int minTag, int maxTag, CaseTest branch) {
+            this.minTag = minTag;
+            this.maxTag = maxTag;
+            this.branch = branch;
+        }
+    }
+
+    boolean usesCaseDispatch(Case case_) {
+        return context.options.caseDispatch && case_.caseTests.size() > CASE_DISPATCH_THRESHOLD;
+    }
+
+    // Împarte toate tag-urile claselor în intervale disjuncte, fiecare cu ramura
+    // cea mai specializată care se potrivește (cea cu tag-ul cel mai mare).
+    List<CaseInterval> caseIntervals(Case case_) {
+        var intervals = new ArrayList<CaseInterval>();
+
+        for (int tag = 0; tag < symbolTable.OBJECT.getMaxSubTreeTag(); tag++) {
+            CaseTest branch = null;
+            for (var caseTest : case_.caseTests) {
+                var type = caseTest.type.getSymbol();
+                if (type.getTag() <= tag && tag < type.getMaxSubTreeTag()
+                        && (branch == null || type.getTag() > branch.type.getSymbol().getTag()))
+                    branch = caseTest;
+            }
+
+            var last = intervals.isEmpty() ? null : intervals.get(intervals.size() - 1);
+            if (last != null && last.branch == branch)
+                last.maxTag = tag;
+            else
+                intervals.add(new CaseInterval(tag, tag, branch));
+        }
+
+        return intervals;
+    }
+
+    // Case-ul cu multe ramuri sare direct la ramura aleasă: printr-o tabelă de
+    // salt indexată după tag, dacă tag-urile potrivite sunt dense, altfel printr-o
+    // căutare binară în intervalele de tag-uri.
+    private ST generateCaseDispatch(Case case_, int offset) {
+        var noMatch = new Label("casenomatch", currentCaseUniq);
+        var labels = new HashMap<CaseTest, Label>();
+
+        var bodies = templates.getInstanceOf("sequence");
+        for (var caseTest : case_.caseTests) {
+            var label = new Label("casebody", nextUniq());
+            labels.put(caseTest, label);
+            bodies.add("e", templates.getInstanceOf("caseBody")
+                    .add("e", generate(caseTest.body, caseResultRep))
+                    .add("label", label)
+                    .add("currentCaseUniq", currentCaseUniq));
+        }
+
+        var intervals = caseIntervals(case_);
+        var matched = intervals.stream().filter(x -> x.branch != null).collect(Collectors.toList());
+        var minTag = matched.get(0).minTag;
+        var maxTag = matched.get(matched.size() - 1).maxTag;
+
+        ST dispatch;
+        if (maxTag - minTag + 1 <= CASE_JUMP_TABLE_DENSITY * case_.caseTests.size()) {
+            dispatch = templates.getInstanceOf("caseJumpTable")
+                    .add("minTag", minTag)
+                    .add("maxTag", maxTag)
+                    .add("baseOffset", -MIPS_WORD_SIZE * minTag)
+                    .add("currentCaseUniq", currentCaseUniq);
+
+            var table = templates.getInstanceOf("jumpTable")
+                    .add("label", new Label("casetable", currentCaseUniq));
+            for (var interval : intervals) {
+                for (int tag = Math.max(interval.minTag, minTag); tag <= Math.min(interval.maxTag, maxTag); tag++)
+                    table.add("targets", (interval.branch == null) ? noMatch : labels.get(interval.branch));
+            }
+
+            if (unit != null)
+                unit.jumpTables.add(table);
+            else
+                jumpTables.add(table);
+        } else {
+            dispatch = templates.getInstanceOf("sequence");
+            generateCaseSearch(intervals, 0, intervals.size() - 1, dispatch, labels, noMatch);
+        }
+
+        return templates.getInstanceOf("caseDispatch")
+                .add("e", generate(case_.instance, Rep.BOXED))
+                .add("offset", offset)
+                .add("dispatch", dispatch)
+                .add("bodies", bodies)
+                .add("currentCaseUniq", currentCaseUniq)
+                .add("filekId", constant(currentFileName))
+                .add("line", case_.getToken().getLine());
+    }
+
+    // Căutarea binară a intervalului care conține tag-ul din $t1, între
+    // intervalele from și to.
+    private void generateCaseSearch(List<CaseInterval> intervals, int from, int to, ST code,
+                                    Map<CaseTest, Label> labels, Label noMatch) {
+        if (from == to) {
+            var branch = intervals.get(from).branch;
+            code.add("e", templates.getInstanceOf("caseJump")
+                    .add("target", (branch == null) ? noMatch : labels.get(branch)));
+            return;
+        }
+
+        var mid = (from + to + 1) / 2;
+        var lower = new Label("casesearch", nextUniq());
+
+        code.add("e", templates.getInstanceOf("caseTagBelow")
+                .add("tag", intervals.get(mid).minTag)
+                .add("target", lower));
+        generateCaseSearch(intervals, mid, to, code, labels, noMatch);
+        code.add("e", templates.getInstanceOf("caseLabel").add("label", lower));
+        generateCaseSearch(intervals, from, mid - 1, code, labels, noMatch);
+    }
+
     @Override
     public ST visit(New new_) {
         var name = new_.type.getToken().getText();
 
+        // Valoarea implicită a unui Int / Bool nou este 0 / false.
+        if (rep(new_) != Rep.BOXED) {
+            return templates.getInstanceOf("loadImm")
+                    .add("imm", 0);
+        }
+
         if (name.equals("SELF_TYPE")) {
             return templates.getInstanceOf("newSELF_TYPE");
         }
@@ -386,9 +1083,21 @@ public class ASTCodeGenPassVisitor extends ASTDefaultVisitor<ST> {
 
     @Override
     public ST visit(IsVoid isVoid) {
+        if (rep(isVoid) == Rep.BOOL) {
+            // Un Int / Bool nu este niciodată void.
+            if (rep(isVoid.instance) != Rep.BOXED) {
+                return templates.getInstanceOf("sequence")
+                        .add("e", isVoid.instance.accept(this))
+                        .add("e", templates.getInstanceOf("loadImm").add("imm", 0));
+            }
+
+            return templates.getInstanceOf("isZero")
+                    .add("e", isVoid.instance.accept(this));
+        }
+
         return templates.getInstanceOf("isVoid")
                 .add("e", isVoid.instance.accept(this))
-                .add("uniq", uniqCounter++);
+                .add("uniq", nextUniq());
     }
 
     private ST generateAssignmentCode(Id destNode, Expression exprNode, boolean generateDefault) {
@@ -397,9 +1106,12 @@ public class ASTCodeGenPassVisitor extends ASTDefaultVisitor<ST> {
             return null;
 
         var idSymbol = destNode.getSymbol();
+        var storage = storageRep(idSymbol);
         var exprCode = (exprNode == null)
-                ? generateDefaultValue(destNode.getSymbol().getType().getActualType())
-                : exprNode.accept(this);
+                ? (storage == Rep.BOXED)
+                        ? generateDefaultValue(destNode.getSymbol().getType().getActualType())
+                        : templates.getInstanceOf("loadImm").add("imm", 0)
+                : generate(exprNode, storage);
 
         return switch (idSymbol.getDefinitionType()) {
             case ATTRIBUTE -> templates.getInstanceOf("storeAttr")
@@ -417,18 +1129,54 @@ public class ASTCodeGenPassVisitor extends ASTDefaultVisitor<ST> {
 
     @Override
     public ST visit(Assign assign) {
-        return generateAssignmentCode(assign.id, assign.expr, false);
+        var st = generateAssignmentCode(assign.id, assign.expr, false);
+        return convert(st, storageRep(assign.id.getSymbol()), rep(assign));
     }
 
     @Override
     public ST visit(Relational rel) {
         var operator = rel.getToken().getType();
 
+        if (rep(rel) == Rep.BOOL) {
+            if (operator == CoolParser.EQUAL && (rep(rel.left) == Rep.BOXED || rep(rel.left) != rep(rel.right))) {
+                var st = templates.getInstanceOf("equalityTest")
+                        .add("e1", generate(rel.left, Rep.BOXED))
+                        .add("e2", generate(rel.right, Rep.BOXED))
+                        .add("uniq", nextUniq());
+
+                return convert(st, Rep.BOXED, Rep.BOOL);
+            }
+
+            var operandRep = (operator == CoolParser.EQUAL) ? rep(rel.left) : Rep.INT;
+            var cmpInstruction = switch(operator) {
+                case CoolParser.EQUAL -> "seq";
+                case CoolParser.LT -> "slt";
+                case CoolParser.LE -> "sle";
+
+                default -> throw new IllegalStateException("Unexpected value: " + operator);
+            };
+
+            return templates.getInstanceOf("unboxedBinaryOp")
+                    .add("e1", generate(rel.left, operandRep))
+                    .add("e2", generate(rel.right, operandRep))
+                    .add("x", cmpInstruction);
+        }
+
+        // Două Int / Bool sunt egale dacă au aceeași valoare, deci nu mai este
+        // nevoie de equality_test (-inlineeq).
+        if (operator == CoolParser.EQUAL && inlinesEquality(rel)) {
+            return templates.getInstanceOf("compare")
+                    .add("e1", rel.left.accept(this))
+                    .add("e2", rel.right.accept(this))
+                    .add("x", "beq")
+                    .add("uniq", nextUniq());
+        }
+
         if (operator == CoolParser.EQUAL) {
             return templates.getInstanceOf("equalityTest")
                     .add("e1", rel.left.accept(this))
                     .add("e2", rel.right.accept(this))
-                    .add("uniq", uniqCounter++);
+                    .add("uniq", nextUniq());
         } else {
             var cmpInstruction = switch(operator) {
                 case CoolParser.LT -> "blt";
@@ -441,106 +1189,334 @@ public class ASTCodeGenPassVisitor extends ASTDefaultVisitor<ST> {
                     .add("e1", rel.left.accept(this))
                     .add("e2", rel.right.accept(this))
                     .add("x", cmpInstruction)
-                    .add("uniq", uniqCounter++);
+                    .add("uniq", nextUniq());
         }
     }
 
     @Override
     public ST visit(Not not) {
+        if (rep(not) == Rep.BOOL) {
+            return templates.getInstanceOf("isZero")
+                    .add("e", generate(not.expr, Rep.BOOL));
+        }
+
         return templates.getInstanceOf("not")
                 .add("e", not.expr.accept(this))
-                .add("uniq", uniqCounter++);
+                .add("uniq", nextUniq());
     }
 
     @Override
     public ST visit(Plus plus) {
-        return templates.getInstanceOf("arithmeticOp")
-                .add("e1", plus.left.accept(this))
-                .add("e2", plus.right.accept(this))
-                .add("x", "add");
+        if (rep(plus) == Rep.INT)
+            return generateUnboxedArithmetic(plus.left, plus.right, "add");
+
+        return generateBoxedArithmetic(plus.left, plus.right, "add");
     }
 
     @Override
     public ST visit(Minus minus) {
-        return templates.getInstanceOf("arithmeticOp")
-                .add("e1", minus.left.accept(this))
-                .add("e2", minus.right.accept(this))
-                .add("x", "sub");
+        if (rep(minus) == Rep.INT)
+            return generateUnboxedArithmetic(minus.left, minus.right, "sub");
+
+        return generateBoxedArithmetic(minus.left, minus.right, "sub");
     }
 
     @Override
     public ST visit(Mult mult) {
-        return templates.getInstanceOf("arithmeticOp")
-                .add("e1", mult.left.accept(this))
-                .add("e2", mult.right.accept(this))
-                .add("x", "mul");
+        if (rep(mult) == Rep.INT)
+            return generateUnboxedArithmetic(mult.left, mult.right, "mul");
+
+        return generateBoxedArithmetic(mult.left, mult.right, "mul");
     }
 
     @Override
     public ST visit(Div div) {
+        if (rep(div) == Rep.INT)
+            return generateUnboxedArithmetic(div.left, div.right, "div");
+
+        return generateBoxedArithmetic(div.left, div.right, "div");
+    }
+
+    // Rezultatul este un obiect Int nou sau, cu -intcache, unul din tabela int_cache.
+    private ST generateBoxedArithmetic(Expression left, Expression right, java.lang.String instruction) {
+        if (context.options.intCache) {
+            return templates.getInstanceOf("cachedArithmeticOp")
+                    .add("e1", left.accept(this))
+                    .add("e2", right.accept(this))
+                    .add("x", instruction)
+                    .add("int", cachedInt());
+        }
+
         return templates.getInstanceOf("arithmeticOp")
-                .add("e1", div.left.accept(this))
-                .add("e2", div.right.accept(this))
-                .add("x", "div");
+                .add("e1", left.accept(this))
+                .add("e2", right.accept(this))
+                .add("x", instruction);
+    }
+
+    private ST generateUnboxedArithmetic(Expression left, Expression right, java.lang.String instruction) {
+        return templates.getInstanceOf("unboxedBinaryOp")
+                .add("e1", generate(left, Rep.INT))
+                .add("e2", generate(right, Rep.INT))
+                .add("x", instruction);
     }
 
     @Override
     public ST visit(Negate negate) {
+        if (rep(negate) == Rep.INT) {
+            return templates.getInstanceOf("unboxedNegateOp")
+                    .add("e", generate(negate.expr, Rep.INT));
+        }
+
+        if (context.options.intCache) {
+            return templates.getInstanceOf("cachedNegateOp")
+                    .add("e", negate.expr.accept(this))
+                    .add("int", cachedInt());
+        }
+
         return templates.getInstanceOf("negateOp")
                 .add("e", negate.expr.accept(this));
     }
 
+    // Metoda apelată de dispatch, dacă este cunoscută la compilare (cu -devirtualize),
+    // altfel null. Dispatch-ul static apelează mereu metoda din tabela clasei
+    // date, iar cel dinamic poate fi legat direct dacă nicio subclasă a tipului
+    // static al instanței nu suprascrie metoda (class hierarchy analysis).
+    MethodSymbol directTarget(Dispatch dispatch) {
+        return directTarget(dispatch, currentClass);
+    }
+
+    // selfClass este clasa obiectului self în locul în care apare dispatch-ul
+    // (diferită de clasa curentă în corpul unei metode expandate inline).
+    MethodSymbol directTarget(Dispatch dispatch, ClassSymbol selfClass) {
+        dispatchCount++;
+        if (!context.options.devirtualize)
+            return null;
+
+        var method = monomorphicTarget(dispatch, selfClass);
+        if (method != null)
+            directDispatchCount++;
+
+        return method;
+    }
+
+    MethodSymbol monomorphicTarget(Dispatch dispatch, ClassSymbol selfClass) {
+        var index = dispatch.id.getSymbol().getIndex();
+        if (dispatch.type != null)
+            return dispatch.type.getSymbol().getVMTable().get(index);
+        if (dispatch.instance != null)
+            return dispatch.instance.getStaticType().getUniqueImplementation(index);
+
+        return selfClass.getUniqueImplementation(index);
+    }
+
+    // Caută receiver-ii care nu pot fi void în expresie (cu -nonvoid).
+    void analyzeVoidChecks(Expression expr) {
+        if (context.options.nonVoid)
+            ASTNonVoidAnalysisVisitor.analyze(expr, nonVoidReceivers);
+    }
+
+    // Receiver-ul dispatch-ului trebuie verificat înainte de apel.
+    boolean needsVoidCheck(Dispatch dispatch) {
+        voidCheckCount++;
+        if (!nonVoidReceivers.contains(dispatch))
+            return true;
+
+        omittedVoidCheckCount++;
+        return false;
+    }
+
+    ClassSymbol getCurrentClass() {
+        return currentClass;
+    }
+
+    // Găsește dispatch-urile din pozițiile de coadă ale corpului metodei
+    // (-tailcalls): valoarea lor este chiar valoarea întoarsă de metodă.
+    void analyzeTailCalls(MethodDef methodDef) {
+        currentMethodDef = methodDef;
+        tailDispatches.clear();
+
+        if (context.options.tailCalls)
+            collectTailCalls(methodDef.body);
+    }
+
+    // Corpul unei metode este în poziție de coadă, iar ramurile unui if / case,
+    // ultima expresie a unui block și corpul unui let moștenesc poziția.
+    private void collectTailCalls(Expression expr) {
+        if (expr instanceof Dispatch) {
+            tailDispatches.add((Dispatch)expr);
+        } else if (expr instanceof If) {
+            collectTailCalls(((If)expr).thenBranch);
+            collectTailCalls(((If)expr).elseBranch);
+        } else if (expr instanceof Block) {
+            var exprs = ((Block)expr).exprs;
+            collectTailCalls(exprs.get(exprs.size() - 1));
+        } else if (expr instanceof Let) {
+            collectTailCalls(((Let)expr).body);
+        } else if (expr instanceof Case) {
+            for (var caseTest : ((Case)expr).caseTests)
+                collectTailCalls(caseTest.body);
+        }
+    }
+
+    // Dispatch-ul poate fi transformat într-un salt: este în poziție de coadă, iar
+    // metoda apelată primește tot atâtea argumente câți parametri are metoda
+    // curentă, deci argumentele pot lua locul parametrilor pe stivă.
+    boolean isTailCall(Dispatch dispatch) {
+        return tailDispatches.contains(dispatch) && dispatch.args.size() == currentMethodDef.formals.size();
+    }
+
+    // Apel în poziție de coadă către metoda curentă, care devine un salt la
+    // începutul corpului ei.
+    boolean isSelfTailCall(Dispatch dispatch, ClassSymbol selfClass) {
+        return isTailCall(dispatch) && monomorphicTarget(dispatch, selfClass) == currentMethodDef.id.getSymbol();
+    }
+
+    // Corpul metodei curente conține apeluri recursive în poziție de coadă.
+    boolean hasSelfTailCalls() {
+        return tailDispatches.stream().anyMatch(x -> isSelfTailCall(x, currentClass));
+    }
+
+    // Reține apelul transformat în salt, pentru raportul -tailreport.
+    void recordTailCall(Dispatch dispatch, MethodSymbol target, boolean selfRecursive) {
+        java.lang.String callee;
+        if (target != null) {
+            callee = target.getFullName();
+        } else {
+            var staticType = (dispatch.type != null) ? dispatch.type.getSymbol()
+                    : (dispatch.instance != null) ? dispatch.instance.getStaticType().getActualType() : currentClass;
+            callee = staticType.getName() + "." + dispatch.id.getToken().getText();
+        }
+
+        if (selfRecursive)
+            selfTailCallCount++;
+
+        tailCallSites.add(currentFileName + ":" + dispatch.getToken().getLine() + ": "
+                + ((MethodSymbol)currentMethodDef.id.getSymbol()).getFullName() + " -> " + callee
+                + (selfRecursive ? " (loop)" : " (frame reused)"));
+    }
+
+    // Argumentele puse pe stivă de dispatch sunt copiate peste parametrii formali
+    // ai metodei curente, după ce au fost evaluate toate.
+    private List<ST> tailArguments(Dispatch dispatch) {
+        var args = new ArrayList<ST>();
+        for (int i = 0; i < dispatch.args.size(); i++)
+            args.add(templates.getInstanceOf("tailArgument")
+                    .add("from", MIPS_WORD_SIZE * (i + 1))
+                    .add("to", MIPS_WORD_SIZE * (i + MIPS_NUM_WORDS_UNTIL_FIRST_FORMAL_FROM_FP)));
+
+        return args.isEmpty() ? null : args;
+    }
+
     @Override
     public ST visit(Dispatch dispatch) {
+        var direct = directTarget(dispatch);
         var st = templates.getInstanceOf("dispatch")
+                .add("direct", (direct == null) ? null : direct.getFullName())
                 .add("static", (dispatch.type == null) ? null : dispatch.type.getSymbol().getName())
                 .add("offset", MIPS_WORD_SIZE * dispatch.id.getSymbol().getIndex())
-                .add("uniq", uniqCounter++)
-                .add("filekId", defineConstant(currentFileName))
+                .add("uniq", nextUniq())
                 .add("line", dispatch.getToken().getLine());
 
+        if (needsVoidCheck(dispatch))
+            st.add("filekId", constant(currentFileName));
+        else
+            st.add("nonVoid", true);
+
         for (int i = dispatch.args.size() - 1; i >= 0; i--) {
-            st.add("args", dispatch.args.get(i).accept(this));
+            st.add("args", generate(dispatch.args.get(i), Rep.BOXED));
         }
 
         if (dispatch.instance != null)
-            st.add("instance", dispatch.instance.accept(this));
+            st.add("instance", generate(dispatch.instance, Rep.BOXED));
         else
             st.add("instance", templates.getInstanceOf("loadSelf"));
 
-        return st;
+        // Un apel recursiv în poziție de coadă sare la începutul metodei, iar
+        // celelalte apeluri în poziție de coadă refolosesc cadrul metodei curente.
+        if (isSelfTailCall(dispatch, currentClass)) {
+            recordTailCall(dispatch, (MethodSymbol)currentMethodDef.id.getSymbol(), true);
+            return st.add("tailCall", templates.getInstanceOf("selfTailCall")
+                    .add("args", tailArguments(dispatch))
+                    .add("argsSize", MIPS_WORD_SIZE * dispatch.args.size())
+                    .add("uniq", tailUniq));
+        }
+
+        if (isTailCall(dispatch)) {
+            recordTailCall(dispatch, direct, false);
+            return st.add("tailCall", templates.getInstanceOf("tailCall")
+                    .add("args", tailArguments(dispatch))
+                    .add("direct", (direct == null) ? null : direct.getFullName())
+                    .add("static", (dispatch.type == null) ? null : dispatch.type.getSymbol().getName())
+                    .add("offset", MIPS_WORD_SIZE * dispatch.id.getSymbol().getIndex()));
+        }
+
+        if (sharesIntResult(dispatch) && rep(dispatch) == Rep.BOXED) {
+            var uniq = nextUniq();
+            return templates.getInstanceOf("sharedInt")
+                    .add("e", st)
+                    .add("lookup", intCacheLookup(uniq))
+                    .add("uniq", uniq);
+        }
+
+        return convert(st, Rep.BOXED, rep(dispatch));
     }
 
     @Override
     public ST visit(AttributeDef attributeDef) {
+        if (attributeDef.initValue != null)
+            analyzeVoidChecks(attributeDef.initValue);
+
         return generateAssignmentCode(attributeDef.id, attributeDef.initValue, false);
     }
 
     @Override
     public ST visit(MethodDef methodDef) {
+        analyzeVoidChecks(methodDef.body);
+        analyzeTailCalls(methodDef);
+
+        // Cu -ir, corpul metodei trece prin codul intermediar și alocatorul de registre.
+        if (context.options.ir) {
+            var code = ASTLoweringVisitor.lower(this, methodDef).emit();
+            return templates.getInstanceOf("sequence")
+                    .add("e", (peephole == null) ? code : optimizeRoutine(() -> code));
+        }
+
         MethodSymbol sym = (MethodSymbol) methodDef.id.getSymbol();
         int stackForLocals = sym.getTotalLocalDefs() * MIPS_WORD_SIZE;
 
-        return templates.getInstanceOf("userRoutine")
+        // Label-ul de după alocarea cadrului, la care sar apelurile recursive.
+        tailUniq = hasSelfTailCalls() ? nextUniq() : null;
+
+        return optimizeRoutine(templates.getInstanceOf("userRoutine")
                 .add("name", sym.getFullName())
-                .add("code", methodDef.body.accept(this))
+                .add("tailUniq", tailUniq)
+                .add("code", generate(methodDef.body, Rep.BOXED))
                 .add("locals", (stackForLocals == 0) ? null : stackForLocals)
-                .add("stackFixup", (methodDef.formals.size() + MIPS_NUM_WORDS_UNTIL_FIRST_FORMAL_FROM_FP) * MIPS_WORD_SIZE);
+                .add("stackFixup", (methodDef.formals.size() + MIPS_NUM_WORDS_UNTIL_FIRST_FORMAL_FROM_FP) * MIPS_WORD_SIZE));
     }
 
     @Override
     public ST visit(ClassDef class_) {
         var sym = class_.type.getSymbol();
 
-        currentFileName = new File(Compiler.fileNames.get(class_.getParserRuleContext())).getName();
+        currentClass = sym;
+        currentFileName = new File(context.fileNames.get(class_.getToken().getFileId())).getName();
 
         // Creez codul aferent rutinei de inițializare
         var initRoutine = templates.getInstanceOf("initRoutine")
                 .add("class", sym.getName())
                 .add("parentClass", sym.getParent());
 
+        // Clasele eliminate (-dce) nu au rutină de inițializare, dar pot avea
+        // metode apelate direct.
+        var kept = reachability == null || reachability.isKept(sym);
+
         // Zona în care este inserat codul generat depinde de tipul de cod
         for (var feat : class_.features) {
+            if (reachability != null && (feat instanceof AttributeDef ? !kept
+                    : !reachability.isReachable((MethodSymbol)((MethodDef)feat).id.getSymbol())))
+                continue;
+
             var st = feat.accept(this);
 
             if (feat instanceof AttributeDef) {
@@ -549,14 +1525,141 @@ public class ASTCodeGenPassVisitor extends ASTDefaultVisitor<ST> {
             }
             else {
                 // Pentru metode, se pune în zona de rutine generate de utilizator
-                classUserRoutinesSection.add("e", st);
+                if (unit != null)
+                    unit.userRoutines.add(st);
+                else
+                    classUserRoutinesSection.add(st);
             }
         }
 
-        classInitRoutinesSection.add("e", initRoutine);
+        if (!kept)
+            return null;
+
+        if (unit != null)
+            unit.initRoutine = optimizeRoutine(initRoutine);
+        else
+            classInitRoutinesSection.add(optimizeRoutine(initRoutine));
         return null;
     }
 
+    // Rutina generată din template-uri, optimizată peephole (-peephole).
+    private ST optimizeRoutine(ST routine) {
+        if (peephole == null)
+            return routine;
+
+        return templates.getInstanceOf("sequence")
+                .add("e", optimizeRoutine(() -> MipsInstruction.parse(routine.render())));
+    }
+
+    // Optimizarea are loc abia la randare, când label-urile și constantele
+    // claselor generate în paralel au primit valorile finale.
+    private Object optimizeRoutine(Supplier<List<MipsInstruction>> code) {
+        return new Object() {
+            @Override
+            public java.lang.String toString() {
+                return peephole.optimize(code.get()).stream()
+                        .map(Object::toString)
+                        .collect(Collectors.joining("\n"));
+            }
+        };
+    }
+
+    // Generează clasele pe mai multe fire de execuție. Generarea și randarea unei
+    // clase rulează în paralel, iar unificarea și scrierea în secțiunile de rutine
+    // se fac pe firul curent, în ordinea claselor. Cel mult window clase sunt
+    // procesate în avans, pentru a limita memoria ocupată.
+    private void generateClasses(List<ClassDef> classes, int jobs) {
+        var pool = Executors.newFixedThreadPool(jobs);
+        var window = 2 * jobs;
+
+        var generated = new ArrayDeque<Future<ClassUnit>>();
+        var rendered = new ArrayDeque<Future<ClassUnit>>();
+        int nextClass = 0;
+
+        try {
+            for (int i = 0; i < classes.size(); i++) {
+                while (nextClass < classes.size() && nextClass - i < window) {
+                    var unit = new ClassUnit(classes.get(nextClass++));
+                    generated.add(pool.submit(() -> {
+                        var visitor = new ASTCodeGenPassVisitor(context, unit, methodDefs, reachability, peephole);
+                        unit.class_.accept(visitor);
+                        unit.labelCount = visitor.uniqCounter;
+                        unit.dispatchCount = visitor.dispatchCount;
+                        unit.directDispatchCount = visitor.directDispatchCount;
+                        unit.inlinedCount = visitor.inlinedCount;
+                        unit.voidCheckCount = visitor.voidCheckCount;
+                        unit.omittedVoidCheckCount = visitor.omittedVoidCheckCount;
+                        unit.selfTailCallCount = visitor.selfTailCallCount;
+                        unit.tailCallSites.addAll(visitor.tailCallSites);
+                        return unit;
+                    }));
+                }
+
+                var unit = generated.remove().get();
+                resolve(unit);
+                rendered.add(pool.submit(() -> {
+                    unit.render();
+                    return unit;
+                }));
+
+                while (!rendered.isEmpty() && (rendered.element().isDone() || rendered.size() > window))
+                    writeRoutines(rendered.remove().get());
+            }
+
+            while (!rendered.isEmpty())
+                writeRoutines(rendered.remove().get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while generating code", e);
+        } catch (ExecutionException e) {
+            var cause = e.getCause();
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException)cause;
+            if (cause instanceof Error)
+                throw (Error)cause;
+
+            throw new IllegalStateException(cause);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // Fixează label-urile și constantele clasei, ca și cum ar fi fost generată secvențial.
+    private void resolve(ClassUnit unit) {
+        unit.labelBase = uniqCounter;
+        uniqCounter += unit.labelCount;
+        dispatchCount += unit.dispatchCount;
+        directDispatchCount += unit.directDispatchCount;
+        inlinedCount += unit.inlinedCount;
+        voidCheckCount += unit.voidCheckCount;
+        omittedVoidCheckCount += unit.omittedVoidCheckCount;
+        selfTailCallCount += unit.selfTailCallCount;
+        tailCallSites.addAll(unit.tailCallSites);
+
+        unit.konstants.forEach((konstant, ref) -> ref.id = defineConstantValue(konstant));
+        jumpTables.addAll(unit.jumpTables);
+    }
+
+    private void writeRoutines(ClassUnit unit) {
+        unit.renderedUserRoutines.forEach(classUserRoutinesSection::add);
+        if (unit.renderedInitRoutine != null)
+            classInitRoutinesSection.add(unit.renderedInitRoutine);
+    }
+
+    // Obiectele Int partajate (-intcache), câte unul pentru fiecare valoare din
+    // interval, în ordine. Fiecare ocupă 16 bytes, ca obiectele din kPool.
+    private List<ST> createIntCache() {
+        getIntCacheOffset(); // verifică intervalul înainte de a crea intrările
+
+        var entries = new ArrayList<ST>();
+        for (long value = context.options.intCacheMin; value <= context.options.intCacheMax; value++)
+            entries.add(templates.getInstanceOf("intCacheEntry")
+                    .add("intTag", symbolTable.INT.getTag())
+                    .add("int", value));
+
+        return entries;
+    }
+
     @Override
     public ST visit(Program program) {
         kStringSection = templates.getInstanceOf("sequence");
@@ -568,14 +1671,6 @@ public class ASTCodeGenPassVisitor extends ASTDefaultVisitor<ST> {
         classPrototypeObjectsSection = templates.getInstanceOf("sequence");
         classDispTablesSection = templates.getInstanceOf("sequence");
 
-        classInitRoutinesSection = templates.getInstanceOf("sequence");
-        classUserRoutinesSection = templates.getInstanceOf("sequence");
-
-        // Este nevoie de două treceri prin ierarhia de clase:
-
-        // În primă etapă se asignează etichete tuturor claselor.
-        assignClassTagIds(ActualClassSymbol.OBJECT);
-
         // Aceste constante sunt cerute explicit de runtime (ordinea contează)
         defineConstant(false);
         defineConstant(true);
@@ -584,15 +1679,63 @@ public class ASTCodeGenPassVisitor extends ASTDefaultVisitor<ST> {
         defineConstant(0);
         defineConstant("");
 
-        createClassLayout(ActualClassSymbol.OBJECT);
+        var classes = program.classes;
+        if (context.options.dce) {
+            reachability = ASTReachabilityAnalysisVisitor.analyze(this, program);
+            if (reachability != null)
+                classes = classes.stream().filter(reachability::hasCode).collect(Collectors.toList());
+        }
+
+        createClassLayout(symbolTable.OBJECT);
+
+        if (context.options.inline) {
+            for (var class_ : program.classes) {
+                for (var feat : class_.features) {
+                    if (feat instanceof MethodDef)
+                        methodDefs.put((MethodSymbol)((MethodDef)feat).id.getSymbol(), (MethodDef)feat);
+                }
+            }
+        }
+
+        var jobs = context.options.getJobs();
+        if (jobs <= 1 || classes.size() <= 1)
+            classes.forEach(x -> x.accept(this));
+        else
+            generateClasses(classes, jobs);
+
+        if (context.options.stats) {
+            if (devirtualizes())
+                context.err.println("Devirtualization: " + directDispatchCount + " of " + dispatchCount
+                        + " dispatch(es) call the method directly");
+            if (context.options.inline)
+                context.err.println("Inlining: " + inlinedCount + " call(s) replaced by the method body");
+            if (context.options.nonVoid)
+                context.err.println("Void checks: " + omittedVoidCheckCount + " of " + voidCheckCount
+                        + " dispatch receiver(s) proven non-void");
+            if (reachability != null)
+                context.err.println("Dead code: " + (reachability.getClassCount() - reachability.getKeptClassCount())
+                        + " of " + reachability.getClassCount() + " class(es) and "
+                        + (reachability.getMethodCount() - reachability.getReachableMethodCount())
+                        + " of " + reachability.getMethodCount() + " method(s) removed");
+            if (context.options.tailCalls)
+                context.err.println("Tail calls: " + tailCallSites.size() + " call(s) replaced by jumps ("
+                        + selfTailCallCount + " self-recursive)");
+            if (peephole != null)
+                context.err.println("Peephole: " + peephole.getRemovedCount() + " instruction(s) removed ("
+                        + peephole.getApplications().entrySet().stream()
+                                .map(e -> e.getKey() + " " + e.getValue())
+                                .collect(Collectors.joining(", ")) + ")");
+        }
 
-        program.classes.forEach(x -> x.accept(this));
+        if (context.options.tailCallReport)
+            tailCallSites.forEach(context.err::println);
 
         // assembly-ing it all together. HA! get it?
-        return templates.getInstanceOf("program")
-                .add("tagInt", ActualClassSymbol.INT.getTag())
-                .add("tagString", ActualClassSymbol.STRING.getTag())
-                .add("tagBool", ActualClassSymbol.BOOL.getTag())
+        // (rutinele sunt deja scrise, vezi generate)
+        return templates.getInstanceOf("programHeader")
+                .add("tagInt", symbolTable.INT.getTag())
+                .add("tagString", symbolTable.STRING.getTag())
+                .add("tagBool", symbolTable.BOOL.getTag())
                 .add("kStrings", kStringSection)
                 .add("kInts", kIntSection)
                 .add("kBools", kBoolSection)
@@ -600,7 +1743,7 @@ public class ASTCodeGenPassVisitor extends ASTDefaultVisitor<ST> {
                 .add("objTab", classObjectsSection)
                 .add("objPrototypes", classPrototypeObjectsSection)
                 .add("objDispTables", classDispTablesSection)
-                .add("initRoutines", classInitRoutinesSection)
-                .add("userRoutines", classUserRoutinesSection);
+                .add("jumpTables", jumpTables.isEmpty() ? null : jumpTables)
+                .add("intCache", context.options.intCache ? createIntCache() : null);
     }
 }
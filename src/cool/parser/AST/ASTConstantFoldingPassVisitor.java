@@ -0,0 +1,340 @@
+package cool.parser.AST;
+
+import cool.compiler.CompilationContext;
+import cool.parser.CoolParser;
+import cool.structures.IdSymbol;
+import cool.structures.SymbolTable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+// Trecere opțională (-fold), între verificarea tipurilor și generarea de cod,
+// care evaluează la compilare expresiile constante: operațiile aritmetice,
+// comparațiile și negațiile cu operanzi literali devin literali, iar un if cu
+// condiție constantă este înlocuit cu ramura aleasă. Variabilele din let
+// inițializate cu un literal și neatribuite niciodată sunt înlocuite cu acesta.
+// Condiția unui while este doar simplificată; bucla cu condiție constantă este
+// tratată de generatorul de cod.
+//
+// Fiecare visit întoarce expresia care înlocuiește nodul vizitat. Operațiile
+// care ar eșua la execuție (împărțirea la 0, depășirile) rămân neevaluate.
+public class ASTConstantFoldingPassVisitor extends ASTDefaultVisitor<Expression> {
+    private final SymbolTable symbolTable;
+
+    // Variabilele atribuite în metoda curentă și valorile variabilelor constante.
+    private Set<IdSymbol> assigned = Set.of();
+    private final Map<IdSymbol, Expression> constants = new HashMap<>();
+
+    private int foldCount = 0;
+
+    public ASTConstantFoldingPassVisitor(CompilationContext context) {
+        this.symbolTable = context.symbolTable;
+    }
+
+    // Numărul de expresii evaluate la compilare.
+    public int getFoldCount() {
+        return foldCount;
+    }
+
+    private static boolean isLiteral(Expression expr) {
+        return expr instanceof Int || expr instanceof Bool || expr instanceof String;
+    }
+
+    private static Integer intValue(Expression expr) {
+        return (expr instanceof Int) ? Integer.parseInt(expr.getToken().getText()) : null;
+    }
+
+    private static Boolean boolValue(Expression expr) {
+        return (expr instanceof Bool) ? Boolean.parseBoolean(expr.getToken().getText()) : null;
+    }
+
+    // Literalul cu textul dat, pe poziția expresiei pe care o înlocuiește.
+    private SourceToken literalToken(Expression origin, int type, java.lang.String text) {
+        var token = origin.getToken();
+        return new SourceToken(token.getFileId(), token.getLine(), token.getCharPositionInLine(), type, text, -1);
+    }
+
+    private Expression fold(Expression origin, int value) {
+        var literal = new Int(literalToken(origin, CoolParser.INT, Integer.toString(value)));
+        literal.setStaticType(symbolTable.INT);
+        foldCount++;
+        return literal;
+    }
+
+    private Expression fold(Expression origin, boolean value) {
+        var literal = new Bool(literalToken(origin, CoolParser.BOOL, Boolean.toString(value)));
+        literal.setStaticType(symbolTable.BOOL);
+        foldCount++;
+        return literal;
+    }
+
+    // O copie a literalului, pentru o utilizare a unei variabile constante.
+    private Expression copy(Expression literal, Id use) {
+        var token = literalToken(use, literal.getToken().getType(), literal.getToken().getText());
+        Expression copy;
+        if (literal instanceof Int)
+            copy = new Int(token);
+        else if (literal instanceof Bool)
+            copy = new Bool(token);
+        else
+            copy = new String(token);
+
+        copy.setStaticType(literal.getStaticType());
+        foldCount++;
+        return copy;
+    }
+
+    @Override
+    public Expression visit(MethodDef methodDef) {
+        assigned = ASTNonVoidAnalysisVisitor.AssignedVariables.of(methodDef.body);
+        methodDef.body = methodDef.body.accept(this);
+        constants.clear();
+        return null;
+    }
+
+    @Override
+    public Expression visit(AttributeDef attributeDef) {
+        if (attributeDef.initValue != null) {
+            assigned = ASTNonVoidAnalysisVisitor.AssignedVariables.of(attributeDef.initValue);
+            attributeDef.initValue = attributeDef.initValue.accept(this);
+            constants.clear();
+        }
+
+        return null;
+    }
+
+    @Override
+    public Expression visit(Id id) {
+        var value = constants.get(id.getSymbol());
+        return (value == null) ? id : copy(value, id);
+    }
+
+    @Override
+    public Expression visit(Int int_) {
+        return int_;
+    }
+
+    @Override
+    public Expression visit(String string) {
+        return string;
+    }
+
+    @Override
+    public Expression visit(Bool bool_) {
+        return bool_;
+    }
+
+    @Override
+    public Expression visit(If if_) {
+        if_.cond = if_.cond.accept(this);
+        if_.thenBranch = if_.thenBranch.accept(this);
+        if_.elseBranch = if_.elseBranch.accept(this);
+
+        var cond = boolValue(if_.cond);
+        if (cond == null)
+            return if_;
+
+        foldCount++;
+        return cond ? if_.thenBranch : if_.elseBranch;
+    }
+
+    @Override
+    public Expression visit(While while_) {
+        while_.cond = while_.cond.accept(this);
+        while_.body = while_.body.accept(this);
+        return while_;
+    }
+
+    @Override
+    public Expression visit(Block block) {
+        var exprs = new ArrayList<Expression>(block.exprs.size());
+        var last = block.exprs.size() - 1;
+
+        for (int i = 0; i <= last; i++) {
+            var expr = block.exprs.get(i).accept(this);
+
+            // Valoarea unui literal dinaintea ultimei expresii nu este folosită.
+            if (i == last || !isLiteral(expr))
+                exprs.add(expr);
+        }
+
+        if (exprs.size() == 1)
+            return exprs.get(0);
+
+        block.exprs = exprs;
+        return block;
+    }
+
+    @Override
+    public Expression visit(Let let) {
+        for (var localDef : let.vars) {
+            if (localDef.initValue == null)
+                continue;
+
+            localDef.initValue = localDef.initValue.accept(this);
+
+            var sym = localDef.id.getSymbol();
+            if (isLiteral(localDef.initValue) && !assigned.contains(sym))
+                constants.put(sym, localDef.initValue);
+        }
+
+        let.body = let.body.accept(this);
+        return let;
+    }
+
+    @Override
+    public Expression visit(Case case_) {
+        case_.instance = case_.instance.accept(this);
+        for (var caseTest : case_.caseTests)
+            caseTest.body = caseTest.body.accept(this);
+
+        return case_;
+    }
+
+    @Override
+    public Expression visit(New new_) {
+        return new_;
+    }
+
+    @Override
+    public Expression visit(IsVoid isVoid) {
+        isVoid.instance = isVoid.instance.accept(this);
+
+        // Un literal nu este void, iar evaluarea lui nu are efecte.
+        if (isLiteral(isVoid.instance))
+            return fold(isVoid, false);
+
+        return isVoid;
+    }
+
+    @Override
+    public Expression visit(Assign assign) {
+        assign.expr = assign.expr.accept(this);
+        return assign;
+    }
+
+    @Override
+    public Expression visit(Relational rel) {
+        rel.left = rel.left.accept(this);
+        rel.right = rel.right.accept(this);
+
+        var operator = rel.getToken().getType();
+        var left = intValue(rel.left);
+        var right = intValue(rel.right);
+
+        if (left != null && right != null) {
+            return switch (operator) {
+                case CoolParser.LT -> fold(rel, left < right);
+                case CoolParser.LE -> fold(rel, left <= right);
+                default -> fold(rel, left.equals(right));
+            };
+        }
+
+        if (operator != CoolParser.EQUAL)
+            return rel;
+
+        var leftBool = boolValue(rel.left);
+        var rightBool = boolValue(rel.right);
+        if (leftBool != null && rightBool != null)
+            return fold(rel, leftBool.equals(rightBool));
+
+        if (rel.left instanceof String && rel.right instanceof String)
+            return fold(rel, rel.left.getToken().getText().equals(rel.right.getToken().getText()));
+
+        return rel;
+    }
+
+    @Override
+    public Expression visit(Not not) {
+        not.expr = not.expr.accept(this);
+
+        var value = boolValue(not.expr);
+        return (value == null) ? not : fold(not, !value);
+    }
+
+    @Override
+    public Expression visit(Plus plus) {
+        plus.left = plus.left.accept(this);
+        plus.right = plus.right.accept(this);
+
+        var left = intValue(plus.left);
+        var right = intValue(plus.right);
+        if (left == null || right == null)
+            return plus;
+
+        try {
+            return fold(plus, Math.addExact(left, right));
+        } catch (ArithmeticException e) {
+            return plus;
+        }
+    }
+
+    @Override
+    public Expression visit(Minus minus) {
+        minus.left = minus.left.accept(this);
+        minus.right = minus.right.accept(this);
+
+        var left = intValue(minus.left);
+        var right = intValue(minus.right);
+        if (left == null || right == null)
+            return minus;
+
+        try {
+            return fold(minus, Math.subtractExact(left, right));
+        } catch (ArithmeticException e) {
+            return minus;
+        }
+    }
+
+    @Override
+    public Expression visit(Mult mult) {
+        mult.left = mult.left.accept(this);
+        mult.right = mult.right.accept(this);
+
+        var left = intValue(mult.left);
+        var right = intValue(mult.right);
+        if (left == null || right == null)
+            return mult;
+
+        try {
+            return fold(mult, Math.multiplyExact(left, right));
+        } catch (ArithmeticException e) {
+            return mult;
+        }
+    }
+
+    @Override
+    public Expression visit(Div div) {
+        div.left = div.left.accept(this);
+        div.right = div.right.accept(this);
+
+        var left = intValue(div.left);
+        var right = intValue(div.right);
+        if (left == null || right == null || right == 0 || left == Integer.MIN_VALUE && right == -1)
+            return div;
+
+        return fold(div, left / right);
+    }
+
+    @Override
+    public Expression visit(Negate negate) {
+        negate.expr = negate.expr.accept(this);
+
+        var value = intValue(negate.expr);
+        if (value == null || value == Integer.MIN_VALUE)
+            return negate;
+
+        return fold(negate, -value);
+    }
+
+    @Override
+    public Expression visit(Dispatch dispatch) {
+        if (dispatch.instance != null)
+            dispatch.instance = dispatch.instance.accept(this);
+
+        dispatch.args.replaceAll(arg -> arg.accept(this));
+        return dispatch;
+    }
+}
@@ -2,28 +2,46 @@ package cool.parser.AST;
 
 import cool.parser.CoolParser;
 import cool.parser.CoolParserBaseVisitor;
+import cool.structures.NameTable;
+import org.antlr.v4.runtime.Token;
 
+import java.util.List;
 import java.util.stream.Collectors;
 
 public class ASTConstructionVisitor extends CoolParserBaseVisitor<ASTNode> {
+    // Indexul fișierului din care provine arborele de derivare vizitat.
+    private final int fileId;
+
+    // Numele identificatorilor și tipurilor sunt internate aici.
+    private final NameTable names;
+
+    public ASTConstructionVisitor(int fileId, NameTable names) {
+        this.fileId = fileId;
+        this.names = names;
+    }
+
+    private SourceToken token(Token token) {
+        return new SourceToken(fileId, token, names);
+    }
+
     @Override
     public ASTNode visitId(CoolParser.IdContext ctx) {
-        return new Id(ctx, ctx.ID().getSymbol());
+        return new Id(token(ctx.ID().getSymbol()));
     }
 
     @Override
     public ASTNode visitInt(CoolParser.IntContext ctx) {
-        return new Int(ctx, ctx.INT().getSymbol());
+        return new Int(token(ctx.INT().getSymbol()));
     }
 
     @Override
     public ASTNode visitString(CoolParser.StringContext ctx) {
-        return new String(ctx, ctx.STRING().getSymbol());
+        return new String(token(ctx.STRING().getSymbol()));
     }
 
     @Override
     public ASTNode visitBool(CoolParser.BoolContext ctx) {
-        return new Bool(ctx, ctx.BOOL().getSymbol());
+        return new Bool(token(ctx.BOOL().getSymbol()));
     }
 
     @Override
@@ -31,24 +49,21 @@ public class ASTConstructionVisitor extends CoolParserBaseVisitor<ASTNode> {
         return new If((Expression)visit(ctx.cond),
                       (Expression)visit(ctx.thenBranch),
                       (Expression)visit(ctx.elseBranch),
-                      ctx,
-                      ctx.start);
+                      token(ctx.start));
     }
 
     @Override
     public ASTNode visitWhile(CoolParser.WhileContext ctx) {
         return new While((Expression)visit(ctx.cond),
                          (Expression)visit(ctx.body),
-                         ctx,
-                         ctx.start);
+                         token(ctx.start));
     }
 
     @Override
     public ASTNode visitBlock(CoolParser.BlockContext ctx) {
         var exprs = ctx.exprs.stream().map(x -> (Expression)visit(x)).collect(Collectors.toList());
         return new Block(exprs,
-                         ctx,
-                         ctx.start);
+                         token(ctx.start));
     }
 
     @Override
@@ -56,17 +71,15 @@ public class ASTConstructionVisitor extends CoolParserBaseVisitor<ASTNode> {
         var vars = ctx.vars.stream().map(x -> (LocalDef)visit(x)).collect(Collectors.toList());
         return new Let(vars,
                        (Expression)visit(ctx.body),
-                       ctx,
-                       ctx.start);
+                       token(ctx.start));
     }
 
     @Override
     public ASTNode visitCaseTest(CoolParser.CaseTestContext ctx) {
-        return new CaseTest(new Id(ctx, ctx.name),
-                            new Type(ctx, ctx.type),
+        return new CaseTest(new Id(token(ctx.name)),
+                            new Type(token(ctx.type)),
                             (Expression)visit(ctx.body),
-                            ctx,
-                            ctx.start);
+                            token(ctx.start));
     }
 
     @Override
@@ -74,45 +87,39 @@ public class ASTConstructionVisitor extends CoolParserBaseVisitor<ASTNode> {
         var cases = ctx.cases.stream().map(x -> (CaseTest)visit(x)).collect(Collectors.toList());
         return new Case((Expression)visit(ctx.instance),
                         cases,
-                        ctx,
-                        ctx.start);
+                        token(ctx.start));
     }
 
     @Override
     public ASTNode visitNew(CoolParser.NewContext ctx) {
-        return new New(new Type(ctx, ctx.type),
-                       ctx,
-                       ctx.start);
+        return new New(new Type(token(ctx.type)),
+                       token(ctx.start));
     }
 
     @Override
     public ASTNode visitIsVoid(CoolParser.IsVoidContext ctx) {
         return new IsVoid((Expression)visit(ctx.instance),
-                          ctx,
-                          ctx.start);
+                          token(ctx.start));
     }
 
     @Override
     public ASTNode visitAssign(CoolParser.AssignContext ctx) {
-        return new Assign(new Id(ctx, ctx.name),
+        return new Assign(new Id(token(ctx.name)),
                           (Expression)visit(ctx.e),
-                          ctx,
-                          ctx.ASSIGN().getSymbol());
+                          token(ctx.ASSIGN().getSymbol()));
     }
 
     @Override
     public ASTNode visitRelational(CoolParser.RelationalContext ctx) {
         return new Relational((Expression)visit(ctx.left),
                               (Expression)visit(ctx.right),
-                              ctx,
-                              ctx.op);
+                              token(ctx.op));
     }
 
     @Override
     public ASTNode visitNot(CoolParser.NotContext ctx) {
         return new Not((Expression)visit(ctx.e),
-                       ctx,
-                       ctx.NOT().getSymbol());
+                       token(ctx.NOT().getSymbol()));
     }
 
     @Override
@@ -120,14 +127,12 @@ public class ASTConstructionVisitor extends CoolParserBaseVisitor<ASTNode> {
         if (ctx.op.getText().equals("+")) {
             return new Plus((Expression)visit(ctx.left),
                             (Expression)visit(ctx.right),
-                            ctx,
-                            ctx.op);
+                            token(ctx.op));
         }
         else if (ctx.op.getText().equals("-")) {
             return new Minus((Expression)visit(ctx.left),
                              (Expression)visit(ctx.right),
-                             ctx,
-                             ctx.op);
+                             token(ctx.op));
         } else {
             return null;
         }
@@ -138,14 +143,12 @@ public class ASTConstructionVisitor extends CoolParserBaseVisitor<ASTNode> {
         if (ctx.op.getText().equals("*")) {
             return new Mult((Expression)visit(ctx.left),
                             (Expression)visit(ctx.right),
-                            ctx,
-                            ctx.op);
+                            token(ctx.op));
         }
         else if (ctx.op.getText().equals("/")) {
             return new Div((Expression)visit(ctx.left),
                            (Expression)visit(ctx.right),
-                           ctx,
-                           ctx.op);
+                           token(ctx.op));
         } else {
             return null;
         }
@@ -154,8 +157,7 @@ public class ASTConstructionVisitor extends CoolParserBaseVisitor<ASTNode> {
     @Override
     public ASTNode visitNegate(CoolParser.NegateContext ctx) {
         return new Negate((Expression)visit(ctx.e),
-                          ctx,
-                          ctx.NEG().getSymbol());
+                          token(ctx.NEG().getSymbol()));
     }
 
     @Override
@@ -167,11 +169,10 @@ public class ASTConstructionVisitor extends CoolParserBaseVisitor<ASTNode> {
     public ASTNode visitExplicitDispatch(CoolParser.ExplicitDispatchContext ctx) {
         var args = ctx.args.stream().map(x -> (Expression)visit(x)).collect(Collectors.toList());
         return new Dispatch((Expression)visit(ctx.instance),
-                            ctx.type == null ? null : new Type(ctx, ctx.type),
-                            new Id(ctx, ctx.name),
+                            ctx.type == null ? null : new Type(token(ctx.type)),
+                            new Id(token(ctx.name)),
                             args,
-                            ctx,
-                            ctx.start);
+                            token(ctx.start));
     }
 
     @Override
@@ -179,34 +180,31 @@ public class ASTConstructionVisitor extends CoolParserBaseVisitor<ASTNode> {
         var args = ctx.args.stream().map(x -> (Expression)visit(x)).collect(Collectors.toList());
         return new Dispatch(null,
                             null,
-                            new Id(ctx, ctx.name),
+                            new Id(token(ctx.name)),
                             args,
-                            ctx,
-                            ctx.start);
+                            token(ctx.start));
     }
 
     @Override
     public ASTNode visitFormal(CoolParser.FormalContext ctx) {
-        return new Formal(new Type(ctx, ctx.type), new Id(ctx, ctx.name), ctx, ctx.start);
+        return new Formal(new Type(token(ctx.type)), new Id(token(ctx.name)), token(ctx.start));
     }
 
     @Override
     public ASTNode visitVariable(CoolParser.VariableContext ctx) {
-        return new LocalDef(new Type(ctx, ctx.type),
-                            new Id(ctx, ctx.name),
+        return new LocalDef(new Type(token(ctx.type)),
+                            new Id(token(ctx.name)),
                             ctx.init == null ? null : (Expression)visit(ctx.init),
-                            ctx,
-                            ctx.start
+                            token(ctx.start)
         );
     }
 
     @Override
     public ASTNode visitAttributeDef(CoolParser.AttributeDefContext ctx) {
-        return new AttributeDef(new Type(ctx, ctx.type),
-                                new Id(ctx, ctx.name),
+        return new AttributeDef(new Type(token(ctx.type)),
+                                new Id(token(ctx.name)),
                                 ctx.init == null ? null : (Expression)visit(ctx.init),
-                                ctx,
-                                ctx.start
+                                token(ctx.start)
         );
     }
 
@@ -214,29 +212,38 @@ public class ASTConstructionVisitor extends CoolParserBaseVisitor<ASTNode> {
     public ASTNode visitMethodDef(CoolParser.MethodDefContext ctx) {
         var formals = ctx.formals.stream().map(x -> (Formal)visit(x)).collect(Collectors.toList());
 
-        return new MethodDef(new Type(ctx, ctx.type),
-                             new Id(ctx, ctx.name),
+        return new MethodDef(new Type(token(ctx.type)),
+                             new Id(token(ctx.name)),
                              formals,
                              (Expression)visit(ctx.body),
-                             ctx,
-                             ctx.start
+                             token(ctx.start)
         );
     }
 
     @Override
     public ASTNode visitClass_(CoolParser.Class_Context ctx) {
         var features = ctx.features.stream().map(x -> (Feature)visit(x)).collect(Collectors.toList());
-        return new ClassDef(new Type(ctx, ctx.type),
-                            ctx.super_ == null ? null : new Type(ctx, ctx.super_),
+        return new ClassDef(new Type(token(ctx.type)),
+                            ctx.super_ == null ? null : new Type(token(ctx.super_)),
                             features,
-                            ctx,
-                            ctx.start
+                            token(ctx.start)
         );
     }
 
     @Override
     public ASTNode visitProgram(CoolParser.ProgramContext ctx) {
         var classes = ctx.classes.stream().map(x -> (ClassDef)visit(x)).collect(Collectors.toList());
-        return new Program(classes, ctx, ctx.start);
+        return new Program(classes, token(ctx.start));
+    }
+
+    // Unește programele construite separat pentru fiecare fișier de intrare
+    // într-un singur program, păstrând ordinea claselor.
+    public static ASTNode mergePrograms(List<ASTNode> programs) {
+        var first = (Program)programs.get(0);
+        var classes = programs.stream()
+                .flatMap(x -> ((Program)x).classes.stream())
+                .collect(Collectors.toList());
+
+        return new Program(classes, first.getToken());
     }
 }
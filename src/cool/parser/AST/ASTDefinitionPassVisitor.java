@@ -1,8 +1,15 @@
 package cool.parser.AST;
 
+import cool.compiler.CompilationContext;
 import cool.structures.*;
 
 public class ASTDefinitionPassVisitor extends ASTDefaultVisitor<Void> {
+    private final SymbolTable symbolTable;
+
+    public ASTDefinitionPassVisitor(CompilationContext context) {
+        this.symbolTable = context.symbolTable;
+    }
+
     private Scope currentScope = null;
     private ClassSymbol currentClassSymbol = null;
     private MethodSymbol currentMethodSymbol = null;
@@ -23,10 +30,10 @@ public class ASTDefinitionPassVisitor extends ASTDefaultVisitor<Void> {
     public Void visit(CaseTest caseTest) {
         var id = caseTest.id;
         var idName = id.getToken().getText();
-        var idSymbol = new IdSymbol(idName, IdSymbol.DefinitionType.LOCAL); // TODO: is this a special definition type?
+        var idSymbol = new IdSymbol(idName, id.getToken().getNameId(), IdSymbol.DefinitionType.LOCAL); // TODO: is this a special definition type?
 
         if (idName.equals("self")) {
-            SymbolTable.error(id, "Case variable has illegal name self");
+            symbolTable.error(id, "Case variable has illegal name self");
             return null;
         }
 
@@ -63,7 +70,7 @@ public class ASTDefinitionPassVisitor extends ASTDefaultVisitor<Void> {
         var idName = id.getToken().getText();
 
         if (idName.equals("self")) {
-            SymbolTable.error(id, "Cannot assign to self");
+            symbolTable.error(id, "Cannot assign to self");
         }
 
         return super.visit(assign);
@@ -73,10 +80,10 @@ public class ASTDefinitionPassVisitor extends ASTDefaultVisitor<Void> {
     public Void visit(LocalDef localDef) {
         var id = localDef.id;
         var idName = id.getToken().getText();
-        var idSymbol = new IdSymbol(idName, IdSymbol.DefinitionType.LOCAL);
+        var idSymbol = new IdSymbol(idName, id.getToken().getNameId(), IdSymbol.DefinitionType.LOCAL);
 
         if (idName.equals("self")) {
-            SymbolTable.error(id, "Let variable has illegal name self");
+            symbolTable.error(id, "Let variable has illegal name self");
             return null;
         }
 
@@ -127,15 +134,15 @@ public class ASTDefinitionPassVisitor extends ASTDefaultVisitor<Void> {
     public Void visit(Formal formal) {
         var id = formal.id;
         var idName = id.getToken().getText();
-        var idSymbol = new IdSymbol(idName, IdSymbol.DefinitionType.FORMAL);
+        var idSymbol = new IdSymbol(idName, id.getToken().getNameId(), IdSymbol.DefinitionType.FORMAL);
 
         if (idName.equals("self")) {
-            SymbolTable.error(id, "Method " + currentMethodSymbol + " of class " + currentClassSymbol + " has formal parameter with illegal name self");
+            symbolTable.error(id, "Method " + currentMethodSymbol + " of class " + currentClassSymbol + " has formal parameter with illegal name self");
             return null;
         }
 
         if (!currentScope.add(idSymbol)) {
-            SymbolTable.error(id, "Method " + currentMethodSymbol + " of class " + currentClassSymbol + " redefines formal parameter " + idName);
+            symbolTable.error(id, "Method " + currentMethodSymbol + " of class " + currentClassSymbol + " redefines formal parameter " + idName);
             return null;
         }
 
@@ -149,10 +156,10 @@ public class ASTDefinitionPassVisitor extends ASTDefaultVisitor<Void> {
     public Void visit(MethodDef methodDef) {
         var id = methodDef.id;
         var idName = id.getToken().getText();
-        currentMethodSymbol = new MethodSymbol(currentScope, idName);
+        currentMethodSymbol = new MethodSymbol(currentScope, idName, id.getToken().getNameId());
 
         if (!currentScope.add(currentMethodSymbol)) {
-            SymbolTable.error(id, "Class " + currentClassSymbol + " redefines method " + idName);
+            symbolTable.error(id, "Class " + currentClassSymbol + " redefines method " + idName);
             return null;
         }
 
@@ -165,7 +172,7 @@ public class ASTDefinitionPassVisitor extends ASTDefaultVisitor<Void> {
         currentScope = currentScope.getParent();
 
         int formalIdx = 0;
-        for (var formal : currentMethodSymbol.getFormals().values()) {
+        for (var formal : currentMethodSymbol.getFormals()) {
             formal.setIndex(formalIdx++);
         }
         currentMethodSymbol = null;
@@ -177,15 +184,15 @@ public class ASTDefinitionPassVisitor extends ASTDefaultVisitor<Void> {
     public Void visit(AttributeDef attributeDef) {
         var id = attributeDef.id;
         var idName = id.getToken().getText();
-        var idSymbol = new IdSymbol(idName, IdSymbol.DefinitionType.ATTRIBUTE);
+        var idSymbol = new IdSymbol(idName, id.getToken().getNameId(), IdSymbol.DefinitionType.ATTRIBUTE);
 
         if (idName.equals("self")) {
-            SymbolTable.error(id, "Class " + currentClassSymbol + " has attribute with illegal name self");
+            symbolTable.error(id, "Class " + currentClassSymbol + " has attribute with illegal name self");
             return null;
         }
 
         if (!currentScope.add(idSymbol)) {
-            SymbolTable.error(id, "Class " + currentClassSymbol + " redefines attribute " + idName);
+            symbolTable.error(id, "Class " + currentClassSymbol + " redefines attribute " + idName);
             return null;
         }
 
@@ -204,13 +211,13 @@ public class ASTDefinitionPassVisitor extends ASTDefaultVisitor<Void> {
         var classType = class_.type;
         var classTypeName = classType.getToken().getText();
         if (classTypeName.equals("SELF_TYPE")) {
-            SymbolTable.error(classType, "Class has illegal name SELF_TYPE");
+            symbolTable.error(classType, "Class has illegal name SELF_TYPE");
             return null;
         }
 
-        currentClassSymbol = new ActualClassSymbol(null, classTypeName);
-        if (!SymbolTable.globals.add(currentClassSymbol)) {
-            SymbolTable.error(classType, "Class " + classTypeName + " is redefined");
+        currentClassSymbol = new ActualClassSymbol(symbolTable, null, classTypeName, classType.getToken().getNameId());
+        if (!symbolTable.globals.add(currentClassSymbol)) {
+            symbolTable.error(classType, "Class " + classTypeName + " is redefined");
             return null;
         }
         classType.setSymbol(currentClassSymbol);
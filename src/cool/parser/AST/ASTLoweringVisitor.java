@@ -0,0 +1,849 @@
+package cool.parser.AST;
+
+import cool.ir.Function;
+import cool.ir.Label;
+import cool.ir.Temp;
+import cool.parser.AST.ASTCodeGenPassVisitor.CaseInterval;
+import cool.parser.AST.ASTCodeGenPassVisitor.Rep;
+import cool.parser.CoolParser;
+import cool.structures.ClassSymbol;
+import cool.structures.IdSymbol;
+import cool.structures.MethodSymbol;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Traduce corpul unei metode în cod intermediar (vezi cool.ir). Fiecare expresie
+// își întoarce valoarea într-un registru virtual, în aceeași formă ca la
+// generarea din template-uri (obiect sau, cu -unboxed, valoare brută). Variabilele
+// locale și parametrii formali sunt ținuți în registre virtuale, nu pe stivă.
+class ASTLoweringVisitor extends ASTDefaultVisitor<Temp> {
+    // Numărul de bytes dintr-un cuvânt.
+    private static final int MIPS_WORD_SIZE = 4;
+
+    // Offset-ul valorii dintr-un obiect Int / Bool.
+    private static final int VALUE_OFFSET = 12;
+
+    // Dimensiunea maximă (vezi ExpressionSize) a corpului unei metode expandate
+    // inline, respectiv a tuturor corpurilor expandate într-o rutină.
+    private static final int INLINE_SIZE_LIMIT = 20;
+    private static final int INLINE_GROWTH_LIMIT = 200;
+
+    private final ASTCodeGenPassVisitor codegen;
+    private final Function fn;
+
+    // Registrele virtuale ale variabilelor și forma în care își păstrează valoarea.
+    private final Map<IdSymbol, Temp> variables = new HashMap<>();
+    private final Map<IdSymbol, Rep> storage = new HashMap<>();
+    private final Set<Temp> variableTemps = new HashSet<>();
+
+    // Numărul de atribuiri ale fiecărei variabile (vezi lowerOperands).
+    private final Map<Temp, Integer> assignments = new HashMap<>();
+
+    // Valorile brute citite din obiecte și obiectele Bool obținute din valori
+    // brute, pentru a evita conversiile inverse.
+    private final Map<Temp, Temp> unboxedFrom = new HashMap<>();
+    private final Map<Temp, Temp> boxedFrom = new HashMap<>();
+
+    // Obiectul self, clasa lui și fișierul sursă al corpului tradus; în corpul
+    // unei metode expandate inline, acestea sunt cele ale metodei apelate.
+    private Temp self;
+    private ClassSymbol selfClass;
+    private int fileId;
+
+    private final Map<Integer, Label> fileNames = new HashMap<>();
+
+    // Metodele expandate în acest moment (și rutina curentă), pentru a nu
+    // expanda la nesfârșit apelurile recursive.
+    private final Deque<MethodSymbol> inlineStack = new ArrayDeque<>();
+    private int inlinedSize = 0;
+
+    // Registrele parametrilor formali ai rutinei și label-ul de după încărcarea
+    // lor, la care sar apelurile recursive în poziție de coadă (-tailcalls).
+    private final List<Temp> formals = new ArrayList<>();
+    private Label tailLabel;
+
+    private ASTLoweringVisitor(ASTCodeGenPassVisitor codegen, Function fn) {
+        this.codegen = codegen;
+        this.fn = fn;
+    }
+
+    static Function lower(ASTCodeGenPassVisitor codegen, MethodDef methodDef) {
+        var sym = (MethodSymbol) methodDef.id.getSymbol();
+        var fn = new Function(new Label(sym.getFullName()), methodDef.formals.size());
+        var visitor = new ASTLoweringVisitor(codegen, fn);
+        visitor.self = fn.self();
+        visitor.selfClass = codegen.getCurrentClass();
+        visitor.fileId = methodDef.getToken().getFileId();
+        visitor.inlineStack.push(sym);
+
+        for (int i = 0; i < methodDef.formals.size(); i++) {
+            var formal = methodDef.formals.get(i).id.getSymbol();
+            visitor.defineVariable(formal, fn.loadArgument(i), Rep.BOXED);
+            visitor.formals.add(visitor.variables.get(formal));
+        }
+
+        if (codegen.hasSelfTailCalls()) {
+            visitor.tailLabel = visitor.uniqLabel("tail", codegen.nextUniq());
+            fn.placeLabel(visitor.tailLabel);
+        }
+
+        fn.ret(visitor.lower(methodDef.body, Rep.BOXED));
+        return fn;
+    }
+
+    private void defineVariable(IdSymbol sym, Temp value, Rep rep) {
+        var temp = fn.newTemp();
+        assign(temp, value);
+
+        variables.put(sym, temp);
+        storage.put(sym, rep);
+        variableTemps.add(temp);
+    }
+
+    // Copiază o valoare în registrul unei variabile sau al rezultatului unei
+    // expresii. O valoare intermediară abia calculată este scrisă direct acolo.
+    private void assign(Temp dst, Temp value) {
+        if (variableTemps.contains(value) || value == self)
+            fn.move(dst, value);
+        else
+            fn.assign(dst, value);
+    }
+
+    private Label fileName() {
+        return fileNames.computeIfAbsent(fileId, id -> new Label("str_const", codegen.fileNameConstant(id)));
+    }
+
+    private Label uniqLabel(java.lang.String prefix, Object uniq) {
+        return new Label(prefix, uniq);
+    }
+
+    // Valoarea expresiei, în forma cerută.
+    private Temp lower(Expression expr, Rep to) {
+        // Literalii au deja obiecte în kPool.
+        if (to == Rep.BOXED && expr instanceof Int)
+            return loadConstant("int_const", Integer.parseInt(expr.getToken().getText()));
+        if (to == Rep.BOXED && expr instanceof Bool)
+            return loadConstant("bool_const", Boolean.parseBoolean(expr.getToken().getText()));
+
+        return convert(expr.accept(this), codegen.rep(expr), to);
+    }
+
+    private Temp convert(Temp value, Rep from, Rep to) {
+        if (from == to)
+            return value;
+
+        // O valoare despachetată doar pentru a fi împachetată la loc (sau invers)
+        // își păstrează forma inițială; conversia rămasă nefolosită este eliminată
+        // de alocator. Variabilele sunt excluse, deoarece pot fi modificate între timp.
+        var original = (to == Rep.BOXED) ? unboxedFrom.get(value) : boxedFrom.get(value);
+        if (original != null && !variableTemps.contains(original))
+            return original;
+
+        if (to == Rep.BOXED) {
+            if (from == Rep.INT)
+                return boxInt(value);
+
+            var obj = boxBool(value);
+            boxedFrom.put(obj, value);
+            return obj;
+        }
+
+        assert from == Rep.BOXED;
+        var raw = fn.load(value, VALUE_OFFSET);
+        unboxedFrom.put(raw, value);
+        return raw;
+    }
+
+    private Temp boxInt(Temp value) {
+        if (codegen.cachesInts())
+            return cachedInt(value);
+
+        var obj = fn.call(new Label("Object.copy"), fn.loadAddress(new Label("Int_protObj")), List.of());
+        fn.store(value, obj, VALUE_OFFSET);
+        return obj;
+    }
+
+    // Obiectul din int_cache cu valoarea dată (-intcache) sau, în afara
+    // intervalului tabelei, un obiect nou.
+    private Temp cachedInt(Temp value) {
+        var uniq = codegen.nextUniq();
+        var allocLabel = uniqLabel("intcache", uniq);
+        var endLabel = uniqLabel("intcached", uniq);
+        var result = fn.newTemp();
+
+        lookupCachedInt(value, result, allocLabel);
+        fn.jump(endLabel);
+        fn.placeLabel(allocLabel);
+        var obj = fn.call(new Label("Object.copy"), fn.loadAddress(new Label("Int_protObj")), List.of());
+        fn.store(value, obj, VALUE_OFFSET);
+        fn.move(result, obj);
+        fn.placeLabel(endLabel);
+
+        return result;
+    }
+
+    // Obiectul Int întors de in_int, înlocuit cu cel din int_cache cu aceeași valoare.
+    private Temp sharedInt(Temp obj) {
+        var endLabel = uniqLabel("intcache", codegen.nextUniq());
+        var result = fn.newTemp();
+
+        fn.move(result, obj);
+        lookupCachedInt(fn.load(obj, VALUE_OFFSET), result, endLabel);
+        fn.placeLabel(endLabel);
+
+        return result;
+    }
+
+    // Pune în result obiectul din int_cache cu valoarea dată, sau sare la
+    // missLabel dacă valoarea nu este în tabelă. Obiectele au câte 16 bytes.
+    private void lookupCachedInt(Temp value, Temp result, Label missLabel) {
+        fn.branch(Function.Condition.LT, value, codegen.getIntCacheMin(), missLabel);
+        fn.branch(Function.Condition.GT, value, codegen.getIntCacheMax(), missLabel);
+
+        var index = fn.binary(Function.Operator.ADD, value, codegen.getIntCacheOffset());
+        var offset = fn.binary(Function.Operator.SLL, index, 4);
+        fn.assign(result, fn.binary(Function.Operator.ADDU, offset, fn.loadAddress(new Label("int_cache"))));
+    }
+
+    // bool_const0 și bool_const1 sunt obiecte consecutive de câte 16 bytes.
+    private Temp boxBool(Temp value) {
+        var offset = fn.binary(Function.Operator.SLL, value, 4);
+        return fn.binary(Function.Operator.ADDU, offset, fn.loadAddress(new Label("bool_const0")));
+    }
+
+    private Temp loadConstant(java.lang.String prefix, Object konstant) {
+        return fn.loadAddress(new Label(prefix, codegen.constant(konstant)));
+    }
+
+    // Evaluează operanzii în ordine, fiecare în forma cerută. Dacă valoarea unui
+    // operand este chiar registrul unei variabile pe care o modifică operanzii
+    // evaluați ulterior, valoarea este copiată înainte de evaluarea acestora.
+    private List<Temp> lowerOperands(List<Expression> exprs, List<Rep> reps) {
+        int n = exprs.size();
+        var values = new Temp[n];
+        var marks = new int[n];
+        var counts = new int[n];
+
+        for (int i = 0; i < n; i++) {
+            values[i] = lower(exprs.get(i), reps.get(i));
+            marks[i] = fn.mark();
+            counts[i] = assignments.getOrDefault(values[i], 0);
+        }
+
+        for (int i = n - 2; i >= 0; i--) {
+            if (variableTemps.contains(values[i]) && assignments.getOrDefault(values[i], 0) != counts[i])
+                values[i] = fn.insertCopy(marks[i], values[i]);
+        }
+
+        return List.of(values);
+    }
+
+    @Override
+    public Temp visit(Id id) {
+        var sym = id.getSymbol();
+
+        if (sym.getName().equals("self"))
+            return self;
+
+        if (sym.getDefinitionType() == IdSymbol.DefinitionType.ATTRIBUTE)
+            return convert(fn.load(self, codegen.getAttrOffset(sym)), Rep.BOXED, codegen.rep(id));
+
+        return convert(variables.get(sym), storage.get(sym), codegen.rep(id));
+    }
+
+    @Override
+    public Temp visit(Int int_) {
+        var val = Integer.parseInt(int_.getToken().getText());
+        if (codegen.rep(int_) == Rep.INT)
+            return fn.loadImm(val);
+
+        return loadConstant("int_const", val);
+    }
+
+    @Override
+    public Temp visit(String string) {
+        return loadConstant("str_const", string.getToken().getText());
+    }
+
+    @Override
+    public Temp visit(Bool bool_) {
+        var val = Boolean.parseBoolean(bool_.getToken().getText());
+        if (codegen.rep(bool_) == Rep.BOOL)
+            return fn.loadImm(val ? 1 : 0);
+
+        return loadConstant("bool_const", val);
+    }
+
+    @Override
+    public Temp visit(If if_) {
+        var uniq = codegen.nextUniq();
+        var elseLabel = uniqLabel("else", uniq);
+        var endLabel = uniqLabel("endif", uniq);
+        var result = fn.newTemp();
+        var rep = codegen.rep(if_);
+
+        lowerBranch(if_.cond, false, elseLabel);
+        assign(result, lower(if_.thenBranch, rep));
+        fn.jump(endLabel);
+        fn.placeLabel(elseLabel);
+        assign(result, lower(if_.elseBranch, rep));
+        fn.placeLabel(endLabel);
+
+        return result;
+    }
+
+    // Sare la target dacă valoarea condiției este when. Cu -fuse, comparațiile,
+    // not și isvoid se termină direct cu saltul, fără a calcula valoarea Bool.
+    private void lowerBranch(Expression cond, boolean when, Label target) {
+        if (!codegen.fusesBranches()) {
+            fn.branchZero(when ? Function.Condition.NE : Function.Condition.EQ, lower(cond, Rep.BOOL), target);
+            return;
+        }
+
+        if (cond instanceof Not) {
+            lowerBranch(((Not)cond).expr, !when, target);
+            return;
+        }
+
+        if (cond instanceof IsVoid && codegen.rep(((IsVoid)cond).instance) == Rep.BOXED) {
+            var value = lower(((IsVoid)cond).instance, Rep.BOXED);
+            fn.branchZero(when ? Function.Condition.EQ : Function.Condition.NE, value, target);
+            return;
+        }
+
+        if (cond instanceof Relational) {
+            var rel = (Relational)cond;
+            var operator = rel.getToken().getType();
+            var operandRep = (operator == CoolParser.EQUAL) ? codegen.comparableRep(rel.left, rel.right) : Rep.INT;
+
+            if (operandRep != null) {
+                var condition = switch (operator) {
+                    case CoolParser.LT -> when ? Function.Condition.LT : Function.Condition.GE;
+                    case CoolParser.LE -> when ? Function.Condition.LE : Function.Condition.GT;
+                    case CoolParser.EQUAL -> when ? Function.Condition.EQ : Function.Condition.NE;
+
+                    default -> throw new IllegalStateException("Unexpected value: " + operator);
+                };
+
+                var imm = literalValue(rel.right);
+                if (imm != null) {
+                    fn.branch(condition, lower(rel.left, operandRep), imm, target);
+                } else {
+                    var values = lowerOperands(List.of(rel.left, rel.right), List.of(operandRep, operandRep));
+                    fn.branch(condition, values.get(0), values.get(1), target);
+                }
+                return;
+            }
+        }
+
+        fn.branchZero(when ? Function.Condition.NE : Function.Condition.EQ, lower(cond, Rep.BOOL), target);
+    }
+
+    @Override
+    public Temp visit(While while_) {
+        var uniq = codegen.nextUniq();
+        var loopLabel = uniqLabel("while", uniq);
+        var endLabel = uniqLabel("endwhile", uniq);
+        var cond = codegen.foldsConstants() ? literalValue(while_.cond) : null;
+
+        // O buclă cu condiție constantă nu mai testează condiția.
+        if (cond != null && cond == 0)
+            return fn.loadImm(0);
+
+        fn.placeLabel(loopLabel);
+        if (cond == null)
+            lowerBranch(while_.cond, false, endLabel);
+        while_.body.accept(this);
+        fn.jump(loopLabel);
+        fn.placeLabel(endLabel);
+
+        return fn.loadImm(0);
+    }
+
+    @Override
+    public Temp visit(Block block) {
+        var last = block.exprs.size() - 1;
+        for (int i = 0; i < last; i++)
+            block.exprs.get(i).accept(this);
+
+        return lower(block.exprs.get(last), codegen.rep(block));
+    }
+
+    @Override
+    public Temp visit(Let let) {
+        for (var localDef : let.vars) {
+            var sym = localDef.id.getSymbol();
+            var rep = codegen.unboxed ? codegen.rep(sym.getType()) : Rep.BOXED;
+
+            Temp value;
+            if (localDef.initValue != null)
+                value = lower(localDef.initValue, rep);
+            else if (rep != Rep.BOXED)
+                value = fn.loadImm(0);
+            else
+                value = loadDefaultValue(sym);
+
+            defineVariable(sym, value, rep);
+        }
+
+        return lower(let.body, codegen.rep(let));
+    }
+
+    private Temp loadDefaultValue(IdSymbol sym) {
+        var type = sym.getType().getActualType();
+        var symbolTable = codegen.getSymbolTable();
+
+        if (type == symbolTable.INT)
+            return fn.loadAddress(new Label("int_const0"));
+        if (type == symbolTable.STRING)
+            return fn.loadAddress(new Label("str_const0"));
+        if (type == symbolTable.BOOL)
+            return fn.loadAddress(new Label("bool_const0"));
+
+        return fn.loadImm(0);
+    }
+
+    @Override
+    public Temp visit(Case case_) {
+        var uniq = codegen.nextUniq();
+        var okLabel = uniqLabel("case", uniq);
+        var endLabel = uniqLabel("endcase", uniq);
+        var result = fn.newTemp();
+        var rep = codegen.rep(case_);
+
+        var value = lower(case_.instance, Rep.BOXED);
+        fn.branchZero(Function.Condition.NE, value, okLabel);
+        fn.abort(new Label("_case_abort2"), fileName(), case_.getToken().getLine());
+        fn.placeLabel(okLabel);
+
+        var tag = fn.load(value, 0);
+
+        // Cu multe ramuri, ramura este aleasă printr-o căutare binară în
+        // intervalele de tag-uri (vezi ASTCodeGenPassVisitor.generateCaseDispatch).
+        if (codegen.usesCaseDispatch(case_)) {
+            var noMatch = uniqLabel("casenomatch", uniq);
+            var labels = new HashMap<CaseTest, Label>();
+            for (var caseTest : case_.caseTests)
+                labels.put(caseTest, uniqLabel("casebody", codegen.nextUniq()));
+
+            var intervals = codegen.caseIntervals(case_);
+            lowerCaseSearch(tag, intervals, 0, intervals.size() - 1, labels, noMatch);
+
+            for (var caseTest : case_.caseTests) {
+                fn.placeLabel(labels.get(caseTest));
+                defineVariable(caseTest.id.getSymbol(), value, Rep.BOXED);
+                assign(result, lower(caseTest.body, rep));
+                fn.jump(endLabel);
+            }
+
+            fn.placeLabel(noMatch);
+            fn.abort(new Label("_case_abort"), value);
+            fn.placeLabel(endLabel);
+
+            return result;
+        }
+
+        // Ramurile sunt testate în ordine descrescătoare a tag-urilor (vezi
+        // ASTCodeGenPassVisitor.visit(Case)).
+        var caseTests = new ArrayList<>(case_.caseTests);
+        caseTests.sort((a, b) -> b.id.getSymbol().getType().getTag() - a.id.getSymbol().getType().getTag());
+
+        for (var caseTest : caseTests) {
+            var type = caseTest.type.getSymbol();
+            var nextLabel = uniqLabel("casebranch", codegen.nextUniq());
+
+            fn.branch(Function.Condition.LT, tag, type.getTag(), nextLabel);
+            fn.branch(Function.Condition.GT, tag, type.getMaxSubTreeTag() - 1, nextLabel);
+
+            defineVariable(caseTest.id.getSymbol(), value, Rep.BOXED);
+            assign(result, lower(caseTest.body, rep));
+            fn.jump(endLabel);
+            fn.placeLabel(nextLabel);
+        }
+
+        fn.abort(new Label("_case_abort"), value);
+        fn.placeLabel(endLabel);
+
+        return result;
+    }
+
+    private void lowerCaseSearch(Temp tag, List<CaseInterval> intervals, int from, int to,
+                                 Map<CaseTest, Label> labels, Label noMatch) {
+        if (from == to) {
+            var branch = intervals.get(from).branch;
+            fn.jump((branch == null) ? noMatch : labels.get(branch));
+            return;
+        }
+
+        var mid = (from + to + 1) / 2;
+        var lower = uniqLabel("casesearch", codegen.nextUniq());
+
+        fn.branch(Function.Condition.LT, tag, intervals.get(mid).minTag, lower);
+        lowerCaseSearch(tag, intervals, mid, to, labels, noMatch);
+        fn.placeLabel(lower);
+        lowerCaseSearch(tag, intervals, from, mid - 1, labels, noMatch);
+    }
+
+    @Override
+    public Temp visit(New new_) {
+        // Valoarea implicită a unui Int / Bool nou este 0 / false.
+        if (codegen.rep(new_) != Rep.BOXED)
+            return fn.loadImm(0);
+
+        var name = new_.type.getToken().getText();
+        if (name.equals("SELF_TYPE")) {
+            // class_objTab conține, pentru fiecare tag, obiectul prototip și rutina de inițializare.
+            var tag = fn.load(self, 0);
+            var entry = fn.binary(Function.Operator.ADDU,
+                    fn.loadAddress(new Label("class_objTab")),
+                    fn.binary(Function.Operator.SLL, tag, 3));
+            var obj = fn.call(new Label("Object.copy"), fn.load(entry, 0), List.of());
+
+            return fn.callIndirect(fn.load(entry, 4), obj, List.of());
+        }
+
+        var obj = fn.call(new Label("Object.copy"), fn.loadAddress(new Label(name + "_protObj")), List.of());
+        return fn.call(new Label(name + "_init"), obj, List.of());
+    }
+
+    @Override
+    public Temp visit(IsVoid isVoid) {
+        Temp result;
+
+        // Un Int / Bool nu este niciodată void.
+        if (codegen.rep(isVoid.instance) != Rep.BOXED) {
+            isVoid.instance.accept(this);
+            result = fn.loadImm(0);
+        } else {
+            result = fn.unary(Function.UnaryOperator.IS_ZERO, lower(isVoid.instance, Rep.BOXED));
+        }
+
+        return convert(result, Rep.BOOL, codegen.rep(isVoid));
+    }
+
+    @Override
+    public Temp visit(Assign assign) {
+        var sym = assign.id.getSymbol();
+
+        if (sym.getDefinitionType() == IdSymbol.DefinitionType.ATTRIBUTE) {
+            var value = lower(assign.expr, Rep.BOXED);
+            fn.store(value, self, codegen.getAttrOffset(sym));
+            return convert(value, Rep.BOXED, codegen.rep(assign));
+        }
+
+        var temp = variables.get(sym);
+        var rep = storage.get(sym);
+
+        assign(temp, lower(assign.expr, rep));
+        assignments.merge(temp, 1, Integer::sum);
+
+        return convert(temp, rep, codegen.rep(assign));
+    }
+
+    @Override
+    public Temp visit(Relational rel) {
+        var operator = rel.getToken().getType();
+        var operands = List.of(rel.left, rel.right);
+
+        if (operator == CoolParser.EQUAL) {
+            var leftRep = codegen.rep(rel.left);
+
+            // Valorile brute sunt comparate direct.
+            if (leftRep != Rep.BOXED && leftRep == codegen.rep(rel.right)) {
+                var result = lowerBinary(Function.Operator.SEQ, rel.left, rel.right, leftRep);
+                return convert(result, Rep.BOOL, codegen.rep(rel));
+            }
+
+            // La fel și valorile obiectelor Int / Bool (-inlineeq).
+            if (codegen.inlinesEquality(rel)) {
+                var operandRep = codegen.comparableRep(rel.left, rel.right);
+                var result = lowerBinary(Function.Operator.SEQ, rel.left, rel.right, operandRep);
+                return convert(result, Rep.BOOL, codegen.rep(rel));
+            }
+
+            var values = lowerOperands(operands, List.of(Rep.BOXED, Rep.BOXED));
+            var result = fn.equalityTest(values.get(0), values.get(1), uniqLabel("eq", codegen.nextUniq()));
+            return convert(result, Rep.BOXED, codegen.rep(rel));
+        }
+
+        var op = switch (operator) {
+            case CoolParser.LT -> Function.Operator.SLT;
+            case CoolParser.LE -> Function.Operator.SLE;
+
+            default -> throw new IllegalStateException("Unexpected value: " + operator);
+        };
+
+        return convert(lowerBinary(op, rel.left, rel.right), Rep.BOOL, codegen.rep(rel));
+    }
+
+    @Override
+    public Temp visit(Not not) {
+        var result = fn.unary(Function.UnaryOperator.IS_ZERO, lower(not.expr, Rep.BOOL));
+        return convert(result, Rep.BOOL, codegen.rep(not));
+    }
+
+    private Temp lowerArithmetic(Expression node, Expression left, Expression right, Function.Operator op) {
+        return convert(lowerBinary(op, left, right), Rep.INT, codegen.rep(node));
+    }
+
+    private Temp lowerBinary(Function.Operator op, Expression left, Expression right) {
+        return lowerBinary(op, left, right, Rep.INT);
+    }
+
+    // Un literal din dreapta devine operand imediat al instrucțiunii. Împărțirea
+    // la 0 rămâne în registru, ca eroarea să apară la execuție.
+    private Temp lowerBinary(Function.Operator op, Expression left, Expression right, Rep rep) {
+        var imm = literalValue(right);
+        if (imm != null && !(op == Function.Operator.DIV && imm == 0))
+            return fn.binary(op, lower(left, rep), imm);
+
+        var values = lowerOperands(List.of(left, right), List.of(rep, rep));
+        return fn.binary(op, values.get(0), values.get(1));
+    }
+
+    private static Integer literalValue(Expression expr) {
+        if (expr instanceof Int)
+            return Integer.parseInt(expr.getToken().getText());
+        if (expr instanceof Bool)
+            return Boolean.parseBoolean(expr.getToken().getText()) ? 1 : 0;
+
+        return null;
+    }
+
+    @Override
+    public Temp visit(Plus plus) {
+        return lowerArithmetic(plus, plus.left, plus.right, Function.Operator.ADD);
+    }
+
+    @Override
+    public Temp visit(Minus minus) {
+        return lowerArithmetic(minus, minus.left, minus.right, Function.Operator.SUB);
+    }
+
+    @Override
+    public Temp visit(Mult mult) {
+        return lowerArithmetic(mult, mult.left, mult.right, Function.Operator.MUL);
+    }
+
+    @Override
+    public Temp visit(Div div) {
+        return lowerArithmetic(div, div.left, div.right, Function.Operator.DIV);
+    }
+
+    @Override
+    public Temp visit(Negate negate) {
+        var result = fn.unary(Function.UnaryOperator.NEG, lower(negate.expr, Rep.INT));
+        return convert(result, Rep.INT, codegen.rep(negate));
+    }
+
+    // Metoda care poate înlocui dispatch-ul: apelul este monomorf, metoda nu
+    // este predefinită și nu este deja în curs de expandare, iar corpul ei se
+    // încadrează în limitele de dimensiune. Altfel null.
+    private MethodDef inlineCandidate(Dispatch dispatch) {
+        if (!codegen.inline)
+            return null;
+
+        var method = codegen.monomorphicTarget(dispatch, selfClass);
+        var methodDef = (method == null) ? null : codegen.getMethodDef(method);
+        if (methodDef == null || inlineStack.contains(method))
+            return null;
+
+        var size = ExpressionSize.of(methodDef.body);
+        if (size > INLINE_SIZE_LIMIT || inlinedSize + size > INLINE_GROWTH_LIMIT)
+            return null;
+
+        inlinedSize += size;
+        return methodDef;
+    }
+
+    // Forma în care este păstrat un parametru formal al unei metode expandate
+    // inline; spre deosebire de rutine, valoarea nu trebuie să fie un obiect.
+    private Rep formalRep(MethodDef methodDef, int index) {
+        var sym = methodDef.formals.get(index).id.getSymbol();
+        return codegen.unboxed ? codegen.rep(sym.getType()) : Rep.BOXED;
+    }
+
+    // Corpul metodei apelate, tradus în rutina curentă, cu self legat la
+    // receiver și parametrii formali la argumentele deja evaluate.
+    private Temp inline(MethodDef methodDef, Temp receiver, List<Temp> args, Rep to) {
+        var method = (MethodSymbol) methodDef.id.getSymbol();
+
+        for (int i = 0; i < args.size(); i++)
+            defineVariable(methodDef.formals.get(i).id.getSymbol(), args.get(i), formalRep(methodDef, i));
+
+        var savedSelf = self;
+        var savedSelfClass = selfClass;
+        var savedFileId = fileId;
+
+        codegen.analyzeVoidChecks(methodDef.body);
+
+        self = receiver;
+        selfClass = (ClassSymbol) method.getParent();
+        fileId = methodDef.getToken().getFileId();
+        inlineStack.push(method);
+        codegen.countInlined();
+
+        var result = lower(methodDef.body, to);
+
+        inlineStack.pop();
+        self = savedSelf;
+        selfClass = savedSelfClass;
+        fileId = savedFileId;
+
+        return result;
+    }
+
+    @Override
+    public Temp visit(Dispatch dispatch) {
+        var uniq = codegen.nextUniq();
+        var callee = inlineCandidate(dispatch);
+
+        // Ca în template-ul dispatch, argumentele sunt evaluate de la ultimul la
+        // primul, iar instanța la final.
+        var exprs = new ArrayList<Expression>();
+        var reps = new ArrayList<Rep>();
+        for (int i = dispatch.args.size() - 1; i >= 0; i--) {
+            exprs.add(dispatch.args.get(i));
+            reps.add((callee == null) ? Rep.BOXED : formalRep(callee, i));
+        }
+
+        if (dispatch.instance != null) {
+            exprs.add(dispatch.instance);
+            reps.add(Rep.BOXED);
+        }
+
+        var values = new ArrayList<>(lowerOperands(exprs, reps));
+        var receiver = (dispatch.instance != null) ? values.remove(values.size() - 1) : self;
+
+        if (codegen.needsVoidCheck(dispatch)) {
+            var okLabel = uniqLabel("dispatch", uniq);
+            fn.branchZero(Function.Condition.NE, receiver, okLabel);
+            fn.abort(new Label("_dispatch_abort"), fileName(), dispatch.getToken().getLine());
+            fn.placeLabel(okLabel);
+        }
+
+        var args = new ArrayList<Temp>(values.size());
+        for (int i = values.size() - 1; i >= 0; i--)
+            args.add(values.get(i));
+
+        // Verificarea receiver-ului de mai sus păstrează eroarea unui dispatch pe void.
+        if (callee != null)
+            return inline(callee, receiver, args, codegen.rep(dispatch));
+
+        // Pozițiile de coadă sunt cele ale corpului rutinei, nu ale metodelor expandate inline.
+        if (tailLabel != null && codegen.isSelfTailCall(dispatch, selfClass)) {
+            codegen.directTarget(dispatch, selfClass);
+            codegen.recordTailCall(dispatch, inlineStack.getLast(), true);
+            return lowerSelfTailCall(receiver, args);
+        }
+
+        var tailCall = codegen.isTailCall(dispatch);
+
+        Temp result;
+        var direct = codegen.directTarget(dispatch, selfClass);
+        if (tailCall)
+            codegen.recordTailCall(dispatch, direct, false);
+
+        if (direct != null) {
+            if (tailCall) {
+                fn.tailCall(new Label(direct.getFullName()), receiver, args);
+                return unusedValue();
+            }
+
+            result = fn.call(new Label(direct.getFullName()), receiver, args);
+        } else {
+            var dispTable = (dispatch.type == null)
+                    ? fn.load(receiver, 8)
+                    : fn.loadAddress(new Label(dispatch.type.getSymbol().getName() + "_dispTab"));
+            var method = fn.load(dispTable, MIPS_WORD_SIZE * dispatch.id.getSymbol().getIndex());
+
+            if (tailCall) {
+                fn.tailCallIndirect(method, receiver, args);
+                return unusedValue();
+            }
+
+            result = fn.callIndirect(method, receiver, args);
+        }
+
+        if (codegen.sharesIntResult(dispatch) && codegen.rep(dispatch) == Rep.BOXED)
+            return sharedInt(result);
+
+        return convert(result, Rep.BOXED, codegen.rep(dispatch));
+    }
+
+    // Apelul recursiv devine o buclă: argumentele și receiver-ul iau locul
+    // parametrilor formali și al lui self, apoi se sare la începutul corpului.
+    private Temp lowerSelfTailCall(Temp receiver, List<Temp> args) {
+        // Argumentele pot fi chiar parametrii formali sau self, deci sunt copiate
+        // înainte ca aceștia să fie modificați.
+        var values = new ArrayList<Temp>(args.size());
+        for (var arg : args) {
+            var copy = fn.newTemp();
+            fn.move(copy, arg);
+            values.add(copy);
+        }
+
+        if (receiver != self)
+            fn.move(self, receiver);
+        for (int i = 0; i < values.size(); i++)
+            fn.move(formals.get(i), values.get(i));
+
+        fn.jump(tailLabel);
+        return unusedValue();
+    }
+
+    // După saltul unui apel în poziție de coadă nu se mai execută nimic din
+    // rutină; expresia are totuși nevoie de o valoare, care nu va fi folosită.
+    private Temp unusedValue() {
+        return fn.loadImm(0);
+    }
+
+    // Dimensiunea unei expresii, măsurată în frunze ale AST-ului (identificatori,
+    // literali și tipuri), aproximativ numărul de token-uri.
+    private static class ExpressionSize extends ASTDefaultVisitor<Void> {
+        private int size = 0;
+
+        static int of(Expression expr) {
+            var visitor = new ExpressionSize();
+            expr.accept(visitor);
+            return visitor.size;
+        }
+
+        @Override
+        public Void visit(Id id) {
+            size++;
+            return null;
+        }
+
+        @Override
+        public Void visit(Int int_) {
+            size++;
+            return null;
+        }
+
+        @Override
+        public Void visit(String string) {
+            size++;
+            return null;
+        }
+
+        @Override
+        public Void visit(Bool bool_) {
+            size++;
+            return null;
+        }
+
+        @Override
+        public Void visit(Type type) {
+            size++;
+            return null;
+        }
+    }
+}
@@ -3,8 +3,6 @@ package cool.parser.AST;
 import cool.structures.ClassSymbol;
 import cool.structures.IdSymbol;
 import cool.structures.Scope;
-import org.antlr.v4.runtime.ParserRuleContext;
-import org.antlr.v4.runtime.Token;
 
 import java.util.List;
 
@@ -12,20 +10,15 @@ import java.util.List;
 // abstractă (AST). Singura metodă permite primirea unui visitor.
 public abstract class ASTNode {
     // Reținem un token descriptiv al nodului, pentru a putea afișa ulterior
-    // informații legate de linia și coloana eventualelor erori semantice.
-    private final ParserRuleContext parserRuleContext;
-    private final Token token;
+    // informații legate de fișierul, linia și coloana eventualelor erori
+    // semantice.
+    private final SourceToken token;
 
-    ASTNode(ParserRuleContext parserRuleContext, Token token) {
-        this.parserRuleContext = parserRuleContext;
+    ASTNode(SourceToken token) {
         this.token = token;
     }
 
-    public ParserRuleContext getParserRuleContext() {
-        return parserRuleContext;
-    }
-    
-    public Token getToken() {
+    public SourceToken getToken() {
         return token;
     }
 
@@ -36,8 +29,20 @@ public abstract class ASTNode {
 
 // Orice expresie.
 abstract class Expression extends ASTNode {
-    Expression(ParserRuleContext parserRuleContext, Token token) {
-        super(parserRuleContext, token);
+    // Tipul static, calculat la verificarea tipurilor. Null dacă expresia
+    // conține erori sau nu a fost (încă) verificată.
+    private ClassSymbol staticType;
+
+    Expression(SourceToken token) {
+        super(token);
+    }
+
+    ClassSymbol getStaticType() {
+        return staticType;
+    }
+
+    void setStaticType(ClassSymbol staticType) {
+        this.staticType = staticType;
     }
 }
 
@@ -46,8 +51,8 @@ class Id extends Expression {
     private IdSymbol symbol;
     private Scope scope;
 
-    Id(ParserRuleContext parserRuleContext, Token token) {
-        super(parserRuleContext, token);
+    Id(SourceToken token) {
+        super(token);
     }
     
     public <T> T accept(ASTVisitor<T> visitor) {
@@ -73,8 +78,8 @@ class Id extends Expression {
 
 // Literali întregi
 class Int extends Expression {
-    Int(ParserRuleContext parserRuleContext, Token token) {
-        super(parserRuleContext, token);
+    Int(SourceToken token) {
+        super(token);
     }
 
     public <T> T accept(ASTVisitor<T> visitor) {
@@ -84,8 +89,8 @@ class Int extends Expression {
 
 // Literali șiruri de caractere
 class String extends Expression {
-    String(ParserRuleContext parserRuleContext, Token token) {
-        super(parserRuleContext, token);
+    String(SourceToken token) {
+        super(token);
     }
 
     public <T> T accept(ASTVisitor<T> visitor) {
@@ -95,8 +100,8 @@ class String extends Expression {
 
 // Literali bool
 class Bool extends Expression {
-    Bool(ParserRuleContext parserRuleContext, Token token) {
-        super(parserRuleContext, token);
+    Bool(SourceToken token) {
+        super(token);
     }
 
     public <T> T accept(ASTVisitor<T> visitor) {
@@ -114,9 +119,8 @@ class If extends Expression {
     If(Expression cond,
        Expression thenBranch,
        Expression elseBranch,
-       ParserRuleContext parserRuleContext,
-       Token start) {
-        super(parserRuleContext, start);
+       SourceToken token) {
+        super(token);
         this.cond = cond;
         this.thenBranch = thenBranch;
         this.elseBranch = elseBranch;
@@ -132,8 +136,8 @@ class While extends Expression {
     Expression cond;
     Expression body;
 
-    While(Expression cond, Expression body, ParserRuleContext parserRuleContext, Token start) {
-        super(parserRuleContext, start);
+    While(Expression cond, Expression body, SourceToken token) {
+        super(token);
         this.cond = cond;
         this.body = body;
     }
@@ -147,8 +151,8 @@ class While extends Expression {
 class Block extends Expression {
     List<Expression> exprs;
 
-    Block(List<Expression> exprs, ParserRuleContext parserRuleContext, Token start) {
-        super(parserRuleContext, start);
+    Block(List<Expression> exprs, SourceToken token) {
+        super(token);
         this.exprs = exprs;
     }
 
@@ -163,8 +167,8 @@ class LocalDef extends ASTNode {
     Id id;
     Expression initValue;
 
-    LocalDef(Type type, Id id, Expression initValue, ParserRuleContext parserRuleContext, Token token) {
-        super(parserRuleContext, token);
+    LocalDef(Type type, Id id, Expression initValue, SourceToken token) {
+        super(token);
         this.type = type;
         this.id = id;
         this.initValue = initValue;
@@ -180,8 +184,8 @@ class Let extends Expression {
     List<LocalDef> vars;
     Expression body;
 
-    Let(List<LocalDef> vars, Expression body, ParserRuleContext parserRuleContext, Token start) {
-        super(parserRuleContext, start);
+    Let(List<LocalDef> vars, Expression body, SourceToken token) {
+        super(token);
         this.vars = vars;
         this.body = body;
     }
@@ -197,8 +201,8 @@ class CaseTest extends ASTNode {
     Type type;
     Expression body;
 
-    CaseTest(Id id, Type type, Expression body, ParserRuleContext parserRuleContext, Token start) {
-        super(parserRuleContext, start);
+    CaseTest(Id id, Type type, Expression body, SourceToken token) {
+        super(token);
         this.id = id;
         this.type = type;
         this.body = body;
@@ -214,8 +218,8 @@ class Case extends Expression {
     Expression instance;
     List<CaseTest> caseTests;
 
-    Case(Expression instance, List<CaseTest> caseTests, ParserRuleContext parserRuleContext, Token start) {
-        super(parserRuleContext, start);
+    Case(Expression instance, List<CaseTest> caseTests, SourceToken token) {
+        super(token);
         this.instance = instance;
         this.caseTests = caseTests;
     }
@@ -230,8 +234,8 @@ class New extends Expression {
     Type type;
     private Scope scope;
 
-    New(Type type, ParserRuleContext parserRuleContext, Token start) {
-        super(parserRuleContext, start);
+    New(Type type, SourceToken token) {
+        super(token);
         this.type = type;
     }
 
@@ -252,8 +256,8 @@ class New extends Expression {
 class IsVoid extends Expression {
     Expression instance;
 
-    IsVoid(Expression instance, ParserRuleContext parserRuleContext, Token start) {
-        super(parserRuleContext, start);
+    IsVoid(Expression instance, SourceToken token) {
+        super(token);
         this.instance = instance;
     }
 
@@ -267,8 +271,8 @@ class Assign extends Expression {
     Id id;
     Expression expr;
 
-    Assign(Id id, Expression expr, ParserRuleContext parserRuleContext, Token token) {
-        super(parserRuleContext, token);
+    Assign(Id id, Expression expr, SourceToken token) {
+        super(token);
         this.id = id;
         this.expr = expr;
     }
@@ -283,8 +287,8 @@ class Relational extends Expression {
     Expression left;
     Expression right;
 
-    Relational(Expression left, Expression right, ParserRuleContext parserRuleContext, Token op) {
-        super(parserRuleContext, op);
+    Relational(Expression left, Expression right, SourceToken token) {
+        super(token);
         this.left = left;
         this.right = right;
     }
@@ -298,8 +302,8 @@ class Relational extends Expression {
 class Not extends Expression {
     Expression expr;
 
-    Not(Expression expr, ParserRuleContext parserRuleContext, Token op) {
-        super(parserRuleContext, op);
+    Not(Expression expr, SourceToken token) {
+        super(token);
         this.expr = expr;
     }
 
@@ -313,8 +317,8 @@ class Plus extends Expression {
     Expression left;
     Expression right;
 
-    Plus(Expression left, Expression right, ParserRuleContext parserRuleContext, Token op) {
-        super(parserRuleContext, op);
+    Plus(Expression left, Expression right, SourceToken token) {
+        super(token);
         this.left = left;
         this.right = right;
     }
@@ -328,8 +332,8 @@ class Minus extends Expression {
     Expression left;
     Expression right;
 
-    Minus(Expression left, Expression right, ParserRuleContext parserRuleContext, Token op) {
-        super(parserRuleContext, op);
+    Minus(Expression left, Expression right, SourceToken token) {
+        super(token);
         this.left = left;
         this.right = right;
     }
@@ -344,8 +348,8 @@ class Mult extends Expression {
     Expression left;
     Expression right;
 
-    Mult(Expression left, Expression right, ParserRuleContext parserRuleContext, Token op) {
-        super(parserRuleContext, op);
+    Mult(Expression left, Expression right, SourceToken token) {
+        super(token);
         this.left = left;
         this.right = right;
     }
@@ -359,8 +363,8 @@ class Div extends Expression {
     Expression left;
     Expression right;
 
-    Div(Expression left, Expression right, ParserRuleContext parserRuleContext, Token op) {
-        super(parserRuleContext, op);
+    Div(Expression left, Expression right, SourceToken token) {
+        super(token);
         this.left = left;
         this.right = right;
     }
@@ -374,8 +378,8 @@ class Div extends Expression {
 class Negate extends Expression {
     Expression expr;
 
-    Negate(Expression expr, ParserRuleContext parserRuleContext, Token op) {
-        super(parserRuleContext, op);
+    Negate(Expression expr, SourceToken token) {
+        super(token);
         this.expr = expr;
     }
 
@@ -392,8 +396,8 @@ class Dispatch extends Expression {
     Id id;
     List<Expression> args;
 
-    Dispatch(Expression instance, Type type, Id id, List<Expression> args, ParserRuleContext parserRuleContext, Token start) {
-        super(parserRuleContext, start);
+    Dispatch(Expression instance, Type type, Id id, List<Expression> args, SourceToken token) {
+        super(token);
         this.instance = instance;
         this.type = type;
         this.id = id;
@@ -409,8 +413,8 @@ class Dispatch extends Expression {
 class Type extends ASTNode {
     private ClassSymbol symbol;
 
-    Type(ParserRuleContext parserRuleContext, Token token) {
-        super(parserRuleContext, token);
+    Type(SourceToken token) {
+        super(token);
     }
 
     public <T> T accept(ASTVisitor<T> visitor) {
@@ -431,8 +435,8 @@ class Formal extends ASTNode {
     Type type;
     Id id;
 
-    Formal(Type type, Id id, ParserRuleContext parserRuleContext, Token token) {
-        super(parserRuleContext, token);
+    Formal(Type type, Id id, SourceToken token) {
+        super(token);
         this.type = type;
         this.id = id;
     }
@@ -445,8 +449,8 @@ class Formal extends ASTNode {
 // Clasă abstractă ce denotă un feature al unei clase.
 // Prin feature se înțelege fie o definiție de metodă, fie un atribut.
 abstract class Feature extends ASTNode {
-    Feature(ParserRuleContext parserRuleContext, Token token) {
-        super(parserRuleContext, token);
+    Feature(SourceToken token) {
+        super(token);
     }
 }
 
@@ -456,8 +460,8 @@ class AttributeDef extends Feature {
     Id id;
     Expression initValue;
 
-    AttributeDef(Type type, Id id, Expression initValue, ParserRuleContext parserRuleContext, Token token) {
-        super(parserRuleContext, token);
+    AttributeDef(Type type, Id id, Expression initValue, SourceToken token) {
+        super(token);
         this.type = type;
         this.id = id;
         this.initValue = initValue;
@@ -475,8 +479,8 @@ class MethodDef extends Feature {
     List<Formal> formals;
     Expression body;
 
-    MethodDef(Type type, Id id, List<Formal> formals, Expression body, ParserRuleContext parserRuleContext, Token token) {
-        super(parserRuleContext, token);
+    MethodDef(Type type, Id id, List<Formal> formals, Expression body, SourceToken token) {
+        super(token);
         this.type = type;
         this.id = id;
         this.formals = formals;
@@ -494,8 +498,8 @@ class ClassDef extends ASTNode {
     Type superType;
     List<Feature> features;
 
-    ClassDef(Type type, Type superType, List<Feature> features, ParserRuleContext parserRuleContext, Token token) {
-        super(parserRuleContext, token);
+    ClassDef(Type type, Type superType, List<Feature> features, SourceToken token) {
+        super(token);
         this.type = type;
         this.superType = superType;
         this.features = features;
@@ -510,8 +514,8 @@ class ClassDef extends ASTNode {
 class Program extends ASTNode {
     List<ClassDef> classes;
 
-    Program(List<ClassDef> classes, ParserRuleContext parserRuleContext, Token token) {
-        super(parserRuleContext, token);
+    Program(List<ClassDef> classes, SourceToken token) {
+        super(token);
         this.classes = classes;
     }
 
@@ -0,0 +1,254 @@
+package cool.parser.AST;
+
+import cool.structures.IdSymbol;
+
+import java.util.HashSet;
+import java.util.Set;
+
+// Analiză de dataflow care găsește dispatch-urile al căror receiver nu poate fi
+// void, pentru ca verificarea acestuia să poată fi omisă. O valoare este sigur
+// nevoidă dacă este self, un obiect nou, un literal, o expresie de tip Int /
+// String / Bool sau o variabilă (locală sau parametru formal) despre care se
+// știe deja că nu este void: a fost inițializată / atribuită cu o valoare
+// nevoidă sau un dispatch anterior pe ea a reușit. Atributele sunt excluse,
+// deoarece pot fi modificate de orice apel.
+//
+// Expresiile sunt parcurse în ordinea în care sunt evaluate în codul generat
+// (argumentele unui dispatch de la ultimul la primul, apoi instanța). Fiecare
+// visit întoarce true dacă valoarea expresiei este sigur nevoidă.
+class ASTNonVoidAnalysisVisitor extends ASTDefaultVisitor<Boolean> {
+    private final Set<Dispatch> nonVoidReceivers;
+
+    // Variabilele nevoide în punctul curent al evaluării.
+    private Set<IdSymbol> nonVoid = new HashSet<>();
+
+    private ASTNonVoidAnalysisVisitor(Set<Dispatch> nonVoidReceivers) {
+        this.nonVoidReceivers = nonVoidReceivers;
+    }
+
+    // Adaugă în nonVoidReceivers dispatch-urile din expr al căror receiver nu poate fi void.
+    static void analyze(Expression expr, Set<Dispatch> nonVoidReceivers) {
+        expr.accept(new ASTNonVoidAnalysisVisitor(nonVoidReceivers));
+    }
+
+    private static boolean isVariable(IdSymbol sym) {
+        return sym.getDefinitionType() == IdSymbol.DefinitionType.LOCAL
+                || sym.getDefinitionType() == IdSymbol.DefinitionType.FORMAL;
+    }
+
+    // Un Int / String / Bool nu poate fi void.
+    private static boolean hasPrimitiveType(Expression expr) {
+        return expr.getStaticType() != null && expr.getStaticType().isPrimitive();
+    }
+
+    private void define(IdSymbol sym, boolean isNonVoid) {
+        if (isNonVoid)
+            nonVoid.add(sym);
+        else
+            nonVoid.remove(sym);
+    }
+
+    @Override
+    public Boolean visit(Id id) {
+        var sym = id.getSymbol();
+        if (sym.getName().equals("self") || hasPrimitiveType(id))
+            return true;
+
+        return isVariable(sym) && nonVoid.contains(sym);
+    }
+
+    @Override
+    public Boolean visit(Int int_) {
+        return true;
+    }
+
+    @Override
+    public Boolean visit(String string) {
+        return true;
+    }
+
+    @Override
+    public Boolean visit(Bool bool_) {
+        return true;
+    }
+
+    @Override
+    public Boolean visit(If if_) {
+        if_.cond.accept(this);
+
+        var before = new HashSet<>(nonVoid);
+        boolean thenNonVoid = if_.thenBranch.accept(this);
+        var afterThen = nonVoid;
+
+        nonVoid = before;
+        boolean elseNonVoid = if_.elseBranch.accept(this);
+        nonVoid.retainAll(afterThen);
+
+        return thenNonVoid && elseNonVoid || hasPrimitiveType(if_);
+    }
+
+    @Override
+    public Boolean visit(While while_) {
+        // La începutul unei iterații sunt valabile doar faptele despre variabilele
+        // pe care bucla nu le modifică.
+        nonVoid.removeAll(AssignedVariables.of(while_));
+
+        while_.cond.accept(this);
+
+        var afterCond = new HashSet<>(nonVoid);
+        while_.body.accept(this);
+        nonVoid = afterCond;
+
+        // Valoarea unei bucle este void.
+        return false;
+    }
+
+    @Override
+    public Boolean visit(Block block) {
+        boolean isNonVoid = false;
+        for (var expr : block.exprs)
+            isNonVoid = expr.accept(this);
+
+        return isNonVoid;
+    }
+
+    @Override
+    public Boolean visit(Let let) {
+        for (var localDef : let.vars) {
+            var sym = localDef.id.getSymbol();
+
+            // Variabilele neinițializate de tip Int / String / Bool primesc o valoare implicită.
+            if (localDef.initValue != null)
+                define(sym, localDef.initValue.accept(this));
+            else
+                define(sym, sym.getType().isPrimitive());
+        }
+
+        return let.body.accept(this);
+    }
+
+    @Override
+    public Boolean visit(Case case_) {
+        case_.instance.accept(this);
+
+        var before = nonVoid;
+        Set<IdSymbol> after = null;
+        boolean isNonVoid = true;
+
+        for (var caseTest : case_.caseTests) {
+            nonVoid = new HashSet<>(before);
+
+            // Un case pe void se oprește cu eroare, deci variabila ramurii nu este void.
+            nonVoid.add(caseTest.id.getSymbol());
+            isNonVoid &= caseTest.body.accept(this);
+
+            if (after == null)
+                after = nonVoid;
+            else
+                after.retainAll(nonVoid);
+        }
+
+        nonVoid = after;
+        return isNonVoid || hasPrimitiveType(case_);
+    }
+
+    @Override
+    public Boolean visit(New new_) {
+        return true;
+    }
+
+    @Override
+    public Boolean visit(IsVoid isVoid) {
+        isVoid.instance.accept(this);
+        return true;
+    }
+
+    @Override
+    public Boolean visit(Assign assign) {
+        boolean isNonVoid = assign.expr.accept(this);
+
+        var sym = assign.id.getSymbol();
+        if (isVariable(sym))
+            define(sym, isNonVoid);
+
+        return isNonVoid;
+    }
+
+    @Override
+    public Boolean visit(Relational rel) {
+        super.visit(rel);
+        return true;
+    }
+
+    @Override
+    public Boolean visit(Not not) {
+        super.visit(not);
+        return true;
+    }
+
+    @Override
+    public Boolean visit(Plus plus) {
+        super.visit(plus);
+        return true;
+    }
+
+    @Override
+    public Boolean visit(Minus minus) {
+        super.visit(minus);
+        return true;
+    }
+
+    @Override
+    public Boolean visit(Mult mult) {
+        super.visit(mult);
+        return true;
+    }
+
+    @Override
+    public Boolean visit(Div div) {
+        super.visit(div);
+        return true;
+    }
+
+    @Override
+    public Boolean visit(Negate negate) {
+        super.visit(negate);
+        return true;
+    }
+
+    @Override
+    public Boolean visit(Dispatch dispatch) {
+        for (int i = dispatch.args.size() - 1; i >= 0; i--)
+            dispatch.args.get(i).accept(this);
+
+        // Fără instanță, receiver-ul este self.
+        if (dispatch.instance == null || dispatch.instance.accept(this))
+            nonVoidReceivers.add(dispatch);
+
+        // După un dispatch reușit, variabila folosită ca receiver nu este void.
+        if (dispatch.instance instanceof Id) {
+            var sym = ((Id)dispatch.instance).getSymbol();
+            if (isVariable(sym))
+                nonVoid.add(sym);
+        }
+
+        return hasPrimitiveType(dispatch);
+    }
+
+    // Variabilele atribuite într-o expresie.
+    static class AssignedVariables extends ASTDefaultVisitor<Void> {
+        private final Set<IdSymbol> variables = new HashSet<>();
+
+        static Set<IdSymbol> of(Expression expr) {
+            var visitor = new AssignedVariables();
+            expr.accept(visitor);
+            return visitor.variables;
+        }
+
+        @Override
+        public Void visit(Assign assign) {
+            variables.add(assign.id.getSymbol());
+            return super.visit(assign);
+        }
+    }
+}
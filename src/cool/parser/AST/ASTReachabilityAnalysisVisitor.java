@@ -0,0 +1,233 @@
+package cool.parser.AST;
+
+import cool.structures.ClassSymbol;
+import cool.structures.MethodSymbol;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+// Analiză a întregului program care găsește clasele și metodele folosite
+// pornind de la Main.main (-dce). O clasă este instanțiată dacă apare într-un
+// new (Main este instanțiată de runtime). Pentru un dispatch dinamic pe tipul
+// static T sunt atinse, conform ierarhiei de clase, implementările metodei din
+// toate clasele instanțiate derivate din T; un dispatch static atinge direct
+// metoda din tabela clasei date. Corpurile metodelor atinse și inițializările
+// atributelor claselor păstrate sunt analizate la rândul lor, până la punctul fix.
+//
+// O clasă este păstrată dacă este instanțiată sau este strămoșul unei clase
+// instanțiate (rutina ei de inițializare este apelată de cea a subclasei).
+class ASTReachabilityAnalysisVisitor extends ASTDefaultVisitor<Void> {
+    private final ASTCodeGenPassVisitor codegen;
+
+    private final Map<ClassSymbol, ClassDef> classDefs = new HashMap<>();
+    private final Map<MethodSymbol, MethodDef> methodDefs = new HashMap<>();
+
+    private final Set<ClassSymbol> instantiated = new HashSet<>();
+    private final Set<ClassSymbol> kept = new HashSet<>();
+    private final Set<MethodSymbol> reachable = new HashSet<>();
+
+    // Clasele ale căror tabele de dispatch sunt folosite de dispatch-uri statice.
+    private final Set<ClassSymbol> staticDispatchTypes = new HashSet<>();
+
+    // Indecșii din VMTable ai dispatch-urilor dinamice întâlnite, după tipul
+    // static, pentru a fi rezolvați și pe clasele instanțiate ulterior.
+    private final Map<ClassSymbol, Set<Integer>> dispatchSites = new HashMap<>();
+
+    // Expresiile care urmează să fie analizate, împreună cu clasa lui self.
+    private final ArrayDeque<Work> pending = new ArrayDeque<>();
+
+    // Clasa lui self în expresia analizată.
+    private ClassSymbol currentClass;
+
+    private static class Work {
+        final ClassSymbol selfClass;
+        final Expression expr;
+
+        Work(ClassSymbol selfClass, Expression expr) {
+            this.selfClass = selfClass;
+            this.expr = expr;
+        }
+    }
+
+    private ASTReachabilityAnalysisVisitor(ASTCodeGenPassVisitor codegen) {
+        this.codegen = codegen;
+    }
+
+    // Rezultatul analizei, sau null dacă programul nu are metoda Main.main.
+    static ASTReachabilityAnalysisVisitor analyze(ASTCodeGenPassVisitor codegen, Program program) {
+        var analysis = new ASTReachabilityAnalysisVisitor(codegen);
+
+        ClassSymbol main = null;
+        for (var class_ : program.classes) {
+            var sym = class_.type.getSymbol();
+            analysis.classDefs.put(sym, class_);
+
+            for (var feat : class_.features) {
+                if (feat instanceof MethodDef)
+                    analysis.methodDefs.put((MethodSymbol)((MethodDef)feat).id.getSymbol(), (MethodDef)feat);
+            }
+
+            if (sym.getName().equals("Main"))
+                main = sym;
+        }
+
+        var mainMethod = (main == null) ? null : main.getVMTable().stream()
+                .filter(m -> m.getName().equals("main"))
+                .findFirst()
+                .orElse(null);
+        if (mainMethod == null)
+            return null;
+
+        // Indecșii metodelor sunt stabiliți la construirea tabelelor de dispatch.
+        var root = main;
+        while (root.getParent() != null)
+            root = (ClassSymbol)root.getParent();
+        buildVMTables(root);
+
+        analysis.instantiate(main);
+        analysis.reach(mainMethod);
+
+        while (!analysis.pending.isEmpty()) {
+            var work = analysis.pending.remove();
+            analysis.currentClass = work.selfClass;
+            work.expr.accept(analysis);
+        }
+
+        return analysis;
+    }
+
+    private static void buildVMTables(ClassSymbol sym) {
+        sym.getVMTable();
+        for (var child : sym.getChildren())
+            buildVMTables(child);
+    }
+
+    // Clasa are prototip, tabelă de dispatch și rutină de inițializare.
+    boolean isKept(ClassSymbol sym) {
+        return sym.isBuiltIn() || kept.contains(sym);
+    }
+
+    // Tabela de dispatch a clasei este folosită, chiar dacă nu este păstrată.
+    boolean hasDispTable(ClassSymbol sym) {
+        return isKept(sym) || staticDispatchTypes.contains(sym);
+    }
+
+    // Metoda poate fi apelată, deci corpul ei trebuie generat.
+    boolean isReachable(MethodSymbol method) {
+        return !methodDefs.containsKey(method) || reachable.contains(method);
+    }
+
+    // Clasa are cod de generat: rutina de inițializare sau metode atinse.
+    boolean hasCode(ClassDef class_) {
+        if (isKept(class_.type.getSymbol()))
+            return true;
+
+        for (var feat : class_.features) {
+            if (feat instanceof MethodDef && isReachable((MethodSymbol)((MethodDef)feat).id.getSymbol()))
+                return true;
+        }
+
+        return false;
+    }
+
+    int getKeptClassCount() {
+        return (int)classDefs.keySet().stream().filter(kept::contains).count();
+    }
+
+    int getClassCount() {
+        return classDefs.size();
+    }
+
+    int getReachableMethodCount() {
+        return (int)reachable.stream().filter(methodDefs::containsKey).count();
+    }
+
+    int getMethodCount() {
+        return methodDefs.size();
+    }
+
+    private void instantiate(ClassSymbol sym) {
+        if (!instantiated.add(sym))
+            return;
+
+        // Inițializarea obiectului rulează și inițializările atributelor strămoșilor.
+        for (var c = sym; c != null && kept.add(c); c = (ClassSymbol)c.getParent()) {
+            var class_ = classDefs.get(c);
+            if (class_ == null)
+                continue;
+
+            for (var feat : class_.features) {
+                if (feat instanceof AttributeDef && ((AttributeDef)feat).initValue != null)
+                    pending.add(new Work(c, ((AttributeDef)feat).initValue));
+            }
+        }
+
+        var vmTable = sym.getVMTable();
+        dispatchSites.forEach((staticType, indices) -> {
+            if (sym.isSubclassOf(staticType))
+                indices.forEach(index -> reach(vmTable.get(index)));
+        });
+    }
+
+    private void reach(MethodSymbol method) {
+        if (!reachable.add(method))
+            return;
+
+        var methodDef = methodDefs.get(method);
+        if (methodDef != null)
+            pending.add(new Work((ClassSymbol)method.getParent(), methodDef.body));
+    }
+
+    @Override
+    public Void visit(New new_) {
+        // Un new SELF_TYPE creează un obiect de clasa lui self, deja instanțiată.
+        var type = new_.getStaticType();
+        if (!type.isSelfType())
+            instantiate(type);
+
+        return null;
+    }
+
+    @Override
+    public Void visit(Dispatch dispatch) {
+        super.visit(dispatch);
+
+        var index = dispatch.id.getSymbol().getIndex();
+        if (dispatch.type != null) {
+            staticDispatchTypes.add(dispatch.type.getSymbol());
+            reach(dispatch.type.getSymbol().getVMTable().get(index));
+            return null;
+        }
+
+        var staticType = (dispatch.instance == null) ? currentClass : dispatch.instance.getStaticType().getActualType();
+        if (dispatchSites.computeIfAbsent(staticType, x -> new HashSet<>()).add(index)) {
+            for (var sym : instantiated) {
+                if (sym.isSubclassOf(staticType))
+                    reach(sym.getVMTable().get(index));
+            }
+        }
+
+        // Apelurile directe și metodele expandate inline se referă la metoda
+        // unică din ierarhie chiar dacă nicio clasă potrivită nu este instanțiată.
+        // Într-o metodă expandată inline, self poate fi orice subclasă, deci
+        // dispatch-urile pe self pot ajunge la oricare dintre implementări.
+        if (codegen.inline && dispatch.instance == null) {
+            reachAll(currentClass, index);
+        } else if (codegen.devirtualizes() || codegen.inline) {
+            var method = codegen.monomorphicTarget(dispatch, currentClass);
+            if (method != null)
+                reach(method);
+        }
+
+        return null;
+    }
+
+    private void reachAll(ClassSymbol sym, int index) {
+        reach(sym.getVMTable().get(index));
+        for (var child : sym.getChildren())
+            reachAll(child, index);
+    }
+}
@@ -1,13 +1,84 @@
 package cool.parser.AST;
 
+import cool.compiler.CompilationContext;
 import cool.parser.CoolParser;
 import cool.structures.*;
 import cool.util.stream;
 import org.antlr.v4.runtime.misc.Pair;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
 
 public class ASTResolutionPassVisitor extends ASTDefaultVisitor<ClassSymbol> {
+    private final CompilationContext context;
+    private final SymbolTable symbolTable;
+
+    // Erorile găsite în clasa verificată, atunci când clasele sunt verificate
+    // în paralel. Null dacă erorile sunt raportate imediat.
+    private final List<java.lang.String> diagnostics;
+
+    public ASTResolutionPassVisitor(CompilationContext context) {
+        this(context, null);
+    }
+
+    private ASTResolutionPassVisitor(CompilationContext context, List<java.lang.String> diagnostics) {
+        this.context = context;
+        this.symbolTable = context.symbolTable;
+        this.diagnostics = diagnostics;
+    }
+
+    private void error(ASTNode node, java.lang.String str) {
+        if (diagnostics == null)
+            symbolTable.error(node, str);
+        else
+            diagnostics.add(symbolTable.formatError(node.getToken(), str));
+    }
+
+    @Override
+    public ClassSymbol visit(Program program) {
+        var jobs = context.options.getJobs();
+        if (jobs <= 1 || program.classes.size() <= 1)
+            return super.visit(program);
+
+        // După trecerile anterioare ierarhia de clase este fixată, iar verificarea
+        // unei clase doar citește simbolurile partajate și adnotează propriul
+        // subarbore AST. Clasele pot fi astfel verificate în paralel, fiecare cu
+        // propriul visitor. Erorile sunt raportate în ordinea claselor din sursă.
+        var tasks = new ArrayList<Callable<List<java.lang.String>>>(program.classes.size());
+        for (var class_ : program.classes) {
+            tasks.add(() -> {
+                var classDiagnostics = new ArrayList<java.lang.String>();
+                class_.accept(new ASTResolutionPassVisitor(context, classDiagnostics));
+                return classDiagnostics;
+            });
+        }
+
+        var pool = new ForkJoinPool(jobs);
+        try {
+            for (var result : pool.invokeAll(tasks))
+                symbolTable.reportErrors(result.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while type checking", e);
+        } catch (ExecutionException e) {
+            var cause = e.getCause();
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException)cause;
+            if (cause instanceof Error)
+                throw (Error)cause;
+
+            throw new IllegalStateException(cause);
+        } finally {
+            pool.shutdown();
+        }
+
+        return null;
+    }
+
     private static ClassSymbol getCurrentClass(Scope scope) {
         while (!(scope instanceof ClassSymbol)) {
             scope = scope.getParent();
@@ -30,6 +101,14 @@ public class ASTResolutionPassVisitor extends ASTDefaultVisitor<ClassSymbol> {
         return getCurrentClass(scope).getSelfType();
     }
 
+    // Verifică expresia și îi reține tipul static, folosit ulterior de
+    // generatorul de cod.
+    private ClassSymbol typeOf(Expression expr) {
+        var type = expr.accept(this);
+        expr.setStaticType(type);
+        return type;
+    }
+
     @Override
     public ClassSymbol visit(Id id) {
         var idSymbol = id.getSymbol();
@@ -41,23 +120,23 @@ public class ASTResolutionPassVisitor extends ASTDefaultVisitor<ClassSymbol> {
 
     @Override
     public ClassSymbol visit(Int int_) {
-        return ActualClassSymbol.INT;
+        return symbolTable.INT;
     }
 
     @Override
     public ClassSymbol visit(String string) {
-        return ActualClassSymbol.STRING;
+        return symbolTable.STRING;
     }
 
     @Override
     public ClassSymbol visit(Bool bool_) {
-        return ActualClassSymbol.BOOL;
+        return symbolTable.BOOL;
     }
 
     @Override
     public ClassSymbol visit(IsVoid isVoid) {
-        super.visit(isVoid);
-        return ActualClassSymbol.BOOL;
+        typeOf(isVoid.instance);
+        return symbolTable.BOOL;
     }
 
     @Override
@@ -76,7 +155,6 @@ public class ASTResolutionPassVisitor extends ASTDefaultVisitor<ClassSymbol> {
     public ClassSymbol visit(Dispatch dispatch) {
         var id = dispatch.id;
         var idName = id.getToken().getText();
-        var decoratedIdName = MethodSymbol.decorate(idName);
         var scope = id.getScope();
 
         // Tipul instanței pe care se aplică metoda.
@@ -91,9 +169,9 @@ public class ASTResolutionPassVisitor extends ASTDefaultVisitor<ClassSymbol> {
             // pe atributul self al clasei curente (clasa din care e apelată metoda)
             // Apelul simplificat arată astfel: f(e')
 
-            var selfSymbol = (IdSymbol)scope.lookup("self");
+            var selfSymbol = (IdSymbol)scope.lookup(symbolTable.selfName);
             if (selfSymbol == null) {
-                SymbolTable.error(dispatch.id, "Method " + idName + " cant find implicit self");
+                error(dispatch.id, "Method " + idName + " cant find implicit self");
                 return null;
             }
 
@@ -101,7 +179,7 @@ public class ASTResolutionPassVisitor extends ASTDefaultVisitor<ClassSymbol> {
             lookupType = instanceType;
         }
         else {
-            instanceType = dispatch.instance.accept(this);
+            instanceType = typeOf(dispatch.instance);
             if (instanceType == null) {
                 return null;
             }
@@ -124,36 +202,36 @@ public class ASTResolutionPassVisitor extends ASTDefaultVisitor<ClassSymbol> {
         lookupType = resolveSelfTypeToCurrentContextIfNecessary(id.getScope(), lookupType);
 
         if (!instanceType.isSubclassOf(lookupType)) {
-            SymbolTable.error(dispatch.type, "Type " + lookupType + " of static dispatch is not a superclass of type " + instanceType);
+            error(dispatch.type, "Type " + lookupType + " of static dispatch is not a superclass of type " + instanceType);
             return null;
         }
 
-        var methodSymbol = (MethodSymbol) lookupType.lookup(decoratedIdName);
+        var methodSymbol = lookupType.lookupMethod(id.getToken().getNameId());
         if (methodSymbol == null) {
-            SymbolTable.error(dispatch.id, "Undefined method " + idName + " in class " + lookupType);
+            error(dispatch.id, "Undefined method " + idName + " in class " + lookupType);
             return null;
         }
 
         var methodFormals = methodSymbol.getFormals();
         if (methodFormals.size() != dispatch.args.size()) {
-            SymbolTable.error(dispatch.id, "Method " + idName + " of class " + lookupType + " is applied to wrong number of arguments");
+            error(dispatch.id, "Method " + idName + " of class " + lookupType + " is applied to wrong number of arguments");
             return resolveReturnTypeToActualType(instanceType, methodSymbol.getType());
         }
 
         var actualInvokeTypes = dispatch.args
                 .stream()
-                .map(x -> new Pair<>(x, x.accept(this)))
+                .map(x -> new Pair<>(x, typeOf(x)))
                 .filter(x -> x.b != null);
 
         if (actualInvokeTypes.count() != methodFormals.size()) {
-            SymbolTable.error(dispatch.id, "Method " + idName + " of class " + lookupType + "  something bad happened");
+            error(dispatch.id, "Method " + idName + " of class " + lookupType + "  something bad happened");
             // Una sau mai multe expresii ale parametrilor actuali a produs o eroare de tip. Stop!
             return resolveReturnTypeToActualType(instanceType, methodSymbol.getType());
         }
 
         actualInvokeTypes = dispatch.args
                 .stream()
-                .map(x -> new Pair<>(x, x.accept(this)))
+                .map(x -> new Pair<>(x, typeOf(x)))
                 .filter(x -> x.b != null);
 
         class TypeMismatch {
@@ -169,11 +247,9 @@ public class ASTResolutionPassVisitor extends ASTDefaultVisitor<ClassSymbol> {
         }
 
         var typeMismatch = stream.zip(
-                        methodSymbol.getFormals().entrySet().stream(),
+                        methodSymbol.getFormals().stream(),
                         actualInvokeTypes,
-                        (formalEntry, actualType) -> {
-                            var formalName = formalEntry.getKey();
-                            var formalSymbol = formalEntry.getValue();
+                        (formalSymbol, actualType) -> {
                             var formalType = formalSymbol.getType();
 
                             if (!actualType.b.isSubclassOf(formalType)) {
@@ -189,7 +265,7 @@ public class ASTResolutionPassVisitor extends ASTDefaultVisitor<ClassSymbol> {
         if (typeMismatch.isPresent()) {
             var mismatch = typeMismatch.get();
 
-            SymbolTable.error(mismatch.actualExpr, "In call to method " + methodSymbol + " of class " + lookupType + ", actual type " + mismatch.actualType + " of formal parameter " + mismatch.formalSymbol.getName() + " is incompatible with declared type " + mismatch.formalSymbol.getType());
+            error(mismatch.actualExpr, "In call to method " + methodSymbol + " of class " + lookupType + ", actual type " + mismatch.actualType + " of formal parameter " + mismatch.formalSymbol.getName() + " is incompatible with declared type " + mismatch.formalSymbol.getType());
             return resolveReturnTypeToActualType(instanceType, methodSymbol.getType());
         }
 
@@ -201,10 +277,10 @@ public class ASTResolutionPassVisitor extends ASTDefaultVisitor<ClassSymbol> {
     public ClassSymbol visit(Block block) {
         return block.exprs
                 .stream()
-                .map(x -> x.accept(this))
+                .map(this::typeOf)
                 .filter(Objects::nonNull)
                 .reduce((a, b) -> b)
-                .orElse(ActualClassSymbol.OBJECT);
+                .orElse(symbolTable.OBJECT);
     }
 
     private interface AssignmentErrorMessageFormatter {
@@ -228,13 +304,13 @@ public class ASTResolutionPassVisitor extends ASTDefaultVisitor<ClassSymbol> {
 
         // TODO: Poate ar trebui ca în caz de eroare (exprType == null)
         //       să întorc de asemenea null
-        var exprType = exprNode.accept(this);
+        var exprType = typeOf(exprNode);
 
         if (exprType != null) {
             exprType = resolveSelfTypeToCurrentContextIfNecessary(destNode.getScope(), exprType);
 
             if (exprType.getSelfType() != idType.getSelfType() && !exprType.isSubclassOf(idType)) {
-                SymbolTable.error(exprNode, errorFormatter.format(exprType, idSymbol, idType));
+                error(exprNode, errorFormatter.format(exprType, idSymbol, idType));
                 return null;
             }
         }
@@ -268,13 +344,13 @@ public class ASTResolutionPassVisitor extends ASTDefaultVisitor<ClassSymbol> {
 
         // TODO: Poate ar trebui ca în caz de eroare (exprType == null)
         //       să întorc de asemenea null
-        var exprType = exprNode.accept(this);
+        var exprType = typeOf(exprNode);
 
         if (exprType != null) {
             exprType = resolveSelfTypeToCurrentContextIfNecessary(destNode.getScope(), exprType);
 
             if (!exprType.isSubclassOf(idType)) {
-                SymbolTable.error(exprNode, "Type " + exprType + " of the body of method " + idSymbol + " is incompatible with declared return type " + idType);
+                error(exprNode, "Type " + exprType + " of the body of method " + idSymbol + " is incompatible with declared return type " + idType);
                 return null;
             }
         }
@@ -302,17 +378,17 @@ public class ASTResolutionPassVisitor extends ASTDefaultVisitor<ClassSymbol> {
     @Override
     public ClassSymbol visit(Let let) {
         let.vars.forEach(x -> x.accept(this));
-        return let.body.accept(this);
+        return typeOf(let.body);
     }
 
     @Override
     public ClassSymbol visit(CaseTest caseTest) {
-        return caseTest.body.accept(this);
+        return typeOf(caseTest.body);
     }
 
     @Override
     public ClassSymbol visit(Case case_) {
-        case_.instance.accept(this);
+        typeOf(case_.instance);
 
         var lub = case_.caseTests
                 .stream()
@@ -320,53 +396,53 @@ public class ASTResolutionPassVisitor extends ASTDefaultVisitor<ClassSymbol> {
                 .filter(Objects::nonNull)
                 .reduce(ClassSymbol::getLeastUpperBound);
 
-        return lub.orElse(ActualClassSymbol.OBJECT);
+        return lub.orElse(symbolTable.OBJECT);
     }
 
     @Override
     public ClassSymbol visit(While while_) {
-        var condType = while_.cond.accept(this);
-        while_.body.accept(this);
+        var condType = typeOf(while_.cond);
+        typeOf(while_.body);
 
-        if (condType != null && condType != ActualClassSymbol.BOOL) {
-            SymbolTable.error(while_.cond, "While condition has type " + condType + " instead of Bool");
+        if (condType != null && condType != symbolTable.BOOL) {
+            error(while_.cond, "While condition has type " + condType + " instead of Bool");
         }
 
-        return ActualClassSymbol.OBJECT;
+        return symbolTable.OBJECT;
     }
 
     @Override
     public ClassSymbol visit(If if_) {
-        var condType = if_.cond.accept(this);
-        var thenType = if_.thenBranch.accept(this);
-        var elseType = if_.elseBranch.accept(this);
+        var condType = typeOf(if_.cond);
+        var thenType = typeOf(if_.thenBranch);
+        var elseType = typeOf(if_.elseBranch);
 
         // Dacă oricare subexpresie generează o eroare de tip, consider că întreaga expresie if are tipul Object.
-        if (condType != null && condType != ActualClassSymbol.BOOL) {
-            SymbolTable.error(if_.cond, "If condition has type " + condType + " instead of Bool");
-            return ActualClassSymbol.OBJECT;
+        if (condType != null && condType != symbolTable.BOOL) {
+            error(if_.cond, "If condition has type " + condType + " instead of Bool");
+            return symbolTable.OBJECT;
         }
 
         if (condType == null || thenType == null || elseType == null)
-            return ActualClassSymbol.OBJECT;
+            return symbolTable.OBJECT;
 
         return thenType.getLeastUpperBound(elseType);
     }
 
-    private boolean validateRelationalArithmeticOperand(ASTNode node, ClassSymbol type, ASTNode operator, ClassSymbol expectedType)
+    private boolean validateRelationalArithmeticOperand(Expression node, ClassSymbol type, ASTNode operator, ClassSymbol expectedType)
     {
         if (type != expectedType) {
-            SymbolTable.error(node, "Operand of " + operator.getToken().getText() + " has type " + type + " instead of " + expectedType);
+            error(node, "Operand of " + operator.getToken().getText() + " has type " + type + " instead of " + expectedType);
             return false;
         }
 
         return true;
     }
 
-    private boolean validateRelationalArithmeticOperation(ASTNode leftNode, ASTNode rightNode, ASTNode operator, ClassSymbol expectedType)
+    private boolean validateRelationalArithmeticOperation(Expression leftNode, Expression rightNode, ASTNode operator, ClassSymbol expectedType)
     {
-        var leftType = leftNode.accept(this);
-        var rightType = rightNode == null ? null : rightNode.accept(this);
+        var leftType = typeOf(leftNode);
+        var rightType = rightNode == null ? null : typeOf(rightNode);
 
         if (leftType == null || rightNode != null && rightType == null)
             return false;
@@ -385,68 +461,68 @@ public class ASTResolutionPassVisitor extends ASTDefaultVisitor<ClassSymbol> {
         var operator = rel.getToken();
 
         if (operator.getType() == CoolParser.EQUAL) {
-            var leftType = rel.left.accept(this);
-            var rightType = rel.right.accept(this);
+            var leftType = typeOf(rel.left);
+            var rightType = typeOf(rel.right);
 
             if (leftType == null || rightType == null)
                 return null;
 
             if (leftType != rightType && (leftType.isPrimitive() || rightType.isPrimitive())) {
-                SymbolTable.error(rel, "Cannot compare " + leftType + " with " + rightType);
+                error(rel, "Cannot compare " + leftType + " with " + rightType);
                 return null;
             }
         }
-        else if (!validateRelationalArithmeticOperation(rel.left, rel.right, rel, ActualClassSymbol.INT)) {
+        else if (!validateRelationalArithmeticOperation(rel.left, rel.right, rel, symbolTable.INT)) {
             return null;
         }
 
-        return ActualClassSymbol.BOOL;
+        return symbolTable.BOOL;
     }
 
     @Override
     public ClassSymbol visit(Not not) {
-        if (!validateRelationalArithmeticOperation(not.expr, null, not, ActualClassSymbol.BOOL))
+        if (!validateRelationalArithmeticOperation(not.expr, null, not, symbolTable.BOOL))
             return null;
 
-        return ActualClassSymbol.BOOL;
+        return symbolTable.BOOL;
     }
 
     @Override
     public ClassSymbol visit(Plus plus) {
-        if (!validateRelationalArithmeticOperation(plus.left, plus.right, plus, ActualClassSymbol.INT))
+        if (!validateRelationalArithmeticOperation(plus.left, plus.right, plus, symbolTable.INT))
             return null;
 
-        return ActualClassSymbol.INT;
+        return symbolTable.INT;
     }
 
     @Override
     public ClassSymbol visit(Minus minus) {
-        if (!validateRelationalArithmeticOperation(minus.left, minus.right, minus, ActualClassSymbol.INT))
+        if (!validateRelationalArithmeticOperation(minus.left, minus.right, minus, symbolTable.INT))
             return null;
 
-        return ActualClassSymbol.INT;
+        return symbolTable.INT;
     }
 
     @Override
     public ClassSymbol visit(Mult mult) {
-        if (!validateRelationalArithmeticOperation(mult.left, mult.right, mult, ActualClassSymbol.INT))
+        if (!validateRelationalArithmeticOperation(mult.left, mult.right, mult, symbolTable.INT))
             return null;
 
-        return ActualClassSymbol.INT;
+        return symbolTable.INT;
     }
 
     @Override
     public ClassSymbol visit(Div div) {
-        if (!validateRelationalArithmeticOperation(div.left, div.right, div, ActualClassSymbol.INT))
+        if (!validateRelationalArithmeticOperation(div.left, div.right, div, symbolTable.INT))
             return null;
 
-        return ActualClassSymbol.INT;
+        return symbolTable.INT;
     }
 
     @Override
     public ClassSymbol visit(Negate negate) {
         // Checker-ul nu vrea această eroare propagată mai sus
-        validateRelationalArithmeticOperation(negate.expr, null, negate, ActualClassSymbol.INT);
-        return ActualClassSymbol.INT;
+        validateRelationalArithmeticOperation(negate.expr, null, negate, symbolTable.INT);
+        return symbolTable.INT;
     }
 }
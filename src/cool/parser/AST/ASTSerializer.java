@@ -0,0 +1,477 @@
+package cool.parser.AST;
+
+import cool.structures.NameTable;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Serializare compactă a AST-ului construit pentru un fișier sursă, folosită de
+// cache-ul de compilare incrementală.
+//
+// Nodurile sunt scrise în preordine: un octet pentru tipul nodului (0 pentru
+// null), token-ul descriptiv al nodului și apoi copiii, în ordinea câmpurilor.
+// Textele token-urilor sunt păstrate într-o tabelă de șiruri, astfel încât
+// fiecare identificator apare o singură dată în fișier.
+public class ASTSerializer {
+    // Trebuie incrementată la orice modificare a formatului, a nodurilor AST
+    // sau a modului în care acestea sunt construite.
+    public static final int FORMAT_VERSION = 1;
+
+    private static final int MAGIC = 0x434f4f4c;
+
+    private static final int NULL = 0;
+    private static final int ID = 1;
+    private static final int INT = 2;
+    private static final int STRING = 3;
+    private static final int BOOL = 4;
+    private static final int IF = 5;
+    private static final int WHILE = 6;
+    private static final int BLOCK = 7;
+    private static final int LOCAL_DEF = 8;
+    private static final int LET = 9;
+    private static final int CASE_TEST = 10;
+    private static final int CASE = 11;
+    private static final int NEW = 12;
+    private static final int IS_VOID = 13;
+    private static final int ASSIGN = 14;
+    private static final int RELATIONAL = 15;
+    private static final int NOT = 16;
+    private static final int PLUS = 17;
+    private static final int MINUS = 18;
+    private static final int MULT = 19;
+    private static final int DIV = 20;
+    private static final int NEGATE = 21;
+    private static final int DISPATCH = 22;
+    private static final int TYPE = 23;
+    private static final int FORMAL = 24;
+    private static final int ATTRIBUTE_DEF = 25;
+    private static final int METHOD_DEF = 26;
+    private static final int CLASS_DEF = 27;
+    private static final int PROGRAM = 28;
+
+    public static void write(ASTNode program, OutputStream out) throws IOException {
+        var dataOut = new DataOutputStream(new BufferedOutputStream(out));
+        dataOut.writeInt(MAGIC);
+        dataOut.writeInt(FORMAT_VERSION);
+
+        try {
+            new Writer(dataOut).write(program);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        dataOut.flush();
+    }
+
+    // Reconstruiește AST-ul unui fișier, ale cărui token-uri vor indica
+    // fișierul cu indexul dat. Numele sunt internate în tabela dată.
+    public static ASTNode read(InputStream in, int fileId, NameTable names) throws IOException {
+        var dataIn = new DataInputStream(new BufferedInputStream(in));
+        if (dataIn.readInt() != MAGIC || dataIn.readInt() != FORMAT_VERSION)
+            throw new IOException("Unsupported AST format");
+
+        try {
+            var program = new Reader(dataIn, fileId, names).readNode();
+            if (!(program instanceof Program))
+                throw new IOException("Malformed AST");
+
+            return program;
+        } catch (ClassCastException | IndexOutOfBoundsException e) {
+            throw new IOException("Malformed AST", e);
+        }
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7f) != 0) {
+            out.writeByte((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7f) << shift;
+            if ((b & 0x80) == 0)
+                return value;
+        }
+
+        throw new IOException("Malformed varint");
+    }
+
+    private static class Writer implements ASTVisitor<Void> {
+        private final DataOutputStream out;
+        private final Map<java.lang.String, Integer> strings = new HashMap<>();
+
+        Writer(DataOutputStream out) {
+            this.out = out;
+        }
+
+        void write(ASTNode node) {
+            if (node == null)
+                writeByte(NULL);
+            else
+                node.accept(this);
+        }
+
+        void write(List<? extends ASTNode> nodes) {
+            writeVarInt(nodes.size());
+            nodes.forEach(this::write);
+        }
+
+        // Tipul nodului, urmat de token-ul său.
+        void header(int kind, ASTNode node) {
+            writeByte(kind);
+
+            var token = node.getToken();
+            writeVarInt(token.getType() + 1);
+            writeVarInt(token.getLine());
+            writeVarInt(token.getCharPositionInLine());
+
+            // Un șir nou este scris imediat după indexul său.
+            var text = token.getText();
+            var index = strings.get(text);
+            if (index != null)
+                writeVarInt(index);
+            else {
+                writeVarInt(strings.size());
+                strings.put(text, strings.size());
+                try {
+                    out.writeUTF(text);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+
+        void writeByte(int value) {
+            try {
+                out.writeByte(value);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void writeVarInt(int value) {
+            try {
+                ASTSerializer.writeVarInt(out, value);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public Void visit(Id id) {
+            header(ID, id);
+            return null;
+        }
+
+        @Override
+        public Void visit(Int int_) {
+            header(INT, int_);
+            return null;
+        }
+
+        @Override
+        public Void visit(String string) {
+            header(STRING, string);
+            return null;
+        }
+
+        @Override
+        public Void visit(Bool bool_) {
+            header(BOOL, bool_);
+            return null;
+        }
+
+        @Override
+        public Void visit(If if_) {
+            header(IF, if_);
+            write(if_.cond);
+            write(if_.thenBranch);
+            write(if_.elseBranch);
+            return null;
+        }
+
+        @Override
+        public Void visit(While while_) {
+            header(WHILE, while_);
+            write(while_.cond);
+            write(while_.body);
+            return null;
+        }
+
+        @Override
+        public Void visit(Block block) {
+            header(BLOCK, block);
+            write(block.exprs);
+            return null;
+        }
+
+        @Override
+        public Void visit(LocalDef localDef) {
+            header(LOCAL_DEF, localDef);
+            write(localDef.type);
+            write(localDef.id);
+            write(localDef.initValue);
+            return null;
+        }
+
+        @Override
+        public Void visit(Let let) {
+            header(LET, let);
+            write(let.vars);
+            write(let.body);
+            return null;
+        }
+
+        @Override
+        public Void visit(CaseTest caseTest) {
+            header(CASE_TEST, caseTest);
+            write(caseTest.id);
+            write(caseTest.type);
+            write(caseTest.body);
+            return null;
+        }
+
+        @Override
+        public Void visit(Case case_) {
+            header(CASE, case_);
+            write(case_.instance);
+            write(case_.caseTests);
+            return null;
+        }
+
+        @Override
+        public Void visit(New new_) {
+            header(NEW, new_);
+            write(new_.type);
+            return null;
+        }
+
+        @Override
+        public Void visit(IsVoid isVoid) {
+            header(IS_VOID, isVoid);
+            write(isVoid.instance);
+            return null;
+        }
+
+        @Override
+        public Void visit(Assign assign) {
+            header(ASSIGN, assign);
+            write(assign.id);
+            write(assign.expr);
+            return null;
+        }
+
+        @Override
+        public Void visit(Relational rel) {
+            header(RELATIONAL, rel);
+            write(rel.left);
+            write(rel.right);
+            return null;
+        }
+
+        @Override
+        public Void visit(Not not) {
+            header(NOT, not);
+            write(not.expr);
+            return null;
+        }
+
+        @Override
+        public Void visit(Plus plus) {
+            header(PLUS, plus);
+            write(plus.left);
+            write(plus.right);
+            return null;
+        }
+
+        @Override
+        public Void visit(Minus minus) {
+            header(MINUS, minus);
+            write(minus.left);
+            write(minus.right);
+            return null;
+        }
+
+        @Override
+        public Void visit(Mult mult) {
+            header(MULT, mult);
+            write(mult.left);
+            write(mult.right);
+            return null;
+        }
+
+        @Override
+        public Void visit(Div div) {
+            header(DIV, div);
+            write(div.left);
+            write(div.right);
+            return null;
+        }
+
+        @Override
+        public Void visit(Negate negate) {
+            header(NEGATE, negate);
+            write(negate.expr);
+            return null;
+        }
+
+        @Override
+        public Void visit(Dispatch dispatch) {
+            header(DISPATCH, dispatch);
+            write(dispatch.instance);
+            write(dispatch.type);
+            write(dispatch.id);
+            write(dispatch.args);
+            return null;
+        }
+
+        @Override
+        public Void visit(Type type) {
+            header(TYPE, type);
+            return null;
+        }
+
+        @Override
+        public Void visit(Formal formal) {
+            header(FORMAL, formal);
+            write(formal.type);
+            write(formal.id);
+            return null;
+        }
+
+        @Override
+        public Void visit(AttributeDef attributeDef) {
+            header(ATTRIBUTE_DEF, attributeDef);
+            write(attributeDef.type);
+            write(attributeDef.id);
+            write(attributeDef.initValue);
+            return null;
+        }
+
+        @Override
+        public Void visit(MethodDef methodDef) {
+            header(METHOD_DEF, methodDef);
+            write(methodDef.type);
+            write(methodDef.id);
+            write(methodDef.formals);
+            write(methodDef.body);
+            return null;
+        }
+
+        @Override
+        public Void visit(ClassDef class_) {
+            header(CLASS_DEF, class_);
+            write(class_.type);
+            write(class_.superType);
+            write(class_.features);
+            return null;
+        }
+
+        @Override
+        public Void visit(Program program) {
+            header(PROGRAM, program);
+            write(program.classes);
+            return null;
+        }
+    }
+
+    private static class Reader {
+        private final DataInputStream in;
+        private final int fileId;
+        private final NameTable names;
+        private final List<java.lang.String> strings = new ArrayList<>();
+
+        Reader(DataInputStream in, int fileId, NameTable names) {
+            this.in = in;
+            this.fileId = fileId;
+            this.names = names;
+        }
+
+        ASTNode readNode() throws IOException {
+            var kind = in.readUnsignedByte();
+            if (kind == NULL)
+                return null;
+
+            var token = readToken();
+
+            // Argumentele sunt evaluate de la stânga la dreapta, deci în
+            // ordinea în care au fost scrise.
+            return switch (kind) {
+                case ID -> new Id(token);
+                case INT -> new Int(token);
+                case STRING -> new String(token);
+                case BOOL -> new Bool(token);
+                case IF -> new If(readExpr(), readExpr(), readExpr(), token);
+                case WHILE -> new While(readExpr(), readExpr(), token);
+                case BLOCK -> new Block(readList(Expression.class), token);
+                case LOCAL_DEF -> new LocalDef(readType(), readId(), readExpr(), token);
+                case LET -> new Let(readList(LocalDef.class), readExpr(), token);
+                case CASE_TEST -> new CaseTest(readId(), readType(), readExpr(), token);
+                case CASE -> new Case(readExpr(), readList(CaseTest.class), token);
+                case NEW -> new New(readType(), token);
+                case IS_VOID -> new IsVoid(readExpr(), token);
+                case ASSIGN -> new Assign(readId(), readExpr(), token);
+                case RELATIONAL -> new Relational(readExpr(), readExpr(), token);
+                case NOT -> new Not(readExpr(), token);
+                case PLUS -> new Plus(readExpr(), readExpr(), token);
+                case MINUS -> new Minus(readExpr(), readExpr(), token);
+                case MULT -> new Mult(readExpr(), readExpr(), token);
+                case DIV -> new Div(readExpr(), readExpr(), token);
+                case NEGATE -> new Negate(readExpr(), token);
+                case DISPATCH -> new Dispatch(readExpr(), readType(), readId(), readList(Expression.class), token);
+                case TYPE -> new Type(token);
+                case FORMAL -> new Formal(readType(), readId(), token);
+                case ATTRIBUTE_DEF -> new AttributeDef(readType(), readId(), readExpr(), token);
+                case METHOD_DEF -> new MethodDef(readType(), readId(), readList(Formal.class), readExpr(), token);
+                case CLASS_DEF -> new ClassDef(readType(), readType(), readList(Feature.class), token);
+                case PROGRAM -> new Program(readList(ClassDef.class), token);
+                default -> throw new IOException("Unknown AST node kind " + kind);
+            };
+        }
+
+        SourceToken readToken() throws IOException {
+            var type = readVarInt(in) - 1;
+            var line = readVarInt(in);
+            var column = readVarInt(in);
+
+            java.lang.String text;
+            var index = readVarInt(in);
+            if (index == strings.size()) {
+                text = in.readUTF();
+                strings.add(text);
+            } else
+                text = strings.get(index);
+
+            return new SourceToken(fileId, line, column, type, text, SourceToken.nameId(names, type, text));
+        }
+
+        Expression readExpr() throws IOException {
+            return (Expression)readNode();
+        }
+
+        Type readType() throws IOException {
+            return (Type)readNode();
+        }
+
+        Id readId() throws IOException {
+            return (Id)readNode();
+        }
+
+        <T extends ASTNode> List<T> readList(Class<T> nodeClass) throws IOException {
+            var size = readVarInt(in);
+            var nodes = new ArrayList<T>(size);
+            for (int i = 0; i < size; i++)
+                nodes.add(nodeClass.cast(readNode()));
+
+            return nodes;
+        }
+    }
+}
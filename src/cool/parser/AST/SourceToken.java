@@ -0,0 +1,66 @@
+package cool.parser.AST;
+
+import cool.parser.CoolParser;
+import cool.structures.NameTable;
+import org.antlr.v4.runtime.Token;
+
+// Poziția și textul token-ului descriptiv al unui nod AST. Spre deosebire de
+// token-urile ANTLR, nu păstrează referințe către fluxul de caractere sau
+// către arborele de derivare, care pot fi eliberate după construirea AST-ului.
+public final class SourceToken {
+    // Indexul fișierului sursă în lista fișierelor de intrare.
+    private final int fileId;
+    private final int line;
+    private final int charPositionInLine;
+    private final int type;
+    private final java.lang.String text;
+
+    // Id-ul numelui pentru identificatori și tipuri, -1 pentru celelalte token-uri.
+    private final int nameId;
+
+    public SourceToken(int fileId, int line, int charPositionInLine, int type, java.lang.String text, int nameId) {
+        this.fileId = fileId;
+        this.line = line;
+        this.charPositionInLine = charPositionInLine;
+        this.type = type;
+        this.text = text;
+        this.nameId = nameId;
+    }
+
+    public SourceToken(int fileId, Token token, NameTable names) {
+        this(fileId, token.getLine(), token.getCharPositionInLine(), token.getType(), token.getText(),
+                nameId(names, token.getType(), token.getText()));
+    }
+
+    // Numele sunt internate o singură dată, la construirea AST-ului.
+    static int nameId(NameTable names, int type, java.lang.String text) {
+        if (type == CoolParser.ID || type == CoolParser.TYPE)
+            return names.intern(text);
+
+        return -1;
+    }
+
+    public int getFileId() {
+        return fileId;
+    }
+
+    public int getLine() {
+        return line;
+    }
+
+    public int getCharPositionInLine() {
+        return charPositionInLine;
+    }
+
+    public int getType() {
+        return type;
+    }
+
+    public java.lang.String getText() {
+        return text;
+    }
+
+    public int getNameId() {
+        return nameId;
+    }
+}
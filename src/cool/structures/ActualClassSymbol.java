@@ -6,18 +6,24 @@ import java.util.*;
 // și metodele sale.
 
 public class ActualClassSymbol implements ClassSymbol {
-    public static final ActualClassSymbol OBJECT = new ActualClassSymbol(null, "Object");
-    public static final ActualClassSymbol IO = new ActualClassSymbol(OBJECT, "IO");
-    public static final ActualClassSymbol INT = new ActualClassSymbol(OBJECT, "Int");
-    public static final ActualClassSymbol STRING = new ActualClassSymbol(OBJECT, "String");
-    public static final ActualClassSymbol BOOL = new ActualClassSymbol(OBJECT, "Bool");
     public final SelfClassSymbol SELF_TYPE = new SelfClassSymbol(this);
 
     // Numele simbolului
     private final String name;
+    private final int nameId;
 
-    // LinkedHashMap reține ordinea adăugării.
-    private final Map<String, Symbol> symbols = new LinkedHashMap<>();
+    // Atributele (inclusiv self) și SELF_TYPE. SymbolMap reține ordinea adăugării.
+    private final SymbolMap<Symbol> symbols = new SymbolMap<>();
+
+    // În Cool metodele și atributele unei clase fac parte din domenii de
+    // vizibilitate diferite, deci metodele sunt ținute separat.
+    private final SymbolMap<MethodSymbol> methods = new SymbolMap<>();
+
+    // Tabele aplatizate ce conțin și membrii moșteniți, construite la numerotarea
+    // ierarhiei. Odată construite nu se mai modifică, iar o căutare este o singură
+    // sondare. Rămân null pentru clasele nenumerotate.
+    private SymbolMap<Symbol> memberTable;
+    private SymbolMap<MethodSymbol> methodTable;
 
     // Clasa părinte
     private ClassSymbol parent;
@@ -34,6 +40,12 @@ public class ActualClassSymbol implements ClassSymbol {
     // Tabela de dispatch.
     private final List<MethodSymbol> vmTable = new ArrayList<>();
 
+    // Pentru fiecare index din tabela de dispatch, metoda apelată de toate
+    // clasele din subarbore, sau null dacă vreo subclasă o suprascrie. Este
+    // calculată o singură dată, la prima cerere; calculul poate fi repetat
+    // fără efect de fire de execuție concurente, rezultatul fiind același.
+    private volatile MethodSymbol[] uniqueImplementations;
+
     // Etichetă unică ce descrie clasa curentă.
     private int tag;
 
@@ -41,11 +53,21 @@ public class ActualClassSymbol implements ClassSymbol {
     // Clasa curentă și toate subclasele sale au tag id în intervalul [tag, maxSubTreeTag)
     private int maxSubTreeTag;
 
-    public ActualClassSymbol(Scope parent, String name) {
+    // Strămoșii clasei la distanțe puteri ale lui 2 (binary lifting):
+    // ancestors[k] este strămoșul aflat cu 2^k niveluri mai sus.
+    // Rămâne null pentru clasele nenumerotate (nu sunt accesibile din Object).
+    private ActualClassSymbol[] ancestors;
+
+    // Tabela de simboluri a compilării din care face parte clasa.
+    private final SymbolTable symbolTable;
+
+    public ActualClassSymbol(SymbolTable symbolTable, Scope parent, String name, int nameId) {
+        this.symbolTable = symbolTable;
         this.name = name;
+        this.nameId = nameId;
         this.setParent((ClassSymbol)parent);
 
-        var selfSymbol = new IdSymbol("self", IdSymbol.DefinitionType.ATTRIBUTE);
+        var selfSymbol = new IdSymbol("self", symbolTable.selfName, IdSymbol.DefinitionType.ATTRIBUTE);
         selfSymbol.setType(SELF_TYPE);
         this.add(selfSymbol);
         this.add(SELF_TYPE);
@@ -56,37 +78,63 @@ public class ActualClassSymbol implements ClassSymbol {
         return name;
     }
 
+    @Override
+    public int getNameId() {
+        return nameId;
+    }
+
     @Override
     public String toString() {
         return name;
     }
 
+    SymbolTable getSymbolTable() {
+        return symbolTable;
+    }
+
     @Override
     public boolean add(Symbol sym) {
         // Ne asigurăm că simbolul nu există deja în domeniul de vizibilitate
         // curent.
-        if (symbols.containsKey(sym.getName()))
-            return false;
-
-        symbols.put(sym.getName(), sym);
+        if (sym instanceof MethodSymbol)
+            return methods.add((MethodSymbol)sym);
 
-        return true;
+        return symbols.add(sym);
     }
 
     @Override
-    public Symbol lookup(String s) {
-        var sym = symbols.get(s);
+    public Symbol lookup(int nameId) {
+        Symbol sym;
+
+        if (memberTable != null) {
+            // Tabela aplatizată conține deja tot lanțul de clase.
+            sym = memberTable.get(nameId);
+        } else {
+            sym = symbols.get(nameId);
+
+            // Dacă nu găsim simbolul în domeniul de vizibilitate curent, îl căutăm
+            // în domeniul de deasupra.
+            if (sym == null && parent != null)
+                return parent.lookup(nameId);
+        }
 
         if (sym != null)
             return sym;
 
-        // Dacă nu găsim simbolul în domeniul de vizibilitate curent, îl căutăm
-        // în domeniul de deasupra.
-        if (parent != null)
-            return parent.lookup(s);
-
         // Dacă simbolul nu se află pe lanțul de clase de mai sus, se caută în scope-ul top-level.
-        return SymbolTable.globals.lookup(s);
+        return symbolTable.globals.lookup(nameId);
+    }
+
+    @Override
+    public MethodSymbol lookupMethod(int nameId) {
+        if (methodTable != null)
+            return methodTable.get(nameId);
+
+        var method = methods.get(nameId);
+        if (method == null && parent != null)
+            return parent.lookupMethod(nameId);
+
+        return method;
     }
 
     @Override
@@ -123,7 +171,7 @@ public class ActualClassSymbol implements ClassSymbol {
 
         for (var sym : symbols.values()) {
             // Parcurg doar atributele clasei curente
-            if ((sym instanceof MethodSymbol) || sym.getName().equals("self") || sym == SELF_TYPE)
+            if (sym.getNameId() == symbolTable.selfName || sym == SELF_TYPE)
                 continue;
 
             var currAttr = (IdSymbol)sym;
@@ -144,13 +192,10 @@ public class ActualClassSymbol implements ClassSymbol {
 
         if (parent == null) {
             // Clasa curentă este clasa rădăcină Object. Virtual method table = lista de metode.
-            symbols.values().stream()
-                    .filter((sym) -> sym instanceof MethodSymbol)
-                    .map(sym -> (MethodSymbol)sym)
-                    .forEachOrdered(sym -> {
-                        sym.setIndex(vmTable.size());
-                        vmTable.add(sym);
-                    });
+            methods.values().forEach(sym -> {
+                sym.setIndex(vmTable.size());
+                vmTable.add(sym);
+            });
 
             return vmTable;
         }
@@ -158,13 +203,9 @@ public class ActualClassSymbol implements ClassSymbol {
         // Tabela clasei curente trebuie să conțină cel puțin toate metodele clasei părinte.
         vmTable.addAll(parent.getVMTable());
 
-        for (var sym : symbols.values()) {
+        for (var currMethod : methods.values()) {
             // Parcurg doar metodele clasei curente
-            if (!(sym instanceof MethodSymbol))
-                continue;
-
-            var currMethod = (MethodSymbol)sym;
-            var overriddenMethod = (MethodSymbol)parent.lookup(currMethod.getName());
+            var overriddenMethod = parent.lookupMethod(currMethod.getNameId());
 
             if (overriddenMethod == null) {
                 // Metoda curentă este nouă (nu suprascrie nimic de pe lanțul de moștenire)
@@ -184,14 +225,33 @@ public class ActualClassSymbol implements ClassSymbol {
         return vmTable;
     }
 
+    @Override
+    public MethodSymbol getUniqueImplementation(int index) {
+        var implementations = uniqueImplementations;
+        if (implementations == null) {
+            // Subclasele au aceeași metodă la un index doar dacă nu o suprascriu.
+            implementations = getVMTable().toArray(new MethodSymbol[0]);
+            for (var child : children) {
+                for (int i = 0; i < implementations.length; i++) {
+                    if (child.getUniqueImplementation(i) != implementations[i])
+                        implementations[i] = null;
+                }
+            }
+
+            uniqueImplementations = implementations;
+        }
+
+        return implementations[index];
+    }
+
     @Override
     public boolean isPrimitive() {
-        return List.of(INT, STRING, BOOL).contains(this);
+        return List.of(symbolTable.INT, symbolTable.STRING, symbolTable.BOOL).contains(this);
     }
 
     @Override
     public boolean isBuiltIn() {
-        return List.of(OBJECT, IO, INT, STRING, BOOL).contains(this);
+        return List.of(symbolTable.OBJECT, symbolTable.IO, symbolTable.INT, symbolTable.STRING, symbolTable.BOOL).contains(this);
     }
 
     @Override
@@ -201,6 +261,11 @@ public class ActualClassSymbol implements ClassSymbol {
             return false;
         }
 
+        // Clasele numerotate se compară prin intervalele de etichete.
+        if (isNumbered() && other instanceof ActualClassSymbol && ((ActualClassSymbol) other).isNumbered()) {
+            return other.getTag() <= tag && tag < other.getMaxSubTreeTag();
+        }
+
         Scope temp = this;
 
         do {
@@ -220,6 +285,10 @@ public class ActualClassSymbol implements ClassSymbol {
 
     @Override
     public ClassSymbol getLeastUpperBound(ClassSymbol other) {
+        if (isNumbered() && other instanceof ActualClassSymbol && ((ActualClassSymbol) other).isNumbered()) {
+            return lowestCommonAncestor((ActualClassSymbol) other);
+        }
+
         // Find depths of two nodes and differences
         Scope c1 = this, c2 = other;
         int d1 = getDepth(), d2 = other.getDepth();
@@ -252,6 +321,70 @@ public class ActualClassSymbol implements ClassSymbol {
         return null;
     }
 
+    // Cel mai apropiat strămoș comun, găsit prin salturi de 2^k niveluri în O(log depth).
+    private ActualClassSymbol lowestCommonAncestor(ActualClassSymbol other) {
+        ActualClassSymbol c1 = this, c2 = other;
+
+        if (c1.depth < c2.depth) {
+            c1 = other;
+            c2 = this;
+        }
+
+        // Urc c1 pe nivelul lui c2
+        for (int diff = c1.depth - c2.depth, k = 0; diff != 0; diff >>= 1, k++) {
+            if ((diff & 1) != 0)
+                c1 = c1.ancestors[k];
+        }
+
+        if (c1 == c2)
+            return c1;
+
+        // Urc ambele clase cât timp strămoșii lor diferă; la final părintele comun este LCA.
+        for (int k = c1.ancestors.length - 1; k >= 0; k--) {
+            if (k < c1.ancestors.length && c1.ancestors[k] != c2.ancestors[k]) {
+                c1 = c1.ancestors[k];
+                c2 = c2.ancestors[k];
+            }
+        }
+
+        return c1.ancestors[0];
+    }
+
+    boolean isNumbered() {
+        return ancestors != null;
+    }
+
+    // Numerotează subarborele clasei curente în ordine DFS începând cu eticheta dată
+    // și recalculează adâncimea, tabela de strămoși și tabelele aplatizate de membri. Întoarce prima etichetă liberă.
+    int number(int tag) {
+        var parentClass = (ActualClassSymbol) parent;
+
+        this.tag = tag;
+        this.depth = (parentClass == null) ? 0 : parentClass.depth + 1;
+
+        int levels = 32 - Integer.numberOfLeadingZeros(depth);
+        this.ancestors = new ActualClassSymbol[levels];
+        for (int k = 0; k < levels; k++) {
+            ancestors[k] = (k == 0) ? parentClass : ancestors[k - 1].ancestors[k - 1];
+        }
+
+        // Tabelele aplatizate pornesc de la cele ale părintelui, membrii proprii
+        // îi ascund pe cei moșteniți.
+        memberTable = (parentClass == null) ? new SymbolMap<>() : parentClass.memberTable.copy();
+        symbols.values().forEach(memberTable::put);
+
+        methodTable = (parentClass == null) ? new SymbolMap<>() : parentClass.methodTable.copy();
+        methods.values().forEach(methodTable::put);
+
+        int nextTag = tag + 1;
+        for (var c : children) {
+            nextTag = ((ActualClassSymbol) c).number(nextTag);
+        }
+
+        this.maxSubTreeTag = nextTag;
+        return nextTag;
+    }
+
     @Override
     public boolean isSelfType() {
         return false;
@@ -267,21 +400,11 @@ public class ActualClassSymbol implements ClassSymbol {
         return SELF_TYPE;
     }
 
-    @Override
-    public void setTag(int tag) {
-        this.tag = tag;
-    }
-
     @Override
     public int getTag() {
         return tag;
     }
 
-    @Override
-    public void setMaxSubTreeTag(int tag) {
-        this.maxSubTreeTag = tag;
-    }
-
     @Override
     public int getMaxSubTreeTag() {
         return maxSubTreeTag;
@@ -9,6 +9,13 @@ public interface ClassSymbol extends Symbol, Scope {
     List<IdSymbol> getAttrTable();
     List<MethodSymbol> getVMTable();
 
+    // Metoda de la indexul dat din VMTable, dacă este aceeași pentru clasa
+    // curentă și toate subclasele ei, altfel null.
+    MethodSymbol getUniqueImplementation(int index);
+
+    // Caută o metodă (proprie sau moștenită) după id-ul numelui.
+    MethodSymbol lookupMethod(int nameId);
+
     boolean isPrimitive();
     boolean isBuiltIn();
     boolean isSubclassOf(ClassSymbol other);
@@ -20,9 +27,7 @@ public interface ClassSymbol extends Symbol, Scope {
     ClassSymbol getActualType();
     ClassSymbol getSelfType();
 
-    void setTag(int tag);
     int getTag();
 
-    void setMaxSubTreeTag(int tag);
     int getMaxSubTreeTag();
 }
@@ -1,10 +1,8 @@
 package cool.structures;
 
-import java.util.*;
-
 public class DefaultScope implements Scope {
     
-    private final Map<String, Symbol> symbols = new LinkedHashMap<>();
+    private final SymbolMap<Symbol> symbols = new SymbolMap<>();
     
     private final Scope parent;
     
@@ -15,23 +13,18 @@ public class DefaultScope implements Scope {
     @Override
     public boolean add(Symbol sym) {
         // Reject duplicates in the same scope.
-        if (symbols.containsKey(sym.getName()))
-            return false;
-        
-        symbols.put(sym.getName(), sym);
-        
-        return true;
+        return symbols.add(sym);
     }
 
     @Override
-    public Symbol lookup(String name) {
-        var sym = symbols.get(name);
+    public Symbol lookup(int nameId) {
+        var sym = symbols.get(nameId);
         
         if (sym != null)
             return sym;
         
         if (parent != null)
-            return parent.lookup(name);
+            return parent.lookup(nameId);
         
         return null;
     }
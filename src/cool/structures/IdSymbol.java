@@ -15,6 +15,7 @@ public class IdSymbol implements Symbol {
 
     // Numele simbolului
     private final String name;
+    private final int nameId;
 
     // Sensul depinde de tipul simbolului:
     //   - metoda: indexul în vmtable
@@ -22,8 +23,9 @@ public class IdSymbol implements Symbol {
     //   - formal: indexul în cadrul listei de parametri (maybe?)
     private int index = -1;
     
-    public IdSymbol(String name, DefinitionType definitionType) {
+    public IdSymbol(String name, int nameId, DefinitionType definitionType) {
         this.name = name;
+        this.nameId = nameId;
         this.definitionType = definitionType;
     }
 
@@ -32,6 +34,11 @@ public class IdSymbol implements Symbol {
         return name;
     }
 
+    @Override
+    public int getNameId() {
+        return nameId;
+    }
+
     @Override
     public String toString() {
         return name;
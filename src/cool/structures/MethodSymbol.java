@@ -7,16 +7,16 @@ import java.util.*;
 
 public class MethodSymbol extends IdSymbol implements Scope {
  
-    // LinkedHashMap reține ordinea adăugării.
-    private final Map<String, IdSymbol> symbols = new LinkedHashMap<>();
+    // SymbolMap reține ordinea adăugării.
+    private final SymbolMap<IdSymbol> symbols = new SymbolMap<>();
 
     // Reține numărul de variabile locale metodei.
     private int localDefs = 0;
 
     private final Scope parent;
     
-    public MethodSymbol(Scope parent, String name) {
-        super(decorate(name), DefinitionType.METHOD);
+    public MethodSymbol(Scope parent, String name, int nameId) {
+        super(name, nameId, DefinitionType.METHOD);
         this.parent = parent;
     }
 
@@ -24,17 +24,12 @@ public class MethodSymbol extends IdSymbol implements Scope {
     public boolean add(Symbol sym) {
         // Ne asigurăm că simbolul nu există deja în domeniul de vizibilitate
         // curent.
-        if (symbols.containsKey(sym.getName()))
-            return false;
-        
-        symbols.put(sym.getName(), (IdSymbol)sym);
-        
-        return true;
+        return symbols.add((IdSymbol)sym);
     }
 
     @Override
-    public Symbol lookup(String s) {
-        var sym = symbols.get(s);
+    public Symbol lookup(int nameId) {
+        var sym = symbols.get(nameId);
         
         if (sym != null)
             return sym;
@@ -42,7 +37,7 @@ public class MethodSymbol extends IdSymbol implements Scope {
         // Dacă nu găsim simbolul în domeniul de vizibilitate curent, îl căutăm
         // în domeniul de deasupra.
         if (parent != null)
-            return parent.lookup(s);
+            return parent.lookup(nameId);
         
         return null;
     }
@@ -52,17 +47,13 @@ public class MethodSymbol extends IdSymbol implements Scope {
         return parent;
     }
 
-    @Override
-    public String toString() {
-        return undecorate(getName());
-    }
-
     public String getFullName() {
-        return parent.toString() + "." + undecorate(getName());
+        return parent.toString() + "." + getName();
     }
     
-    public Map<String, IdSymbol> getFormals() {
-        return symbols;
+    // Parametrii formali, în ordinea declarării.
+    public List<IdSymbol> getFormals() {
+        return symbols.values();
     }
 
     public int registerLocalDef() {
@@ -72,17 +63,4 @@ public class MethodSymbol extends IdSymbol implements Scope {
     public int getTotalLocalDefs() {
         return localDefs;
     }
-
-    // În specificația Cool, metodele și atributele unei clase fac parte din scope-uri lexicale diferite,
-    // fiind permis astfel să existe metode și atribute cu același nume.
-    // Ca workaround pentru a nu fi nevoit sa am scope-uri diferite în cadrul unei clase,
-    // am ales să decorez funcțiile adăugând un underscore (caracter invalid în Cool)
-    // în fața numelor metodelor.
-    public static String decorate(String name) {
-        return "_" + name;
-    }
-
-    public static String undecorate(String name) {
-        return name.substring(1);
-    }
 }
@@ -0,0 +1,20 @@
+package cool.structures;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Interns identifier and type names to small integer ids, once, while the
+// ASTs are built. Scopes are then keyed by these ids, so name lookups need
+// no string hashing or comparisons. Safe for use by concurrent parser workers.
+public class NameTable {
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId = new AtomicInteger();
+
+    public int intern(String name) {
+        var id = ids.get(name);
+        if (id != null)
+            return id;
+
+        return ids.computeIfAbsent(name, x -> nextId.getAndIncrement());
+    }
+}
@@ -3,7 +3,7 @@ package cool.structures;
 public interface Scope {
     boolean add(Symbol sym);
     
-    Symbol lookup(String str);
+    Symbol lookup(int nameId);
     
     Scope getParent();
 }
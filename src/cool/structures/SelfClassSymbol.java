@@ -14,6 +14,11 @@ public class SelfClassSymbol implements ClassSymbol {
         return "SELF_TYPE";
     }
 
+    @Override
+    public int getNameId() {
+        return actualClass.getSymbolTable().selfTypeName;
+    }
+
     @Override
     public String toString() {
         return "SELF_TYPE";
@@ -25,8 +30,13 @@ public class SelfClassSymbol implements ClassSymbol {
     }
 
     @Override
-    public Symbol lookup(String s) {
-        return actualClass.lookup(s);
+    public Symbol lookup(int nameId) {
+        return actualClass.lookup(nameId);
+    }
+
+    @Override
+    public MethodSymbol lookupMethod(int nameId) {
+        return actualClass.lookupMethod(nameId);
     }
 
     @Override
@@ -54,6 +64,11 @@ public class SelfClassSymbol implements ClassSymbol {
         return actualClass.getVMTable();
     }
 
+    @Override
+    public MethodSymbol getUniqueImplementation(int index) {
+        return actualClass.getUniqueImplementation(index);
+    }
+
     @Override
     public boolean isPrimitive() {
         return actualClass.isPrimitive();
@@ -98,21 +113,11 @@ public class SelfClassSymbol implements ClassSymbol {
         return this;
     }
 
-    @Override
-    public void setTag(int tag) {
-        actualClass.setTag(tag);
-    }
-
     @Override
     public int getTag() {
         return actualClass.getTag();
     }
 
-    @Override
-    public void setMaxSubTreeTag(int tag) {
-        actualClass.setMaxSubTreeTag(tag);
-    }
-
     @Override
     public int getMaxSubTreeTag() {
         return actualClass.getMaxSubTreeTag();
@@ -2,4 +2,7 @@ package cool.structures;
 
 public interface Symbol {
     String getName();
+
+    // Id-ul numelui, atribuit de NameTable.
+    int getNameId();
 }
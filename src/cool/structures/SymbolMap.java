@@ -0,0 +1,101 @@
+package cool.structures;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+// Tabelă de simboluri indexată după id-ul numelui, cu adresare deschisă și
+// sondare liniară. Reține și ordinea adăugării, la fel ca LinkedHashMap.
+class SymbolMap<T extends Symbol> {
+    private static final int EMPTY = -1;
+
+    private int[] keys;
+    private Symbol[] values;
+    private final List<T> ordered;
+
+    SymbolMap() {
+        this(new int[8], new Symbol[8], new ArrayList<>());
+        Arrays.fill(keys, EMPTY);
+    }
+
+    private SymbolMap(int[] keys, Symbol[] values, List<T> ordered) {
+        this.keys = keys;
+        this.values = values;
+        this.ordered = ordered;
+    }
+
+    private int slot(int nameId) {
+        int mask = keys.length - 1;
+        int i = (nameId * 0x9E3779B9 >>> 16) & mask;
+
+        while (keys[i] != EMPTY && keys[i] != nameId)
+            i = (i + 1) & mask;
+
+        return i;
+    }
+
+    @SuppressWarnings("unchecked")
+    T get(int nameId) {
+        return (T)values[slot(nameId)];
+    }
+
+    // Adaugă simbolul doar dacă numele nu există deja în tabelă.
+    boolean add(T sym) {
+        int i = slot(sym.getNameId());
+        if (keys[i] != EMPTY)
+            return false;
+
+        insert(i, sym);
+        return true;
+    }
+
+    // Adaugă simbolul, înlocuindu-l pe cel cu același nume (dacă există).
+    void put(T sym) {
+        int i = slot(sym.getNameId());
+        if (keys[i] != EMPTY) {
+            ordered.set(ordered.indexOf(values[i]), sym);
+            values[i] = sym;
+            return;
+        }
+
+        insert(i, sym);
+    }
+
+    private void insert(int i, T sym) {
+        keys[i] = sym.getNameId();
+        values[i] = sym;
+        ordered.add(sym);
+
+        // Factor de încărcare maxim 1/2.
+        if (ordered.size() * 2 > keys.length) {
+            var oldKeys = keys;
+            var oldValues = values;
+
+            keys = new int[oldKeys.length * 2];
+            values = new Symbol[oldValues.length * 2];
+            Arrays.fill(keys, EMPTY);
+
+            for (int j = 0; j < oldKeys.length; j++) {
+                if (oldKeys[j] != EMPTY) {
+                    int k = slot(oldKeys[j]);
+                    keys[k] = oldKeys[j];
+                    values[k] = oldValues[j];
+                }
+            }
+        }
+    }
+
+    int size() {
+        return ordered.size();
+    }
+
+    // Simbolurile, în ordinea adăugării.
+    List<T> values() {
+        return Collections.unmodifiableList(ordered);
+    }
+
+    SymbolMap<T> copy() {
+        return new SymbolMap<>(keys.clone(), values.clone(), new ArrayList<>(ordered));
+    }
+}
@@ -4,68 +4,100 @@ import java.io.File;
 import java.util.List;
 
 import cool.parser.AST.ASTNode;
-import org.antlr.v4.runtime.*;
+import cool.parser.AST.SourceToken;
 
-import cool.compiler.Compiler;
-import cool.parser.CoolParser;
+import cool.compiler.CompilationContext;
 import org.antlr.v4.runtime.misc.Pair;
 
+// Tabela de simboluri a unei compilări. Fiecare compilare are propriile clase
+// de bază, deoarece acestea acumulează subclase, etichete și tabele calculate
+// pe parcursul compilării.
 public class SymbolTable {
-    public static Scope globals;
-    
-    private static boolean semanticErrors;
+    public final Scope globals = new DefaultScope(null);
+
+    // Numele sunt comparate prin id-urile atribuite de NameTable-ul compilării.
+    public final NameTable names;
+    public final int selfName;
+    public final int selfTypeName;
+
+    // Clasele de bază.
+    public final ActualClassSymbol OBJECT;
+    public final ActualClassSymbol IO;
+    public final ActualClassSymbol INT;
+    public final ActualClassSymbol STRING;
+    public final ActualClassSymbol BOOL;
+
+    private final CompilationContext context;
+
+    private boolean semanticErrors = false;
     
-    public static void defineBasicClasses() {
-        globals = new DefaultScope(null);
-        semanticErrors = false;
+    public SymbolTable(CompilationContext context) {
+        this.context = context;
+        this.names = context.names;
+        this.selfName = names.intern("self");
+        this.selfTypeName = names.intern("SELF_TYPE");
+
+        OBJECT = defineClass(null, "Object");
+        IO = defineClass(OBJECT, "IO");
+        INT = defineClass(OBJECT, "Int");
+        STRING = defineClass(OBJECT, "String");
+        BOOL = defineClass(OBJECT, "Bool");
         
         // Populate global scope.
-        globals.add(ActualClassSymbol.OBJECT);
-        globals.add(ActualClassSymbol.IO);
-        globals.add(ActualClassSymbol.INT);
-        globals.add(ActualClassSymbol.STRING);
-        globals.add(ActualClassSymbol.BOOL);
+        globals.add(OBJECT);
+        globals.add(IO);
+        globals.add(INT);
+        globals.add(STRING);
+        globals.add(BOOL);
 
         // Define methods of the built-in types
-        defineMethod(ActualClassSymbol.OBJECT, "abort", ActualClassSymbol.OBJECT);
-        defineMethod(ActualClassSymbol.OBJECT, "type_name", ActualClassSymbol.STRING);
-        defineMethod(ActualClassSymbol.OBJECT, "copy", ActualClassSymbol.OBJECT.SELF_TYPE);
+        defineMethod(OBJECT, "abort", OBJECT);
+        defineMethod(OBJECT, "type_name", STRING);
+        defineMethod(OBJECT, "copy", OBJECT.SELF_TYPE);
 
 
-        defineMethod(ActualClassSymbol.IO, "out_string", ActualClassSymbol.IO.SELF_TYPE, List.of(
-                new Pair<>("x", ActualClassSymbol.STRING)
+        defineMethod(IO, "out_string", IO.SELF_TYPE, List.of(
+                new Pair<>("x", STRING)
         ));
-        defineMethod(ActualClassSymbol.IO, "out_int", ActualClassSymbol.IO.SELF_TYPE, List.of(
-                new Pair<>("x", ActualClassSymbol.INT)
+        defineMethod(IO, "out_int", IO.SELF_TYPE, List.of(
+                new Pair<>("x", INT)
         ));
-        defineMethod(ActualClassSymbol.IO, "in_string", ActualClassSymbol.STRING);
-        defineMethod(ActualClassSymbol.IO, "in_int", ActualClassSymbol.INT);
+        defineMethod(IO, "in_string", STRING);
+        defineMethod(IO, "in_int", INT);
 
 
-        defineMethod(ActualClassSymbol.STRING, "length", ActualClassSymbol.INT);
-        defineMethod(ActualClassSymbol.STRING, "concat", ActualClassSymbol.STRING, List.of(
-                new Pair<>("s", ActualClassSymbol.STRING)
+        defineMethod(STRING, "length", INT);
+        defineMethod(STRING, "concat", STRING, List.of(
+                new Pair<>("s", STRING)
         ));
-        defineMethod(ActualClassSymbol.STRING, "substr", ActualClassSymbol.STRING, List.of(
-                new Pair<>("i", ActualClassSymbol.INT),
-                new Pair<>("l", ActualClassSymbol.INT)
+        defineMethod(STRING, "substr", STRING, List.of(
+                new Pair<>("i", INT),
+                new Pair<>("l", INT)
         ));
 
         // Fake attributes. Necesare pentru calcularea corectă a dimensiunii obiectului prototip pentru generarea de cod
-        ActualClassSymbol.INT.add(new IdSymbol("$int", IdSymbol.DefinitionType.ATTRIBUTE).setType(ActualClassSymbol.OBJECT));
-        ActualClassSymbol.STRING.add(new IdSymbol("$len", IdSymbol.DefinitionType.ATTRIBUTE).setType(ActualClassSymbol.OBJECT));
-        ActualClassSymbol.STRING.add(new IdSymbol("$string", IdSymbol.DefinitionType.ATTRIBUTE).setType(ActualClassSymbol.OBJECT));
-        ActualClassSymbol.BOOL.add(new IdSymbol("$bool", IdSymbol.DefinitionType.ATTRIBUTE).setType(ActualClassSymbol.OBJECT));
+        defineAttribute(INT, "$int");
+        defineAttribute(STRING, "$len");
+        defineAttribute(STRING, "$string");
+        defineAttribute(BOOL, "$bool");
+    }
+
+    private ActualClassSymbol defineClass(ActualClassSymbol parent, String className) {
+        return new ActualClassSymbol(this, parent, className, names.intern(className));
+    }
+
+    private void defineAttribute(ClassSymbol classSymbol, String attributeName) {
+        classSymbol.add(new IdSymbol(attributeName, names.intern(attributeName), IdSymbol.DefinitionType.ATTRIBUTE).setType(OBJECT));
     }
 
-    private static void defineMethod(ClassSymbol classSymbol, String methodName, ClassSymbol returnSymbol) {
+    private void defineMethod(ClassSymbol classSymbol, String methodName, ClassSymbol returnSymbol) {
         defineMethod(classSymbol, methodName, returnSymbol, List.of());
     }
 
-    private static void defineMethod(ClassSymbol classSymbol, String methodName, ClassSymbol returnSymbol, List<Pair<String, ClassSymbol>> formals) {
-        var methodSymbol = new MethodSymbol(classSymbol, methodName);
+    private void defineMethod(ClassSymbol classSymbol, String methodName, ClassSymbol returnSymbol, List<Pair<String, ClassSymbol>> formals) {
+        var methodSymbol = new MethodSymbol(classSymbol, methodName, names.intern(methodName));
 
-        formals.forEach((p) -> methodSymbol.add(new IdSymbol(p.a, IdSymbol.DefinitionType.FORMAL).setType(p.b)));
+        formals.forEach((p) -> methodSymbol.add(new IdSymbol(p.a, names.intern(p.a), IdSymbol.DefinitionType.FORMAL).setType(p.b)));
 
         methodSymbol.setType(returnSymbol);
         classSymbol.add(methodSymbol);
@@ -74,38 +106,53 @@ public class SymbolTable {
     /**
      * Displays a semantic error message.
      * 
-     * @param ctx Used to determine the enclosing class context of this error,
-     *            which knows the file name in which the class was defined.
-     * @param info Used for line and column information.
+     * @param info Used for file, line and column information.
      * @param str The error message.
      */
-    public static void error(ParserRuleContext ctx, Token info, String str) {
-        while (! (ctx.getParent() instanceof CoolParser.ProgramContext))
-            ctx = ctx.getParent();
+    public void error(SourceToken info, String str) {
+        context.err.println(formatError(info, str));
         
-        String message = "\"" + new File(Compiler.fileNames.get(ctx)).getName()
+        semanticErrors = true;
+    }
+
+    // Numbers the class hierarchy in DFS order starting from Object, once all
+    // parents are bound. Each class and its subclasses get tags in
+    // [tag, maxSubTreeTag), so subtype tests become interval checks. Classes
+    // caught in an inheritance cycle are unreachable and stay unnumbered.
+    public void numberClasses() {
+        OBJECT.number(0);
+    }
+
+    // Formats a semantic error message, without reporting it.
+    public String formatError(SourceToken info, String str) {
+        return "\"" + new File(context.fileNames.get(info.getFileId())).getName()
                 + "\", line " + info.getLine()
                 + ":" + (info.getCharPositionInLine() + 1)
                 + ", Semantic error: " + str;
+    }
+
+    // Reports messages produced by formatError, e.g. collected while the
+    // classes were checked in parallel.
+    public void reportErrors(List<String> messages) {
+        messages.forEach(context.err::println);
         
-        System.err.println(message);
-        
-        semanticErrors = true;
+        if (!messages.isEmpty())
+            semanticErrors = true;
     }
 
-    public static void error(ASTNode info, String str) {
-        error(info.getParserRuleContext(), info.getToken(), str);
+    public void error(ASTNode info, String str) {
+        error(info.getToken(), str);
     }
     
-    public static void error(String str) {
+    public void error(String str) {
         String message = "Semantic error: " + str;
         
-        System.err.println(message);
+        context.err.println(message);
         
         semanticErrors = true;
     }
     
-    public static boolean hasSemanticErrors() {
+    public boolean hasSemanticErrors() {
         return semanticErrors;
     }
 }
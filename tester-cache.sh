@@ -0,0 +1,69 @@
+#!/bin/bash
+
+##
+## Compiles every test twice through the incremental compilation cache (-cache)
+## and once more into a file (-o), and checks each assembly against the .ref.
+## The first compilation must miss the cache and the second one must hit it.
+##
+## Accept both ./tester-cache.sh and ./tester-cache.sh <test num> (eg: ./tester-cache.sh 05)
+##
+
+if [ -z "$1" ]; then
+  SOURCES="./tests/tema3/*.cl"
+else
+  SOURCES="./tests/tema3/$1*.cl"
+fi
+
+CLASSPATH=./out/production/Tema/:/usr/local/lib/antlr-4.9.3-complete.jar
+
+CACHE_DIR=`mktemp -d`
+trap "rm -rf $CACHE_DIR" EXIT
+
+# Runs the given assembly and compares its output with the test's .ref
+run_and_diff() {
+	if [ -f $test_name.in ]; then
+		spim -exception_file trap.handler.nogc -file $1 < $test_name.in > $test_name.out
+	else
+		spim -exception_file trap.handler.nogc -file $1 > $test_name.out
+	fi
+
+	diff $test_name.ref $test_name.out
+}
+
+passed=0
+total=0
+for source_file in $SOURCES; do
+	test_name=./tests/tema3/`basename $source_file .cl`
+	total=$(($total + 1))
+	echo -e "\n`basename $source_file`"
+	result=0
+
+	for expected in "0 of 1" "1 of 1"; do
+		java -cp $CLASSPATH cool.compiler.Compiler -stats -cache $CACHE_DIR `cat $test_name.flags 2>/dev/null` \
+			$source_file > $test_name.s 2> $test_name.err
+		if ! grep -q "^Cache: $expected file(s) loaded from the cache" $test_name.err; then
+			echo "Expected \"Cache: $expected\" in the statistics"
+			result=1
+		fi
+		run_and_diff $test_name.s || result=1
+	done
+
+	rm -f $test_name.s
+	java -cp $CLASSPATH cool.compiler.Compiler -o $test_name.s `cat $test_name.flags 2>/dev/null` \
+		$source_file > $test_name.err
+	if [ -s $test_name.err ]; then
+		echo "Expected no output on stdout with -o"
+		result=1
+	fi
+	run_and_diff $test_name.s || result=1
+	rm -f $test_name.err
+
+	if [ $result = 0 ]; then
+		echo -e "Test passed!\n"
+		passed=$(($passed + 1))
+	else
+		echo -e "Test failed!\n"
+	fi
+done
+
+echo -e "\nTotal: $(( $(($passed * 100)) / $total))"
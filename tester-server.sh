@@ -0,0 +1,77 @@
+#!/bin/bash
+
+##
+## Sends two compilation requests and a malformed one to a single compile
+## server (-server), then checks the framing of the three responses, runs the
+## two assemblies and compares their output with the .ref files.
+##
+
+CLASSPATH=./out/production/Tema/:/usr/local/lib/antlr-4.9.3-complete.jar
+
+FIRST=./tests/tema3/01-class
+SECOND=./tests/tema3/02-attr-no-init
+MALFORMED_DIAGNOSTIC="Unknown option -nosuch"
+
+WORK_DIR=`mktemp -d`
+trap "rm -rf $WORK_DIR" EXIT
+
+java -cp $CLASSPATH cool.compiler.Compiler -server > $WORK_DIR/responses <<EOF
+$FIRST.cl
+-nosuch $FIRST.cl
+$SECOND.cl
+EOF
+
+# Each response is a header line "<asm bytes> <diagnostic bytes>", followed by
+# the assembly and then by the diagnostics. Splits the response starting at
+# the given byte offset into $WORK_DIR/<name>.s and $WORK_DIR/<name>.err.
+offset=0
+read_response() {
+	header=`tail -c +$(($offset + 1)) $WORK_DIR/responses | head -n 1`
+	read asm_bytes diagnostic_bytes <<< "$header"
+	offset=$(($offset + ${#header} + 1))
+	tail -c +$(($offset + 1)) $WORK_DIR/responses | head -c $asm_bytes > $WORK_DIR/$1.s
+	offset=$(($offset + $asm_bytes))
+	tail -c +$(($offset + 1)) $WORK_DIR/responses | head -c $diagnostic_bytes > $WORK_DIR/$1.err
+	offset=$(($offset + $diagnostic_bytes))
+}
+
+read_response first
+read_response malformed
+read_response second
+
+passed=0
+total=0
+for test in first second; do
+	if [ $test = first ]; then test_name=$FIRST; else test_name=$SECOND; fi
+	echo -e "\n`basename $test_name.cl`"
+	total=$(($total + 1))
+	spim -exception_file trap.handler.nogc -file $WORK_DIR/$test.s > $test_name.out
+	if diff $test_name.ref $test_name.out && [ ! -s $WORK_DIR/$test.err ]; then
+		echo -e "Test passed!\n"
+		passed=$(($passed + 1))
+	else
+		echo -e "Test failed!\n"
+	fi
+done
+
+echo -e "\nmalformed request"
+total=$(($total + 1))
+if [ ! -s $WORK_DIR/malformed.s ] && [ "`cat $WORK_DIR/malformed.err`" = "$MALFORMED_DIAGNOSTIC" ]; then
+	echo -e "Test passed!\n"
+	passed=$(($passed + 1))
+else
+	echo "Expected only the diagnostic \"$MALFORMED_DIAGNOSTIC\""
+	echo -e "Test failed!\n"
+fi
+
+echo -e "\nend of responses"
+total=$(($total + 1))
+if [ $offset = `stat -c %s $WORK_DIR/responses` ]; then
+	echo -e "Test passed!\n"
+	passed=$(($passed + 1))
+else
+	echo "Expected exactly three responses"
+	echo -e "Test failed!\n"
+fi
+
+echo -e "\nTotal: $(( $(($passed * 100)) / $total))"
@@ -5,12 +5,13 @@
 ##
 #
 #for source_file in ./tests/tema3/*.cl; do
+#	test_name=./tests/tema3/`basename $source_file .cl`
 #	echo "Running with `basename $source_file`"
-#	java -jar Tema3.jar $source_file > ./tests/tema3/`basename $source_file .cl`.s-model
-#	if [ "$source_file" = "./tests/tema3/32-big.cl" ]; then 
-#		echo 5 | spim -exception_file trap.handler.nogc -file tests/tema3/`basename $source_file .cl`.s-model > tests/tema3/`basename $source_file .cl`.ref
+#	java -jar Tema3.jar `cat $test_name.flags 2>/dev/null` $source_file > $test_name.s-model
+#	if [ -f $test_name.in ]; then
+#		spim -exception_file trap.handler.nogc -file $test_name.s-model < $test_name.in > $test_name.ref
 #	else
-#		spim -exception_file trap.handler.nogc -file tests/tema3/`basename $source_file .cl`.s-model > tests/tema3/`basename $source_file .cl`.ref
+#		spim -exception_file trap.handler.nogc -file $test_name.s-model > $test_name.ref
 #	fi
 #done
 
@@ -27,17 +28,25 @@ fi
 # CLASSPATH=.:/usr/local/lib/antlr-4.8-complete.jar
 CLASSPATH=./out/production/Tema/:/usr/local/lib/antlr-4.9.3-complete.jar
 
+##
+## A test may have a .flags file with compiler options (eg: -tailcalls) and
+## a .in file with the program input
+##
+
 passed=0
+total=0
 for source_file in $SOURCES; do
+	test_name=./tests/tema3/`basename $source_file .cl`
+	total=$(($total + 1))
 	echo -e "\n`basename $source_file`"
-	java -cp $CLASSPATH cool.compiler.Compiler $source_file > ./tests/tema3/`basename $source_file .cl`.s
-	if [ "$source_file" = "./tests/tema3/32-big.cl" ]; then
-		echo 5 | spim -exception_file trap.handler.nogc -file tests/tema3/`basename $source_file .cl`.s > tests/tema3/`basename $source_file .cl`.out
+	java -cp $CLASSPATH cool.compiler.Compiler `cat $test_name.flags 2>/dev/null` $source_file > $test_name.s
+	if [ -f $test_name.in ]; then
+		spim -exception_file trap.handler.nogc -file $test_name.s < $test_name.in > $test_name.out
 	else
-		spim -exception_file trap.handler.nogc -file tests/tema3/`basename $source_file .cl`.s > tests/tema3/`basename $source_file .cl`.out
+		spim -exception_file trap.handler.nogc -file $test_name.s > $test_name.out
 	fi
 
-	diff tests/tema3/`basename $source_file .cl`.ref tests/tema3/`basename $source_file .cl`.out
+	diff $test_name.ref $test_name.out
 
 	if [ $? = 0 ]; then
 		echo -e "Test passed!\n"
@@ -47,4 +56,4 @@ for source_file in $SOURCES; do
 	fi
 done
 
-echo -e "\nTotal: $(( $(($passed * 100)) / 32))"
+echo -e "\nTotal: $(( $(($passed * 100)) / $total))"
@@ -0,0 +1,86 @@
+-- Compiled with -unboxed. Int and Bool values move between raw let locals
+-- and the boxed attributes, arguments, results and dispatch receivers.
+class Counter {
+    count : Int <- 0;
+    done : Bool;
+
+    add(n : Int) : Int {{
+        count <- count + n;
+        done <- 10 < count;
+        count;
+    }};
+
+    done() : Bool { done };
+
+    twice(n : Int, b : Bool) : Int {
+        if b then n * 2 else n fi
+    };
+};
+
+class Main inherits IO {
+    counter : Counter <- new Counter;
+
+    show(x : Int) : SELF_TYPE {{
+        out_int(x);
+        out_string(" ");
+    }};
+
+    showBool(b : Bool) : Object {
+        if b then out_string("true ") else out_string("false ") fi
+    };
+
+    main() : Object {
+        let i : Int <- 0,
+            sum : Int,
+            flag : Bool,
+            o : Object,
+            p : Object <- 4
+        in {
+            while i < 5 loop {
+                sum <- sum + counter.add(i);
+                i <- i + 1;
+            } pool;
+            show(sum);
+            show(i);
+            showBool(counter.done());
+            out_string("\n");
+
+            flag <- not counter.done();
+            showBool(flag);
+            flag <- counter.add(1) = 11;
+            showBool(flag);
+            showBool(counter.done());
+            show(counter.twice(i, flag));
+            show(counter.twice(~i, not flag));
+            out_string("\n");
+
+            out_string(i.type_name());
+            out_string(" ");
+            out_string(flag.type_name());
+            out_string(" ");
+            show((i + 1).copy());
+            out_string("\n");
+
+            o <- i - 1;
+            showBool(o = p);
+            showBool(p = o);
+            showBool(i = 5);
+            showBool(flag = true);
+            showBool(flag = counter.done());
+            showBool(i = counter.add(0) - 6);
+            p <- flag;
+            showBool(o = p);
+            out_string("\n");
+
+            case o of
+                n : Int => show(n + 10);
+                b : Bool => showBool(b);
+            esac;
+            if i <= 5 then
+                if not (i < 5) then out_string("five\n") else out_string("less\n") fi
+            else
+                out_string("more\n")
+            fi;
+        }
+    };
+};
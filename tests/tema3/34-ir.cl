@@ -0,0 +1,79 @@
+-- Compiled with -ir. Method bodies go through the three-address code and
+-- the register allocator: locals, formals, loops, case, dispatch and calls
+-- into the runtime.
+class List {
+    head : Int;
+    tail : List;
+
+    init(h : Int, t : List) : List {{ head <- h; tail <- t; self; }};
+
+    head() : Int { head };
+    tail() : List { tail };
+
+    sum() : Int {
+        if isvoid tail then head else head + tail.sum() fi
+    };
+};
+
+class Main inherits IO {
+    range(n : Int) : List {
+        let l : List in {
+            while 0 < n loop {
+                l <- new List.init(n, l);
+                n <- n - 1;
+            } pool;
+            l;
+        }
+    };
+
+    describe(x : Object) : String {
+        case x of
+            i : Int => "Int";
+            s : String => "String ".concat(s.substr(1, 2));
+            l : List => "List";
+            o : Object => o.type_name();
+        esac
+    };
+
+    fact(n : Int) : Int {
+        if n = 0 then 1 else n * fact(n - 1) fi
+    };
+
+    main() : Object {
+        let l : List <- range(10),
+            s : String <- "hello",
+            i : Int <- 0
+        in {
+            out_int(l.sum());
+            out_string(" ");
+            out_int(fact(10));
+            out_string(" ");
+            out_int(s.length() * 100 / 7 - ~3);
+            out_string("\n");
+
+            while not isvoid l loop {
+                if l.head() - l.head() / 3 * 3 = 0 then
+                    i <- i + l.head()
+                else
+                    i <- i - 1
+                fi;
+                l <- l.tail();
+            } pool;
+            out_int(i);
+            out_string("\n");
+
+            out_string(describe(i));
+            out_string(", ");
+            out_string(describe(s));
+            out_string(", ");
+            out_string(describe(range(2)));
+            out_string(", ");
+            out_string(describe(self));
+            out_string(", ");
+            out_string(describe(true));
+            out_string("\n");
+
+            out_string(s.concat(" ").concat(s.substr(0, 4)).concat("\n"));
+        }
+    };
+};
@@ -0,0 +1,32 @@
+-- Compiled with -ir. Sum keeps more values live than there are registers,
+-- both across calls and inside one expression, so some of them are spilled
+-- to the stack.
+class Main inherits IO {
+    id(x : Int) : Int { x };
+
+    sum(n : Int) : Int {
+        let a : Int <- n + 1, b : Int <- n + 2, c : Int <- n + 3,
+            d : Int <- n + 4, e : Int <- n + 5, f : Int <- n + 6,
+            g : Int <- n + 7, h : Int <- n + 8, i : Int <- n + 9,
+            j : Int <- n + 10, k : Int <- n + 11, l : Int <- n + 12,
+            m : Int <- n + 13, o : Int <- n + 14, p : Int <- n + 15
+        in {
+            -- Every local is still live after each call.
+            a <- a + id(a);
+            p <- p + id(p);
+            a * 1 + b * 2 + c * 3 + d * 4 + e * 5 + f * 6 + g * 7 + h * 8
+                + i * 9 + j * 10 + k * 11 + l * 12 + m * 13 + o * 14 + p * 15
+                - (a - (b - (c - (d - (e - (f - (g - (h - (i - (j - (k - (l
+                    - (m - (o - (p - n)))))))))))))));
+        }
+    };
+
+    main() : Object {{
+        out_int(sum(0));
+        out_string(" ");
+        out_int(sum(10));
+        out_string(" ");
+        out_int(sum(~100));
+        out_string("\n");
+    }};
+};
@@ -0,0 +1,51 @@
+-- Compiled with -ir -unboxed. Raw Int and Bool values live in registers and
+-- are boxed where they reach attributes, arguments and results.
+class Accumulator {
+    total : Int;
+    positive : Bool;
+
+    add(x : Int) : Accumulator {{
+        total <- total + x;
+        positive <- 0 < total;
+        self;
+    }};
+
+    total() : Int { total };
+    positive() : Bool { positive };
+};
+
+class Main inherits IO {
+    acc : Accumulator <- new Accumulator;
+
+    collatz(n : Int) : Int {
+        let steps : Int in {
+            while not n = 1 loop {
+                if n - n / 2 * 2 = 0 then n <- n / 2 else n <- 3 * n + 1 fi;
+                steps <- steps + 1;
+            } pool;
+            steps;
+        }
+    };
+
+    main() : Object {
+        let i : Int <- 1, max : Int, arg : Int, flag : Bool in {
+            while i <= 30 loop {
+                let c : Int <- collatz(i) in
+                    if max < c then { max <- c; arg <- i; } else 0 fi;
+                i <- i + 1;
+            } pool;
+            out_int(arg);
+            out_string(" ");
+            out_int(max);
+            out_string("\n");
+
+            acc.add(~5);
+            flag <- acc.positive();
+            acc.add(7).add(i);
+            out_int(acc.total());
+            out_string(" ");
+            if flag = acc.positive() then out_string("same\n") else out_string("changed\n") fi;
+            out_string(i.type_name().concat(" ").concat(flag.type_name()).concat("\n"));
+        }
+    };
+};
@@ -0,0 +1,53 @@
+-- Compiled with -devirtualize. Animal.name has a single implementation and
+-- is called directly, Animal.sound is overridden and must stay virtual,
+-- and the static dispatches call the named class' method.
+class Animal {
+    name : String;
+
+    init(n : String) : SELF_TYPE {{ name <- n; self; }};
+
+    name() : String { name };
+    sound() : String { "..." };
+    describe() : String { name().concat(" says ").concat(sound()) };
+};
+
+class Dog inherits Animal {
+    sound() : String { "woof" };
+};
+
+class Puppy inherits Dog {
+    sound() : String { "yip" };
+    parent() : String { self@Dog.sound() };
+};
+
+class Cat inherits Animal {
+    sound() : String { "meow" };
+};
+
+class Main inherits IO {
+    say(a : Animal) : Object {
+        out_string(a.describe().concat("\n"))
+    };
+
+    main() : Object {
+        let dog : Dog <- new Dog,
+            puppy : Puppy <- new Puppy,
+            animal : Animal <- new Cat
+        in {
+            dog.init("Rex");
+            puppy.init("Bit");
+            animal.init("Tom");
+            say(dog);
+            say(puppy);
+            say(animal);
+            say(new Animal.init("Fish"));
+
+            animal <- puppy;
+            out_string(animal.sound().concat(" "));
+            out_string(animal@Animal.sound().concat(" "));
+            out_string(puppy@Dog.sound().concat(" "));
+            out_string(puppy.parent().concat(" "));
+            out_string(dog.name().concat("\n"));
+        }
+    };
+};
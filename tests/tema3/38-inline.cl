@@ -0,0 +1,74 @@
+-- Compiled with -ir -inline. Small monomorphic methods are expanded at the
+-- call site, large ones are called, and recursive methods are expanded only
+-- once. The last dispatch is on a void receiver of an inlined method and
+-- must abort with the line of the call, in crash.
+class Point {
+    x : Int;
+    y : Int;
+
+    init(a : Int, b : Int) : Point {{ x <- a; y <- b; self; }};
+
+    x() : Int { x };
+    y() : Int { y };
+    norm() : Int { x * x + y * y };
+
+    -- Too large to be expanded.
+    describe() : String {
+        let s : String <- "(" in {
+            if x < 0 then s <- s.concat("-") else s <- s.concat("+") fi;
+            if y < 0 then s <- s.concat("-") else s <- s.concat("+") fi;
+            if x = y then s <- s.concat("=") else s <- s.concat("/") fi;
+            if x < y then s <- s.concat("<") else s <- s.concat(">") fi;
+            s.concat(")");
+        }
+    };
+};
+
+class Main inherits IO {
+    point : Point;
+
+    fact(n : Int) : Int { if n = 0 then 1 else n * fact(n - 1) fi };
+    even(n : Int) : Bool { if n = 0 then true else odd(n - 1) fi };
+    odd(n : Int) : Bool { if n = 0 then false else even(n - 1) fi };
+
+    -- point is void; norm is expanded here, after the void check.
+    crash() : Int { point.norm() };
+
+    show(b : Bool) : Object { if b then out_string("even ") else out_string("odd ") fi };
+
+    main() : Object {
+        let p : Point <- new Point.init(3, ~4), sum : Int in {
+            out_int(p.x());
+            out_string(" ");
+            out_int(p.y());
+            out_string(" ");
+            out_int(p.norm());
+            out_string(" ");
+            out_string(p.describe());
+            out_string("\n");
+
+            -- More expansions than the budget of a routine allows.
+            sum <- p.norm() + p.norm() + p.norm() + p.norm() + p.norm() + p.norm()
+                + p.norm() + p.norm() + p.norm() + p.norm() + p.norm() + p.norm()
+                + p.norm() + p.norm() + p.norm() + p.norm() + p.norm() + p.norm()
+                + p.norm() + p.norm() + p.norm() + p.norm() + p.norm() + p.norm()
+                + p.norm() + p.norm() + p.norm() + p.norm() + p.norm() + p.norm()
+                + p.norm() + p.norm() + p.norm() + p.norm() + p.norm() + p.norm()
+                + p.norm() + p.norm() + p.norm() + p.norm() + p.norm() + p.norm()
+                + p.norm() + p.norm() + p.norm() + p.norm() + p.norm() + p.norm()
+                + p.norm() + p.norm() + p.norm() + p.norm() + p.norm() + p.norm();
+            out_int(sum);
+            out_string("\n");
+
+            out_int(fact(10));
+            out_string(" ");
+            show(even(7));
+            show(odd(7));
+            show(even(10));
+            out_string("\n");
+
+            out_int(crash());
+            out_string("unreachable\n");
+        }
+    };
+};
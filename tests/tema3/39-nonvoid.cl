@@ -0,0 +1,30 @@
+-- Compiled with -nonvoid. The receivers proven non-void skip the check, but
+-- the let-bound local is still void when it is dispatched on and must abort.
+class Box {
+    value : Int;
+
+    set(v : Int) : Box {{ value <- v; self; }};
+    get() : Int { value };
+};
+
+class Main inherits IO {
+    main() : Object {
+        let fresh : Box <- new Box,
+            checked : Box,
+            empty : Box
+        in {
+            out_int(fresh.set(3).get());
+            out_string(" ");
+            out_int(self.out_string("self ").type_name().length());
+            out_string(" ");
+            if isvoid checked then checked <- new Box.set(5) else 0 fi;
+            out_int(checked.get());
+            out_string(" ");
+            out_int(new Box.get());
+            out_string("\n");
+
+            out_int(empty.get());
+            out_string("unreachable\n");
+        }
+    };
+};
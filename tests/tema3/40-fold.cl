@@ -0,0 +1,28 @@
+-- Compiled with -fold. Constant expressions, including let-bound constants,
+-- are evaluated at compile time, but a constant division by zero is left to
+-- fail at run time.
+class Main inherits IO {
+    show(x : Int) : SELF_TYPE {{
+        out_int(x);
+        out_string(" ");
+    }};
+
+    main() : Object {
+        let x : Int <- 6 * 7 in {
+            show(1 + 2 * 3 - 4 / 2);
+            show(~(3 - 10));
+            show(x);
+            show(x / 5);
+            show(~7 / 2);
+            out_string("\n");
+
+            if 3 < 4 then out_string("lt ") else out_string("ge ") fi;
+            if not (2 * 2 = 4) then out_string("ne") else out_string("eq") fi;
+            if 5 <= 5 then out_string(" le\n") else out_string(" gt\n") fi;
+            out_string("ab".concat("cd").substr(1, 2).concat("\n"));
+
+            show(x / 0);
+            out_string("unreachable\n");
+        }
+    };
+};
@@ -0,0 +1,21 @@
+-- Compiled with -fold. Constant expressions that overflow are left to run
+-- time: mul wraps around, while add and sub trap on overflow.
+class Main inherits IO {
+    show(x : Int) : SELF_TYPE {{
+        out_int(x);
+        out_string(" ");
+    }};
+
+    main() : Object {
+        let big : Int <- 2147483647 in {
+            show(big - 1 + 1);
+            show(~big - 1);
+            show(65536 * 65536);
+            show(big * 2);
+            out_string("\n");
+
+            show(big + 1);
+            out_string("unreachable\n");
+        }
+    };
+};
@@ -0,0 +1,51 @@
+-- Compiled with -fuse. The conditions of if and while branch directly on
+-- nested not, isvoid, <, <= and = instead of building a Bool first.
+class Node {
+    next : Node;
+    value : Int;
+
+    init(v : Int, n : Node) : Node {{ value <- v; next <- n; self; }};
+
+    next() : Node { next };
+    value() : Int { value };
+};
+
+class Main inherits IO {
+    list : Node;
+
+    main() : Object {
+        let i : Int <- 0, n : Node, count : Int, flag : Bool <- false in {
+            while not 10 <= i loop {
+                list <- new Node.init(i, list);
+                i <- i + 1;
+            } pool;
+
+            n <- list;
+            while not isvoid n loop {
+                if not (n.value() <= 3) then
+                    if not not (n.value() - n.value() / 2 * 2 = 0) then
+                        count <- count + n.value()
+                    else
+                        count <- count - 1
+                    fi
+                else
+                    if isvoid n.next() then count <- count * 100 else count <- count + 1000 fi
+                fi;
+                n <- n.next();
+            } pool;
+            out_int(count);
+            out_string("\n");
+
+            while not flag loop {
+                if not (not (i <= 12) = flag) then flag <- true else i <- i + 1 fi;
+            } pool;
+            out_int(i);
+            out_string(" ");
+
+            if not isvoid list.next() then out_string("next ") else out_string("last ") fi;
+            if isvoid n then out_string("void ") else out_string("node ") fi;
+            if not (flag = (i < 13)) then out_string("differ ") else out_string("same ") fi;
+            if (i <= 13) = flag then out_string("le\n") else out_string("gt\n") fi;
+        }
+    };
+};
@@ -0,0 +1,52 @@
+-- Compiled with -dce. Tagged and Ghost appear only as case branches, and
+-- Derived.greet is reached only through the SELF_TYPE result of clone; all
+-- of them must keep working. Unused and its method are dropped.
+class Tagged {};
+
+class Child inherits Tagged {};
+
+class Ghost {};
+
+class Base {
+    count : Int <- 1;
+
+    clone() : SELF_TYPE {{ count <- count + 1; new SELF_TYPE; }};
+    count() : Int { count };
+    greet() : String { "base" };
+};
+
+class Derived inherits Base {
+    greet() : String { "derived" };
+};
+
+class Unused {
+    never() : Object { new Ghost };
+};
+
+class Main inherits IO {
+    describe(x : Object) : String {
+        case x of
+            t : Tagged => "tagged";
+            g : Ghost => "ghost";
+            b : Base => "base";
+            o : Object => o.type_name();
+        esac
+    };
+
+    main() : Object {
+        let base : Base <- new Derived in {
+            out_string(describe(new Child).concat(" "));
+            out_string(describe(base).concat(" "));
+            out_string(describe(base.clone()).concat(" "));
+            out_string(describe(self).concat(" "));
+            out_string(describe(3).concat("\n"));
+
+            out_string(base.clone().greet().concat(" "));
+            out_string(base.clone().type_name().concat(" "));
+            out_int(base.count());
+            out_string(" ");
+            out_int(base.clone().count());
+            out_string("\n");
+        }
+    };
+};
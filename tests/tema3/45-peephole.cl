@@ -0,0 +1,32 @@
+-- Compiled with -peephole. The first operand of each binary operation is
+-- pushed while the second one is computed (push-pop), and locals are read
+-- right after they are stored (store-load).
+class Main inherits IO {
+    a : Int <- 7;
+
+    eval(x : Int, y : Int) : Int {
+        let t : Int <- x * y - (x - y) * (x + y) in {
+            t <- t / 3 + x;
+            a <- t - a;
+            t <- a * 2 - t;
+            (t + x) * (y - a) / (x + 1);
+        }
+    };
+
+    main() : Object {
+        let i : Int <- 0, s : String <- "", b : Bool in {
+            while i < 6 loop {
+                out_int(eval(i, 3 - i));
+                out_string(" ");
+                i <- i + 1;
+            } pool;
+            out_int(a);
+            out_string("\n");
+
+            b <- i < a = (a <= i);
+            s <- s.concat("x").concat(s.concat("y"));
+            if b then out_string(s) else out_string(s.concat(s)) fi;
+            out_string("\n");
+        }
+    };
+};
@@ -0,0 +1,103 @@
+-- Compiled with -casedispatch. Kind.name picks its branch through a jump
+-- table (the tags of its branches are dense), Kind.size through a binary
+-- search (the Object branch spans all the tags). Shape has no branch in
+-- Kind.name, so the last show aborts.
+class Shape {
+    area() : Int { 0 };
+};
+
+class Circle inherits Shape {
+    area() : Int { 3 };
+};
+
+class Dot inherits Circle {
+    area() : Int { 1 };
+};
+
+class Square inherits Shape {
+    area() : Int { 4 };
+};
+
+class Filler {};
+class F1 inherits Filler {};
+class F2 inherits Filler {};
+class F3 inherits Filler {};
+class F4 inherits Filler {};
+class F5 inherits Filler {};
+class F6 inherits Filler {};
+class F7 inherits Filler {};
+class F8 inherits Filler {};
+class F9 inherits Filler {};
+class F10 inherits Filler {};
+class F11 inherits F10 {};
+class F12 inherits F10 {};
+class F13 inherits F12 {};
+class F14 inherits F12 {};
+class F15 inherits Filler {};
+class F16 inherits Filler {};
+class F17 inherits Filler {};
+class F18 inherits Filler {};
+class F19 inherits Filler {};
+class F20 inherits Filler {};
+
+class Kind {
+    name(x : Object) : String {
+        case x of
+            i : Int => if i < 0 then "negative Int" else "Int" fi;
+            s : String => "String".concat(s);
+            b : Bool => if b then "true Bool" else "false Bool" fi;
+            c : Circle => "Circle";
+            d : Dot => "Dot";
+            q : Square => "Square";
+        esac
+    };
+
+    size(x : Object) : Int {
+        case x of
+            i : Int => i + 1;
+            s : String => s.length();
+            b : Bool => if b then 1 else 0 fi;
+            f : F12 => 12;
+            g : F11 => 11;
+            sh : Shape => sh.area();
+            o : Object => ~1;
+        esac
+    };
+};
+
+class Main inherits IO {
+    kind : Kind <- new Kind;
+
+    show(x : Object) : SELF_TYPE {{
+        out_string(kind.name(x));
+        out_string(" ");
+        out_int(kind.size(x));
+        out_string("\n");
+    }};
+
+    main() : Object {{
+        show(7);
+        show(~7);
+        show(" abc");
+        show(true);
+        show(false);
+        show(new Circle);
+        show(new Dot);
+        show(new Square);
+
+        out_int(kind.size(new F13));
+        out_string(" ");
+        out_int(kind.size(new F11));
+        out_string(" ");
+        out_int(kind.size(new F14));
+        out_string(" ");
+        out_int(kind.size(new F20));
+        out_string(" ");
+        out_int(kind.size(new Shape));
+        out_string(" ");
+        out_int(kind.size(self));
+        out_string("\n");
+
+        show(new Shape);
+    }};
+};
@@ -0,0 +1,114 @@
+-- Compiled with -tailcalls. Counter.count recurses 1000000 times without
+-- allocating; without -tailcalls its frames overflow the SPIM stack.
+
+class Digit {
+    next : Digit;
+    last : Bool;
+
+    init(n : Digit, l : Bool) : Digit {{ next <- n; last <- l; self; }};
+
+    next() : Digit { next };
+    last() : Bool { last };
+};
+
+class Ring {
+    first : Digit;
+
+    -- Digits 0..n-1, the last one linked back to the first.
+    init(n : Int) : Ring {
+        let last : Digit <- new Digit,
+            d : Digit <- last
+        in {
+            while 1 < n loop {
+                d <- new Digit.init(d, false);
+                n <- n - 1;
+            } pool;
+            last.init(d, true);
+            first <- d;
+            self;
+        }
+    };
+
+    first() : Digit { first };
+};
+
+class Counter {
+    count(a : Digit, b : Digit, c : Digit) : Bool {
+        if not a.last() then count(a.next(), b, c) else
+        if not b.last() then count(a.next(), b.next(), c) else
+        if not c.last() then count(a.next(), b.next(), c.next()) else
+            true
+        fi fi fi
+    };
+
+    -- The arguments are swapped, so they must all be evaluated first.
+    swap(a : Int, b : Int, k : Int) : Int {
+        if k = 0 then a * 10 + b else swap(b - 1, a - 1, k - 1) fi
+    };
+};
+
+-- Even and Odd call each other 9999 times.
+class Even {
+    odd : Odd;
+
+    init(o : Odd) : Even {{ odd <- o; self; }};
+
+    test(a : Digit, b : Digit) : Bool {
+        if a.last() then
+            if b.last() then true else odd.test(a.next(), b.next()) fi
+        else
+            odd.test(a.next(), b)
+        fi
+    };
+};
+
+class Odd {
+    even : Even;
+
+    init(e : Even) : Odd {{ even <- e; self; }};
+
+    test(a : Digit, b : Digit) : Bool {
+        if a.last() then
+            if b.last() then false else even.test(a.next(), b.next()) fi
+        else
+            even.test(a.next(), b)
+        fi
+    };
+};
+
+class Main inherits IO {
+    counter : Counter <- new Counter;
+
+    parity(b : Bool) : String {
+        if b then "even\n" else "odd\n" fi
+    };
+
+    main() : Object {
+        let ring : Ring <- new Ring.init(100),
+            zero : Digit <- ring.first(),
+            even : Even <- new Even,
+            odd : Odd <- new Odd.init(even)
+        in {
+            even.init(odd);
+
+            if counter.count(zero, zero, zero) then
+                out_string("counted\n")
+            else
+                out_string("stopped\n")
+            fi;
+
+            out_int(counter.swap(3, 8, 0));
+            out_string(" ");
+            out_int(counter.swap(3, 8, 1));
+            out_string(" ");
+            out_int(counter.swap(3, 8, 2));
+            out_string(" ");
+            out_int(counter.swap(3, 8, 5));
+            out_string("\n");
+
+            out_string(parity(even.test(zero, zero)));
+            out_string(parity(odd.test(zero, zero)));
+            out_string(parity(even.test(zero.next(), zero)));
+        }
+    };
+};
@@ -0,0 +1,53 @@
+-- Compiled with -inlineeq. = on two Int or two Bool operands compares their
+-- values inline; Object and String operands still go through equality_test,
+-- even when they hold Int or Bool values.
+class Pair {
+    x : Int;
+
+    init(v : Int) : Pair {{ x <- v; self; }};
+    x() : Int { x };
+};
+
+class Main inherits IO {
+    show(b : Bool) : Object {
+        if b then out_string("t") else out_string("f") fi
+    };
+
+    main() : Object {
+        let i : Int <- 5, j : Int <- 2 + 3, k : Int <- ~5,
+            p : Bool <- true, q : Bool <- not false,
+            o : Object <- 5, n : Object <- 2 + 3, r : Object <- true,
+            t : Object <- "5", s : String <- "5",
+            a : Pair <- new Pair.init(5), b : Pair
+        in {
+            show(i = j);
+            show(i = k);
+            show(i = 5);
+            show(~i = k);
+            show(a.x() = i);
+            show(i + 1 = j);
+            out_string(" ");
+
+            show(p = q);
+            show(p = not q);
+            show(false = (i < k));
+            show(p = (j = i));
+            out_string(" ");
+
+            show(o = n);
+            show(o = r);
+            show(r = r);
+            show(s = "5");
+            show(s = i.type_name());
+            show(o = t);
+            out_string(" ");
+
+            show(a = a);
+            show(a = new Pair.init(5));
+            show(b = b);
+            show(isvoid b = true);
+            show(a = b);
+            out_string("\n");
+        }
+    };
+};
@@ -0,0 +1,54 @@
+-- Compiled with -intcache -8..15. Results inside the range are shared
+-- objects from the cache, the ones outside it are allocated.
+class Main inherits IO {
+    show(x : Int) : SELF_TYPE {{
+        out_int(x);
+        out_string(" ");
+    }};
+
+    -- A result held while the others are computed must keep its value.
+    sum(a : Int, b : Int, c : Int, d : Int) : Int { a + b + c + d };
+
+    main() : Object {
+        let min : Int <- ~8, max : Int <- 15, x : Int, y : Int in {
+            show(min - 1);
+            show(min);
+            show(min + 1);
+            show(max - 1);
+            show(max);
+            show(max + 1);
+            out_string("\n");
+
+            show(~9);
+            show(~8);
+            show(~(~15));
+            show(~(~16));
+            show(~min);
+            show(~(max + 1));
+            out_string("\n");
+
+            show(3 * 5);
+            show(4 * 4);
+            show(~16 / 2);
+            show(~18 / 2);
+            show(sum(min - 1, min, max, max + 1));
+            out_string("\n");
+
+            x <- in_int();
+            y <- in_int();
+            show(x);
+            show(y);
+            show(x + y);
+            show(~x);
+            show(~y);
+            out_string("\n");
+
+            x <- in_int();
+            y <- in_int();
+            show(x);
+            show(y);
+            show(x - y);
+            out_string("\n");
+        }
+    };
+};